@@ -1,8 +1,11 @@
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
@@ -14,17 +17,62 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
+import rainfall.Climatology;
+import rainfall.DrawEvent;
 import rainfall.Loader;
 import rainfall.Record;
+import rainfall.SessionSnapshot;
 import rainfall.Station;
+import rainfall.StationCache;
+import rainfall.StationWatcher;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class RainfallVisualiser extends Application {
 
+    // Cache of loaded Stations so reopening a station doesn't reparse its analysed file
+    private final StationCache stationCache = new StationCache(64L * 1024 * 1024);
+    // Delay after the last change to a raw data file before the station is analysed again
+    private static final long WATCH_DEBOUNCE_MILLIS = 500;
+
+    // Watcher of the open station's directory, re-analysing changed raw data in the background
+    private StationWatcher stationWatcher;
+    // Station currently displayed and how its chart was drawn, so changes can be redrawn in place
+    private String displayedDirectoryName;
+    private String displayedStationName;
+    private Station displayedStation;
+    private double chartScaleFactor;
+    private double chartColumnWidth;
+    private boolean[] chartAnomalies; // Whether each displayed month is anomalous
+    // Standard deviations from its calendar month's mean a monthly total must exceed to be highlighted as anomalous
+    private static final double ANOMALY_THRESHOLD = 3.0;
+    // Stations overlaid on the chart by name, empty when a single station is displayed
+    private final Map<String, Station> overlayStations = new LinkedHashMap<>();
+    // Stations displayed and the versions of their files, saved with the chart on exit to be restored on launch
+    private SessionSnapshot displayedSession;
+    private long startNanos; // When start was called, to measure time to first chart
+    private boolean restoringSession; // Whether a restored chart is displayed while its stations are checked
+
+    // Most stations that can be overlaid, one colour each
+    private static final Color[] OVERLAY_COLOURS = {Color.BLUE, Color.CRIMSON, Color.DARKGREEN, Color.DARKORANGE,
+            Color.PURPLE, Color.TEAL, Color.BROWN, Color.MAGENTA, Color.NAVY, Color.GOLD};
+    // Column colours of a single station, batched into one path each
+    private static final Color[] COLUMN_COLOURS = {Color.TAN, Color.BLUE, Color.GREY};
+    private static final int EVEN_YEAR_COLUMN = 0;
+    private static final int ODD_YEAR_COLUMN = 1;
+    private static final int INCOMPLETE_COLUMN = 2;
+
     private TextField directoryNameInput;
     private TextField stationNameInput;
 
     private final int canvasWidth = 1250;
     private final int canvasHeight = 500;
+    private Canvas chartCanvas;
     private GraphicsContext chartGraphicsContext;
     // Text area to display Station Record values.
     private Label statusLabel;
@@ -37,6 +85,7 @@ public class RainfallVisualiser extends Application {
 
     @Override
     public void start(Stage stage) {
+        startNanos = System.nanoTime();
         generateNodes();
 
         // Position Nodes
@@ -61,6 +110,8 @@ public class RainfallVisualiser extends Application {
         stage.setTitle("Rainfall Visualiser 2.0");
         stage.setResizable(false);
         stage.show();
+
+        restoreSession();
     } // end start
 
     private void generateNodes() {
@@ -88,7 +139,7 @@ public class RainfallVisualiser extends Application {
         HBox.setHgrow(openButton, Priority.ALWAYS);
 
         // Graph and data viewer
-        Canvas chartCanvas = new Canvas(canvasWidth, canvasHeight);
+        chartCanvas = new Canvas(canvasWidth, canvasHeight);
 
         // Fill canvas area
         chartGraphicsContext = chartCanvas.getGraphicsContext2D();
@@ -111,35 +162,190 @@ public class RainfallVisualiser extends Application {
     } // end generateNodes
 
     private void handleOpen() {
+        long openNanos = System.nanoTime();
         resetDisplays();
+        displayedSession = null;
+        restoringSession = false;
         String directoryName = directoryNameInput.getText().strip();
         String stationName = stationNameInput.getText().strip();
+        overlayStations.clear();
+        if (stationName.contains(",")) { // Several stations to overlay
+            handleOpenOverlay(directoryName, stationName.split(","));
+            return;
+        }
 
         // Label station
         try {
             // Station object to hold Records.
-            Station station = Loader.load(directoryName, stationName);
-            for (int i = 0; i < station.getNumberOfRecords(); i++) {
-                String currentDisplay = recordDisplay.getText();
-
-                // First record just display to avoid blank line
-                recordDisplay.setText(i == 0 ? formatRecord(station.getRecord(i)) :
-                        currentDisplay + formatRecord(station.getRecord(i)));
-
-                // Display blank line in between years
-                if (station.getRecord(i).getMonth() == 12) recordDisplay.setText(recordDisplay.getText() + "\n");
-            }
+            Station station = stationCache.load(directoryName, stationName);
+            recordDisplay.setText(formatRecords(station));
 
             // Display bar graph
             draw(station);
-            statusLabel.setText("Status: Loaded");
+            displayedStation = station;
+            displayedDirectoryName = directoryName;
+            displayedStationName = stationName;
+            displayedSession = SessionSnapshot.capture(directoryName, stationName, station);
+            statusLabel.setText(String.format("Status: Loaded in %d ms", (System.nanoTime() - openNanos) / 1_000_000));
+            watchDirectory(directoryName);
         } catch (
                 Loader.LoaderException e) { // Display error to Status Bar
+            displayedStation = null;
             statusLabel.setText("Status: " + e.getMessage());
         }
     } // end handleOpen
 
+    /**
+     * Helper method to open and overlay several stations on the chart, the records of the first are displayed.
+     *
+     * @param directoryName The path to the directory of the stations.
+     * @param stationNames  The names of the stations, at most one per overlay colour.
+     */
+    private void handleOpenOverlay(String directoryName, String[] stationNames) {
+        displayedStation = null;
+        if (stationNames.length > OVERLAY_COLOURS.length) {
+            statusLabel.setText(String.format("Status: At most %d stations can be overlaid", OVERLAY_COLOURS.length));
+            return;
+        }
+        try {
+            for (String stationName : stationNames) {
+                if (stationName.isBlank()) continue;
+                overlayStations.put(stationName.strip(), stationCache.load(directoryName, stationName.strip()));
+            }
+        } catch (Loader.LoaderException e) { // Display error to Status Bar
+            overlayStations.clear();
+            statusLabel.setText("Status: " + e.getMessage());
+            return;
+        }
+        if (overlayStations.isEmpty()) {
+            statusLabel.setText("Status: No station names");
+            return;
+        }
+        recordDisplay.setText(formatRecords(overlayStations.values().iterator().next()));
+        drawOverlay();
+        displayedDirectoryName = directoryName;
+        displayedSession = SessionSnapshot.capture(directoryName, String.join(",", overlayStations.keySet()),
+                overlayStations.values().iterator().next());
+        statusLabel.setText(String.format("Status: Loaded %d stations", overlayStations.size()));
+        watchDirectory(directoryName);
+    } // end handleOpenOverlay
+
+    /**
+     * Helper method to watch the open station's directory for changed raw data, replacing the watcher
+     * of any other directory.
+     *
+     * @param directoryName The path to the directory of the open station.
+     */
+    private void watchDirectory(String directoryName) {
+        if (stationWatcher != null && stationWatcher.getDirectoryName().equals(directoryName)) return;
+        stopWatching();
+        try {
+            stationWatcher = new StationWatcher(directoryName, stationCache, WATCH_DEBOUNCE_MILLIS,
+                    new StationWatcher.Listener() {
+                        @Override
+                        public void stationChanged(String stationName, Station station) {
+                            Platform.runLater(() -> handleStationChanged(directoryName, stationName, station));
+                        }
+
+                        @Override
+                        public void stationFailed(String stationName, Loader.LoaderException error) {
+                            Platform.runLater(() -> {
+                                if (isDisplayed(directoryName, stationName)) {
+                                    statusLabel.setText("Status: Reload failed, " + error.getMessage());
+                                }
+                            });
+                        }
+                    });
+        } catch (IOException e) { // Station is still displayed, just not refreshed
+            statusLabel.setText("Status: Loaded, unable to watch for changes: " + e.getMessage());
+        }
+    } // end watchDirectory
+
+    private void stopWatching() {
+        if (stationWatcher == null) return;
+        try {
+            stationWatcher.close();
+        } catch (IOException e) {
+            // watcher is discarded regardless
+        }
+        stationWatcher = null;
+    } // end stopWatching
+
+    private boolean isDisplayed(String directoryName, String stationName) {
+        return displayedStation != null && directoryName.equals(displayedDirectoryName)
+                && stationName.equals(displayedStationName);
+    } // end isDisplayed
+
+    /**
+     * Helper method to update the display once a watched station has been analysed again.
+     * When the months and highest rainfall value are unchanged the chart's scale is too, so only the columns of
+     * changed months are redrawn, otherwise the chart is drawn again.
+     */
+    private void handleStationChanged(String directoryName, String stationName, Station station) {
+        if (overlayStations.containsKey(stationName) && directoryName.equals(displayedDirectoryName)) {
+            overlayStations.put(stationName, station);
+            displayedSession = SessionSnapshot.capture(directoryName, String.join(",", overlayStations.keySet()),
+                    overlayStations.values().iterator().next());
+            resetDisplays();
+            recordDisplay.setText(formatRecords(overlayStations.values().iterator().next()));
+            drawOverlay();
+            statusLabel.setText("Status: Reloaded " + stationName);
+            return;
+        }
+        if (!isDisplayed(directoryName, stationName) || station == displayedStation) return;
+        Station previousStation = displayedStation;
+        displayedStation = station;
+        displayedSession = SessionSnapshot.capture(directoryName, stationName, station);
+
+        double scrollTop = recordDisplay.getScrollTop();
+        // A restored chart was drawn by an earlier session, so its layout isn't known and it is drawn again
+        if (chartAnomalies != null && isSameChartLayout(previousStation, station)) {
+            int X_AXIS_Y_VALUE = canvasHeight - 40;
+            int STARTING_X_VALUE = 100;
+            int changedMonths = 0;
+            // A changed month changes its calendar month's climatology, so other months may become anomalous
+            boolean[] previousAnomalies = chartAnomalies;
+            chartAnomalies = Climatology.of(station).findAnomalies(station, ANOMALY_THRESHOLD);
+            for (int i = 0; i < station.getNumberOfRecords(); i++) {
+                if (isSameMonth(previousStation, station, i) && previousAnomalies[i] == chartAnomalies[i]) continue;
+                double columnX = STARTING_X_VALUE + i * chartColumnWidth;
+                // Clear the column area above the axis, then draw the month again
+                chartGraphicsContext.setFill(Color.WHITE);
+                chartGraphicsContext.fillRect(columnX, 25, chartColumnWidth, X_AXIS_Y_VALUE - 25);
+                drawColumn(station.getRecord(i), columnX, chartColumnWidth, X_AXIS_Y_VALUE, chartScaleFactor,
+                        chartAnomalies[i]);
+                changedMonths++;
+            }
+            if (changedMonths > 0) drawAxis(STARTING_X_VALUE, X_AXIS_Y_VALUE); // restore axes under redrawn columns
+            recordDisplay.setText(formatRecords(station));
+            statusLabel.setText(String.format("Status: Reloaded, %d months changed", changedMonths));
+        } else {
+            resetDisplays();
+            recordDisplay.setText(formatRecords(station));
+            draw(station);
+            statusLabel.setText("Status: Reloaded");
+        }
+        recordDisplay.setScrollTop(scrollTop);
+    } // end handleStationChanged
+
+    private static boolean isSameChartLayout(Station previousStation, Station station) {
+        int numberOfRecords = station.getNumberOfRecords();
+        return numberOfRecords > 0 && numberOfRecords == previousStation.getNumberOfRecords()
+                && station.getYear(0) == previousStation.getYear(0) && station.getMonth(0) == previousStation.getMonth(0)
+                && station.getMaxRainfallValue() == previousStation.getMaxRainfallValue();
+    } // end isSameChartLayout
+
+    private static boolean isSameMonth(Station previousStation, Station station, int i) {
+        return station.getTotal(i) == previousStation.getTotal(i) && station.getMin(i) == previousStation.getMin(i)
+                && station.getMax(i) == previousStation.getMax(i)
+                && station.getMissingDays(i) == previousStation.getMissingDays(i);
+    } // end isSameMonth
+
     private void draw(Station station) {
+        // Begin timing draw, the event is only committed when a JFR recording has it enabled
+        DrawEvent drawEvent = new DrawEvent();
+        drawEvent.begin();
+
         // Calculate graphing Variables
         double HIGHEST_RAINFALL_VALUE = station.getMaxRainfallValue();
 
@@ -152,12 +358,21 @@ public class RainfallVisualiser extends Application {
 
         double SCALE_FACTOR = Y_AXIS_HEIGHT / HIGHEST_RAINFALL_VALUE; // Factor to scale down monthlyRainfall to fit to graph
         int STARTING_X_VALUE = 100; // The x value that the chart axes starts from.
+        chartScaleFactor = SCALE_FACTOR;
+        chartAnomalies = Climatology.of(station).findAnomalies(station, ANOMALY_THRESHOLD);
 
         // Draw Graph
         graphStationRecords(station, X_AXIS_Y_VALUE, X_AXIS_LABEL_Y_VALUE, SCALE_FACTOR, STARTING_X_VALUE);
 
         // Label Graph
         labelYAxis(X_AXIS_Y_VALUE, Y_AXIS_LABEL_SPACING, Y_AXIS_LABEL_VALUE_INTERVAL, STARTING_X_VALUE);
+
+        drawEvent.end();
+        if (drawEvent.shouldCommit()) {
+            drawEvent.records = station.getNumberOfRecords();
+            drawEvent.stations = 1;
+            drawEvent.commit();
+        }
     } // end draw
 
     private void labelYAxis(int x_AXIS_Y_VALUE, int y_AXIS_LABEL_SPACING, int y_AXIS_LABEL_VALUE_INTERVAL, int STARTING_X_VALUE) {
@@ -179,36 +394,202 @@ public class RainfallVisualiser extends Application {
         int NUMBER_OF_RECORDS = station.getNumberOfRecords();
         double X_AXIS_WIDTH = canvasWidth - 30 - STARTING_X_VALUE;
         double COLUMN_WIDTH = (X_AXIS_WIDTH / NUMBER_OF_RECORDS);
+        chartColumnWidth = COLUMN_WIDTH;
 
-        double currentValueX = STARTING_X_VALUE; // start graphing inside axis
-        int lastYearLabelled = station.getRecord(0).getYear(); // Last year labelled on x-axis
+        // Label x-axis, first and then every 5 years
+        int lastYearLabelled = station.getYear(0); // Last year labelled on x-axis
+        for (int i = 0; i < NUMBER_OF_RECORDS; i++) {
+            if (station.getMonth(i) == 1 && (station.getYear(i) - lastYearLabelled == 5 || i == 0)) {
+                chartGraphicsContext.strokeText("| " + station.getYear(i), STARTING_X_VALUE + i * COLUMN_WIDTH - 3,
+                        x_AXIS_LABEL_Y_VALUE, 50);
+                lastYearLabelled = station.getYear(i);
+            }
+        }
+
+        // Draw the columns of each colour as one path, rather than a fill call per month
+        for (int colour = 0; colour < COLUMN_COLOURS.length; colour++) {
+            chartGraphicsContext.beginPath();
+            for (int i = 0; i < NUMBER_OF_RECORDS; i++) {
+                if (getColumnColour(station, i) != colour) continue;
+                double scaledMonthlyRainfall = station.getTotal(i) * SCALE_FACTOR; // Scale rainfallTotal to fit on axes
+                chartGraphicsContext.rect(STARTING_X_VALUE + i * COLUMN_WIDTH, x_AXIS_Y_VALUE - scaledMonthlyRainfall,
+                        COLUMN_WIDTH, scaledMonthlyRainfall);
+            }
+            chartGraphicsContext.setFill(COLUMN_COLOURS[colour]);
+            chartGraphicsContext.fill();
+        }
 
+        // Mark months with no readings at all along the axis rather than draw a zero column
+        chartGraphicsContext.beginPath();
         for (int i = 0; i < NUMBER_OF_RECORDS; i++) {
-            Record record = station.getRecord(i);
-            double scaledMonthlyRainfall = record.getTotal() * SCALE_FACTOR; // Scale rainfallTotal to fit on axes
+            if (station.isMissing(i)) chartGraphicsContext.rect(STARTING_X_VALUE + i * COLUMN_WIDTH, x_AXIS_Y_VALUE - 3, COLUMN_WIDTH, 3);
+        }
+        chartGraphicsContext.setFill(Color.LIGHTGREY);
+        chartGraphicsContext.fill();
 
-            // alternate bar colours per year
-            if (record.getYear() % 2 == 0) {
-                chartGraphicsContext.setFill(Color.TAN);
-            } else {
-                chartGraphicsContext.setFill(Color.BLUE);
+        // Highlight anomalous months with a marker across the top of their column
+        chartGraphicsContext.beginPath();
+        for (int i = 0; i < NUMBER_OF_RECORDS; i++) {
+            if (chartAnomalies[i]) {
+                chartGraphicsContext.rect(STARTING_X_VALUE + i * COLUMN_WIDTH, x_AXIS_Y_VALUE - station.getTotal(i) * SCALE_FACTOR,
+                        Math.max(COLUMN_WIDTH, 2), 3);
             }
+        }
+        chartGraphicsContext.setFill(Color.RED);
+        chartGraphicsContext.fill();
+    } // end graphRainfall
+
+    /**
+     * Helper method to find the colour of a month's column, alternating per year and grey for months missing readings.
+     *
+     * @return Index of the colour in COLUMN_COLOURS, or -1 if the month has no readings.
+     */
+    private static int getColumnColour(Station station, int i) {
+        if (station.isComplete(i)) return station.getYear(i) % 2 == 0 ? EVEN_YEAR_COLUMN : ODD_YEAR_COLUMN;
+        return station.isMissing(i) ? -1 : INCOMPLETE_COLUMN;
+    } // end getColumnColour
+
+    private void drawColumn(Record record, double currentValueX, double COLUMN_WIDTH, int x_AXIS_Y_VALUE, double SCALE_FACTOR,
+                            boolean anomaly) {
+        double scaledMonthlyRainfall = record.getTotal() * SCALE_FACTOR; // Scale rainfallTotal to fit on axes
+
+        // alternate bar colours per year, grey for months missing readings
+        if (record.isMissing()) {
+            // No readings at all, mark the month along the axis rather than draw a zero column
+            chartGraphicsContext.setFill(Color.LIGHTGREY);
+            chartGraphicsContext.fillRect(currentValueX, x_AXIS_Y_VALUE - 3, COLUMN_WIDTH, 3);
+        } else if (!record.isComplete()) {
+            chartGraphicsContext.setFill(Color.GREY);
+        } else if (record.getYear() % 2 == 0) {
+            chartGraphicsContext.setFill(Color.TAN);
+        } else {
+            chartGraphicsContext.setFill(Color.BLUE);
+        }
+
+        // Draw column
+        double adjustedYValue = x_AXIS_Y_VALUE - scaledMonthlyRainfall; // Find top coord of column
+        chartGraphicsContext.fillRect(currentValueX, adjustedYValue, COLUMN_WIDTH, scaledMonthlyRainfall);
+
+        if (anomaly) { // Highlight across the top of the column
+            chartGraphicsContext.setFill(Color.RED);
+            chartGraphicsContext.fillRect(currentValueX, adjustedYValue, Math.max(COLUMN_WIDTH, 2), 3);
+        }
+    } // end drawColumn
+
+    /**
+     * Helper method to draw the overlaid stations on a shared time axis and scale. Each station is drawn as
+     * a line of monthly totals over a translucent band between each month's min and max daily rainfall,
+     * one polygon and one polyline per run of measured months rather than a draw call per month.
+     */
+    private void drawOverlay() {
+        DrawEvent drawEvent = new DrawEvent();
+        drawEvent.begin();
 
-            // Label x-axis
-            if (record.getMonth() == 1) {
-                if (record.getYear() - lastYearLabelled == 5 || i == 0) { // Label first and then every 5 years
-                    chartGraphicsContext.strokeText("| " + record.getYear(), currentValueX - 3, x_AXIS_LABEL_Y_VALUE, 50);
-                    lastYearLabelled = record.getYear();
+        int X_AXIS_Y_VALUE = canvasHeight - 40; // Distance from bottom of chartCanvas
+        int Y_AXIS_HEIGHT = X_AXIS_Y_VALUE - 25; // Height from x-axis to top of y-axis
+        int X_AXIS_LABEL_Y_VALUE = X_AXIS_Y_VALUE + 10; // Height of x-axis labels
+        int STARTING_X_VALUE = 100; // The x value that the chart axes starts from.
+
+        // Months and highest rainfall covered by all stations
+        int firstMonth = Integer.MAX_VALUE;
+        int lastMonth = Integer.MIN_VALUE;
+        double HIGHEST_RAINFALL_VALUE = 0;
+        int records = 0;
+        List<Station> stations = new ArrayList<>();
+        for (Station station : overlayStations.values()) {
+            int n = station.getNumberOfRecords();
+            if (n == 0) continue;
+            stations.add(station);
+            firstMonth = Math.min(firstMonth, getMonthIndex(station, 0));
+            lastMonth = Math.max(lastMonth, getMonthIndex(station, n - 1));
+            HIGHEST_RAINFALL_VALUE = Math.max(HIGHEST_RAINFALL_VALUE, station.getMaxRainfallValue());
+            records += n;
+        }
+        if (stations.isEmpty()) return;
+
+        double SCALE_FACTOR = Y_AXIS_HEIGHT / HIGHEST_RAINFALL_VALUE;
+        double COLUMN_WIDTH = (canvasWidth - 30.0 - STARTING_X_VALUE) / (lastMonth - firstMonth + 1);
+
+        // Label x-axis every 5 years from the first year
+        for (int month = firstMonth + (12 - firstMonth % 12) % 12; month <= lastMonth; month += 60) {
+            chartGraphicsContext.strokeText("| " + month / 12, STARTING_X_VALUE + (month - firstMonth) * COLUMN_WIDTH - 3,
+                    X_AXIS_LABEL_Y_VALUE, 50);
+        }
+
+        // Coordinates reused across stations, sized for the longest
+        int maxRecords = 0;
+        for (Station station : stations) maxRecords = Math.max(maxRecords, station.getNumberOfRecords());
+        double[] xValues = new double[maxRecords * 2];
+        double[] yValues = new double[maxRecords * 2];
+
+        int colour = 0;
+        for (Map.Entry<String, Station> entry : overlayStations.entrySet()) {
+            Station station = entry.getValue();
+            Color seriesColour = OVERLAY_COLOURS[colour++];
+            int n = station.getNumberOfRecords();
+            if (n == 0) continue;
+
+            chartGraphicsContext.setFill(seriesColour.deriveColor(0, 1, 1, 0.25));
+            chartGraphicsContext.setStroke(seriesColour);
+            // Months without readings aren't 0 mm, so the band and line break around them
+            int start = 0;
+            while (start < n) {
+                while (start < n && station.isMissing(start)) start++;
+                int end = start;
+                while (end < n && !station.isMissing(end)) end++;
+                if (end > start) {
+                    drawOverlayRun(station, start, end, xValues, yValues, STARTING_X_VALUE + (0.5 - firstMonth) * COLUMN_WIDTH,
+                            COLUMN_WIDTH, X_AXIS_Y_VALUE, SCALE_FACTOR);
                 }
+                start = end;
             }
 
-            // Draw column
-            double adjustedYValue = x_AXIS_Y_VALUE - scaledMonthlyRainfall; // Find top coord of column
-            chartGraphicsContext.fillRect(currentValueX, adjustedYValue, COLUMN_WIDTH, scaledMonthlyRainfall);
+            // Legend
+            chartGraphicsContext.strokeText(entry.getKey(), canvasWidth - 200, 25 + colour * 12, 170);
+        }
+        chartGraphicsContext.setStroke(Color.BLACK);
+
+        // Label Graph
+        labelYAxis(X_AXIS_Y_VALUE, Y_AXIS_HEIGHT / 10, (int) HIGHEST_RAINFALL_VALUE / 10, STARTING_X_VALUE);
 
-            currentValueX += COLUMN_WIDTH; // Move x across for new column
+        drawEvent.end();
+        if (drawEvent.shouldCommit()) {
+            drawEvent.records = records;
+            drawEvent.stations = stations.size();
+            drawEvent.commit();
         }
-    } // end graphRainfall
+    } // end drawOverlay
+
+    /**
+     * Helper method to draw a run of measured months of an overlaid station, a band of max along the top and
+     * min back along the bottom, then a line of monthly totals.
+     *
+     * @param start    Index of the first month of the run, inclusive.
+     * @param end      Index of the last month of the run, exclusive.
+     * @param xValues  Coordinates reused across runs, at least twice the run's length.
+     * @param yValues  Coordinates reused across runs, at least twice the run's length.
+     * @param xOrigin  The x value of month index 0.
+     */
+    private void drawOverlayRun(Station station, int start, int end, double[] xValues, double[] yValues,
+                                double xOrigin, double COLUMN_WIDTH, int X_AXIS_Y_VALUE, double SCALE_FACTOR) {
+        int length = end - start;
+        for (int j = 0; j < length; j++) {
+            int i = start + j;
+            double x = xOrigin + getMonthIndex(station, i) * COLUMN_WIDTH;
+            xValues[j] = x;
+            yValues[j] = X_AXIS_Y_VALUE - station.getMax(i) * SCALE_FACTOR;
+            xValues[2 * length - 1 - j] = x;
+            yValues[2 * length - 1 - j] = X_AXIS_Y_VALUE - station.getMin(i) * SCALE_FACTOR;
+        }
+        chartGraphicsContext.fillPolygon(xValues, yValues, 2 * length);
+
+        for (int j = 0; j < length; j++) yValues[j] = X_AXIS_Y_VALUE - station.getTotal(start + j) * SCALE_FACTOR;
+        chartGraphicsContext.strokePolyline(xValues, yValues, length);
+    } // end drawOverlayRun
+
+    private static int getMonthIndex(Station station, int i) {
+        return station.getYear(i) * 12 + station.getMonth(i) - 1;
+    } // end getMonthIndex
 
     private void drawAxis(int STARTING_X_VALUE, int X_AXIS_Y_VALUE) {
         chartGraphicsContext.setFont(Font.font("Calibri", 10));
@@ -235,11 +616,125 @@ public class RainfallVisualiser extends Application {
         drawAxis(STARTING_X_VALUE, X_AXIS_Y_VALUE);
     } // end resetDisplays
 
-    private String formatRecord(Record record) {
-        return String.format("%s/%-2s - Total: %-7.2f Min: %-5.2f Max: %-6.2f\n", record.getYear(), record.getMonth(),
-                record.getTotal(), record.getMin(), record.getMax());
+    private String formatRecords(Station station) {
+        StringBuilder display = new StringBuilder();
+        double[] anomalies = Climatology.of(station).getAnomalies(station);
+        for (int i = 0; i < station.getNumberOfRecords(); i++) {
+            Record record = station.getRecord(i);
+            display.append(formatRecord(record, anomalies[i]));
+            // Display blank line in between years
+            if (record.getMonth() == 12) display.append("\n");
+        }
+        return display.toString();
+    } // end formatRecords
+
+    private String formatRecord(Record record, double anomaly) {
+        String missing = record.isComplete() ? "" : String.format(" Missing: %d days", record.getNumberOfMissingDays());
+        String anomalous = Math.abs(anomaly) > ANOMALY_THRESHOLD ? String.format(" Anomaly: %+.1f sd", anomaly) : "";
+        return String.format("%s/%-2s - Total: %-7.2f Min: %-5.2f Max: %-6.2f%s%s\n", record.getYear(), record.getMonth(),
+                record.getTotal(), record.getMin(), record.getMax(), missing, anomalous);
     } // end formatRecord
 
+    /**
+     * Helper method to show the chart saved by the previous session straight away, then check its stations' files
+     * in the background, opening them again if they have changed since.
+     */
+    private void restoreSession() {
+        SessionSnapshot session = SessionSnapshot.read(SessionSnapshot.getDefaultDirectory());
+        if (session == null || session.getChartWidth() != canvasWidth || session.getChartHeight() != canvasHeight) {
+            return;
+        }
+        directoryNameInput.setText(session.getDirectoryName());
+        stationNameInput.setText(session.getStationNames());
+        WritableImage chartImage = new WritableImage(canvasWidth, canvasHeight);
+        chartImage.getPixelWriter().setPixels(0, 0, canvasWidth, canvasHeight, PixelFormat.getIntArgbInstance(),
+                session.getChartPixels(), 0, canvasWidth);
+        chartGraphicsContext.drawImage(chartImage, 0, 0);
+        recordDisplay.setText(formatRecords(session.getStation()));
+        restoringSession = true;
+
+        // Time to first chart, from start and from JVM launch so class loading and toolkit startup are included
+        long firstChartMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        long launchMillis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        statusLabel.setText(String.format("Status: Restored in %d ms (%d ms after launch), checking for changes",
+                firstChartMillis, launchMillis));
+
+        Thread validator = new Thread(() -> {
+            Map<String, Station> stations = loadSessionStations(session);
+            Platform.runLater(() -> adoptSession(session, stations, firstChartMillis, launchMillis));
+        }, "session-validator");
+        validator.setDaemon(true);
+        validator.start();
+    } // end restoreSession
+
+    /**
+     * Helper method to check a restored session's stations are unchanged, run off the application thread.
+     *
+     * @return The stations to overlay, empty for a single station, or null if the session is out of date.
+     */
+    private Map<String, Station> loadSessionStations(SessionSnapshot session) {
+        if (!session.isCurrent()) return null;
+        Map<String, Station> stations = new LinkedHashMap<>();
+        if (!session.getStationNames().contains(",")) return stations;
+        try {
+            for (String stationName : session.getStationNames().split(",")) {
+                stations.put(stationName, stationCache.load(session.getDirectoryName(), stationName));
+            }
+        } catch (Loader.LoaderException e) { // open again to report the error
+            return null;
+        }
+        return stations;
+    } // end loadSessionStations
+
+    /**
+     * Helper method to make a restored session the displayed one once its stations have been checked,
+     * or open them again if they have changed. Nothing is done if another station was opened meanwhile.
+     */
+    private void adoptSession(SessionSnapshot session, Map<String, Station> stations, long firstChartMillis,
+                              long launchMillis) {
+        if (!restoringSession) return;
+        restoringSession = false;
+        if (stations == null) {
+            directoryNameInput.setText(session.getDirectoryName());
+            stationNameInput.setText(session.getStationNames());
+            handleOpen();
+            return;
+        }
+        if (stations.isEmpty()) {
+            displayedStation = session.getStation();
+            displayedStationName = session.getStationNames();
+        } else {
+            overlayStations.putAll(stations);
+        }
+        displayedDirectoryName = session.getDirectoryName();
+        displayedSession = session;
+        statusLabel.setText(String.format("Status: Restored in %d ms (%d ms after launch)", firstChartMillis,
+                launchMillis));
+        watchDirectory(displayedDirectoryName);
+    } // end adoptSession
+
+    /**
+     * Helper method to save the displayed stations and chart for the next session to restore.
+     */
+    private void saveSession() {
+        if (displayedSession == null) return;
+        WritableImage chartImage = chartCanvas.snapshot(null, new WritableImage(canvasWidth, canvasHeight));
+        int[] chartPixels = new int[canvasWidth * canvasHeight];
+        chartImage.getPixelReader().getPixels(0, 0, canvasWidth, canvasHeight, PixelFormat.getIntArgbInstance(),
+                chartPixels, 0, canvasWidth);
+        try {
+            displayedSession.withChart(canvasWidth, canvasHeight, chartPixels).write(SessionSnapshot.getDefaultDirectory());
+        } catch (IOException e) {
+            // next session starts blank
+        }
+    } // end saveSession
+
+    @Override
+    public void stop() {
+        stopWatching();
+        saveSession();
+    } // end stop
+
     public static void main(String[] args) {
         launch();
     } // end main
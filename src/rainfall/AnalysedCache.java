@@ -0,0 +1,358 @@
+package rainfall;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An object of class AnalysedCache keeps the analysed artefacts of stations, their analysed rainfall csv, YearIndex,
+ * runs and quarantine files, under a cache root rather than beside the raw rainfall data, so data directories can be
+ * read-only and are not cluttered. Each station has an entry directory "[root]/[shard]/[station]-[hash]", hashed from
+ * the station's data directory and name and sharded by the first two hex digits of the hash into 256 subdirectories,
+ * so tens of thousands of stations can be cached without any directory growing too large.
+ * An entry directory is only created when an artefact is first written to it, so looking up stations that are
+ * never analysed leaves nothing behind on disk or in the index.
+ * The artefacts of the least recently used stations are deleted once the cache exceeds its byte budget, and are
+ * analysed again the next time the station is loaded. The cache's index of entries holding artefacts is kept in memory
+ * and rebuilt by scanning the cache root when the cache is created, the last use of each entry is persisted as the
+ * last modified time of its directory. Each process sharing a cache root enforces the budget over the entries it knows
+ * of, and a load already reading a station evicted meanwhile fails, the station being analysed again on its next load.
+ * When the system property rainfall.cache.dir is set, Loader keeps analysed artefacts in the default AnalysedCache
+ * rooted there, with a budget of rainfall.cache.max.bytes bytes. Loads fail while that cache is unusable, rather than
+ * writing artefacts beside raw data that may be read-only.
+ */
+public class AnalysedCache {
+
+    public static final long DEFAULT_MAX_BYTES = 1L << 30; // 1 GiB
+    private static final long TOUCH_INTERVAL_MILLIS = 60_000; // How often an entry's last use is persisted
+    private static final String LOCK_FILE_EXTENSION = ".lock";
+    private static final Object DEFAULT_LOCK = new Object();
+    private static AnalysedCache defaultCache; // null if analysed artefacts are kept beside raw data
+    private static IOException defaultError; // Why the configured default cache is unusable, null if it isn't
+    private static boolean defaultConfigured;
+
+    private final Path root;
+    private final long maxBytes;
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // In LRU order
+    private final long scanMillis;
+    private long totalBytes;
+    private long evictionCount;
+
+    /**
+     * Constructor. Create an AnalysedCache over a cache root, scanning any entries already in it.
+     *
+     * @param root     The cache root directory, created if it does not exist.
+     * @param maxBytes The number of bytes of analysed artefacts to keep before evicting.
+     * @throws IOException If the cache root cannot be created or scanned.
+     */
+    public AnalysedCache(Path root, long maxBytes) throws IOException {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        this.root = root.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        long startNanos = System.nanoTime();
+        Files.createDirectories(this.root);
+        scan();
+        evict(null);
+        scanMillis = (System.nanoTime() - startNanos) / 1_000_000;
+    } // end AnalysedCache constructor
+
+    /**
+     * Method to find the default AnalysedCache, created on first use from the system properties rainfall.cache.dir
+     * and rainfall.cache.max.bytes unless one has been set.
+     *
+     * @return The default AnalysedCache, or null if analysed artefacts are kept beside raw data.
+     * @throws IOException If rainfall.cache.dir is set but the cache cannot be created there.
+     */
+    public static AnalysedCache getDefault() throws IOException {
+        synchronized (DEFAULT_LOCK) {
+            if (!defaultConfigured) {
+                defaultConfigured = true;
+                String configured = System.getProperty("rainfall.cache.dir");
+                if (configured != null) {
+                    try {
+                        defaultCache = new AnalysedCache(Paths.get(configured),
+                                Long.getLong("rainfall.cache.max.bytes", DEFAULT_MAX_BYTES));
+                    } catch (IOException | RuntimeException error) { // e.g. invalid path, read-only mount
+                        defaultError = new IOException("unusable analysed cache " + configured + ": "
+                                + error.getMessage());
+                    }
+                }
+            }
+            if (defaultError != null) throw new IOException(defaultError.getMessage(), defaultError);
+            return defaultCache;
+        }
+    } // end getDefault
+
+    /**
+     * Method to set the default AnalysedCache used by Loader, replacing any configured by system properties.
+     *
+     * @param cache The AnalysedCache, or null to keep analysed artefacts beside raw data.
+     */
+    public static void setDefault(AnalysedCache cache) {
+        synchronized (DEFAULT_LOCK) {
+            defaultConfigured = true;
+            defaultCache = cache;
+            defaultError = null;
+        }
+    } // end setDefault
+
+    /**
+     * Method to find the entry directory holding a station's analysed artefacts, which may not exist yet,
+     * and mark the station as used if it has artefacts. Writers of artefacts create the directory.
+     *
+     * @param directoryName The path to the directory of the station's raw rainfall data.
+     * @param stationName   The name of the station.
+     * @return The entry directory.
+     */
+    public File getEntryDirectory(String directoryName, String stationName) {
+        String hash = hash(Paths.get(directoryName).toAbsolutePath().normalize() + "\0" + stationName);
+        Path entryDirectory = root.resolve(hash.substring(0, 2)).resolve(stationName + "-" + hash);
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = entries.get(entryDirectory);
+            if (entry != null && now - entry.lastUsed >= TOUCH_INTERVAL_MILLIS) {
+                entry.lastUsed = now;
+                touch(entryDirectory, now);
+            }
+        }
+        return entryDirectory.toFile();
+    } // end getEntryDirectory
+
+    /**
+     * Method to measure an entry after its artefacts are written, evicting the artefacts of least recently used
+     * entries while the cache is over its byte budget. An entry whose artefacts are gone is dropped from the index.
+     * Files outside the cache are ignored.
+     *
+     * @param artefactFile An artefact file just written, such as an analysed rainfall csv file.
+     */
+    public synchronized void update(File artefactFile) {
+        Path entryDirectory = artefactFile.toPath().toAbsolutePath().normalize().getParent();
+        Path shard = entryDirectory == null ? null : entryDirectory.getParent();
+        if (shard == null || !root.equals(shard.getParent())) return;
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(entryDirectory);
+        if (entry == null) {
+            entry = new Entry(0, now);
+            entries.put(entryDirectory, entry);
+        }
+        totalBytes -= entry.bytes;
+        entry.bytes = measure(entryDirectory);
+        if (entry.bytes == 0) { // deleted meanwhile, e.g. evicted by another process
+            entries.remove(entryDirectory);
+            return;
+        }
+        entry.lastUsed = now;
+        totalBytes += entry.bytes;
+        touch(entryDirectory, now);
+        evict(entryDirectory);
+    } // end update
+
+    /**
+     * @return The value of root.
+     */
+    public Path getRoot() {
+        return root;
+    } // end getRoot
+
+    /**
+     * @return The value of maxBytes.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    } // end getMaxBytes
+
+    /**
+     * @return The number of bytes of analysed artefacts in the cache.
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    } // end getTotalBytes
+
+    /**
+     * @return The number of station entries in the cache holding artefacts.
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    } // end getEntryCount
+
+    /**
+     * @return The number of entries whose artefacts were evicted to stay within the byte budget.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    } // end getEvictionCount
+
+    /**
+     * @return The time taken to scan the cache root when the cache was created, in milliseconds.
+     */
+    public long getScanMillis() {
+        return scanMillis;
+    } // end getScanMillis
+
+    /**
+     * @return A string representation of the cache's statistics.
+     */
+    public synchronized String toString() {
+        return String.format("AnalysedCache[root=%s, entries=%d, bytes=%d/%d, evictions=%d, scan=%d ms]",
+                root, entries.size(), totalBytes, maxBytes, evictionCount, scanMillis);
+    } // end toString
+
+    /**
+     * Helper method to rebuild the index from the entry directories under the cache root,
+     * ordered by the last use persisted as each directory's last modified time.
+     *
+     * @throws IOException If the cache root cannot be listed.
+     */
+    private synchronized void scan() throws IOException {
+        List<Map.Entry<Path, Entry>> found = new ArrayList<>();
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> entryDirectories = Files.newDirectoryStream(shard, Files::isDirectory)) {
+                    for (Path entryDirectory : entryDirectories) {
+                        long bytes = measure(entryDirectory);
+                        if (bytes == 0) continue; // evicted, at most a lock file left
+                        long lastUsed = Files.getLastModifiedTime(entryDirectory).toMillis();
+                        found.add(Map.entry(entryDirectory, new Entry(bytes, lastUsed)));
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(entry -> entry.getValue().lastUsed));
+        for (Map.Entry<Path, Entry> entry : found) {
+            entries.put(entry.getKey(), entry.getValue());
+            totalBytes += entry.getValue().bytes;
+        }
+    } // end scan
+
+    /**
+     * Helper method to delete the artefacts of least recently used entries while over the byte budget.
+     * Entries being analysed are skipped, their lock files are kept so AnalysisLock always locks the same file.
+     *
+     * @param keep The entry directory not to evict, or null.
+     */
+    private void evict(Path keep) {
+        Iterator<Map.Entry<Path, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<Path, Entry> entry = eldest.next();
+            if (entry.getKey().equals(keep)) continue;
+            if (deleteArtefacts(entry.getKey())) {
+                totalBytes -= entry.getValue().bytes;
+                eldest.remove();
+                evictionCount++;
+            }
+        }
+    } // end evict
+
+    /**
+     * Helper method to delete the artefacts of an entry while holding its analysis lock.
+     *
+     * @param entryDirectory The entry directory.
+     * @return true if the artefacts were deleted, false if the entry is being analysed or cannot be deleted.
+     */
+    private static boolean deleteArtefacts(Path entryDirectory) {
+        Path lockFile = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(entryDirectory, "*" + LOCK_FILE_EXTENSION)) {
+            for (Path file : files) lockFile = file;
+        } catch (IOException error) {
+            return false;
+        }
+        if (lockFile == null) return deleteFiles(entryDirectory);
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE);
+             FileLock lock = channel.tryLock()) {
+            return lock != null && deleteFiles(entryDirectory);
+        } catch (IOException | OverlappingFileLockException error) { // locked by this JVM
+            return false;
+        }
+    } // end deleteArtefacts
+
+    /**
+     * Helper method to delete every file of an entry directory except its lock file.
+     */
+    private static boolean deleteFiles(Path entryDirectory) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(entryDirectory)) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().endsWith(LOCK_FILE_EXTENSION)) Files.deleteIfExists(file);
+            }
+            return true;
+        } catch (IOException error) {
+            return false;
+        }
+    } // end deleteFiles
+
+    /**
+     * Helper method to measure the bytes of the files of an entry directory.
+     */
+    private static long measure(Path entryDirectory) {
+        long bytes = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(entryDirectory)) {
+            for (Path file : files) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) bytes += attributes.size();
+            }
+        } catch (IOException ignored) { // deleted meanwhile, measured as far as listed
+        }
+        return bytes;
+    } // end measure
+
+    /**
+     * Helper method to persist the last use of an entry as its directory's last modified time.
+     */
+    private static void touch(Path entryDirectory, long now) {
+        try {
+            Files.setLastModifiedTime(entryDirectory, FileTime.fromMillis(now));
+        } catch (IOException ignored) { // last use kept in memory only
+        }
+    } // end touch
+
+    /**
+     * Helper method to hash a station's data directory and name as 16 hex digits, using 64 bit FNV-1a
+     * with a final mix so similar names spread across shards.
+     */
+    private static String hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        // Mix the last bytes into the high digits, which pick the shard
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return String.format("%016x", hash);
+    } // end hash
+
+    /**
+     * An object of class Entry records the bytes and last use of a station's entry directory.
+     */
+    private static class Entry {
+
+        private long bytes;
+        private long lastUsed;
+
+        /**
+         * Constructor. Create an Entry.
+         */
+        private Entry(long bytes, long lastUsed) {
+            this.bytes = bytes;
+            this.lastUsed = lastUsed;
+        } // end Entry constructor
+
+    } // end class Entry
+
+} // end class AnalysedCache
@@ -0,0 +1,175 @@
+package rainfall;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An object of class AnalysedFileWriter writes monthly rainfall records to an analysed rainfall csv file.
+ * Records are formatted straight into a reusable byte buffer which is written out in large blocks,
+ * to a temporary file that only replaces the analysed file when {@link #commit()} is called,
+ * so readers never see a partially written analysed file.
+ */
+public class AnalysedFileWriter implements MonthlyRecordWriter, Closeable {
+
+    // Header of the current analysed file format, older files without the missing column are re-analysed
+    static final String HEADER_LINE = "year,month,total,min,max,missing";
+    private static final byte[] HEADER = (HEADER_LINE + "\n").getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER_SIZE = 64 * 1024; // Size of each block written to file
+    private static final int MAX_LINE_LENGTH = 128; // Space kept free in buffer before formatting a line
+    private static final int TIE_ULPS = 8; // Distance from a rounding tie within which a value is rounded exactly
+
+    private final Path analysedFile;
+    private final Path temporaryFile;
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position; // Number of bytes in buffer waiting to be written
+    private boolean closed;
+
+    /**
+     * Constructor. Create an AnalysedFileWriter and write the header to a temporary file
+     * alongside the analysed rainfall csv file.
+     *
+     * @param analysedFile The path of the analysed rainfall csv file to write.
+     * @throws IOException If the temporary file cannot be created.
+     */
+    public AnalysedFileWriter(Path analysedFile) throws IOException {
+        this.analysedFile = analysedFile;
+        temporaryFile = AtomicFiles.createTemporaryFile(analysedFile);
+        out = Files.newOutputStream(temporaryFile);
+        System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+        position = HEADER.length;
+    } // end AnalysedFileWriter constructor
+
+    /**
+     * Method to write a month's rainfall data as a line of the analysed rainfall csv file,
+     * rainfall values are written with two decimal places.
+     *
+     * @param year          The year the rainfall data was recorded.
+     * @param month         The month the rainfall data was recorded.
+     * @param rainfallTotal The total rainfall in mm for the specified month.
+     * @param rainfallMin   The minimum rainfall recorded for the specified month.
+     * @param rainfallMax   The maximum rainfall recorded for the specified month.
+     * @param missingDays   Bitset of the days without a rainfall reading, bit (day - 1) for each day.
+     * @throws IOException If the buffer cannot be written to file.
+     */
+    @Override
+    public void writeRecord(int year, int month, double rainfallTotal, double rainfallMin, double rainfallMax,
+                            int missingDays) throws IOException {
+        if (closed) throw new IOException("writer is closed");
+        if (position > BUFFER_SIZE - MAX_LINE_LENGTH) flushBuffer();
+        putLong(year);
+        buffer[position++] = ',';
+        putLong(month);
+        buffer[position++] = ',';
+        putFixed2(rainfallTotal);
+        buffer[position++] = ',';
+        putFixed2(rainfallMin);
+        buffer[position++] = ',';
+        putFixed2(rainfallMax);
+        buffer[position++] = ',';
+        putLong(missingDays);
+        buffer[position++] = '\n';
+    } // end writeRecord
+
+    /**
+     * Method to finish writing and atomically replace the analysed rainfall csv file with the written records.
+     *
+     * @throws IOException If the records cannot be written or the analysed file cannot be replaced.
+     */
+    public void commit() throws IOException {
+        if (closed) throw new IOException("writer is closed");
+        closed = true;
+        try {
+            flushBuffer();
+            out.close();
+            AtomicFiles.move(temporaryFile, analysedFile);
+        } catch (IOException error) {
+            Files.deleteIfExists(temporaryFile);
+            throw error;
+        }
+    } // end commit
+
+    /**
+     * Method to discard the temporary file if the writer has not been committed,
+     * leaving any existing analysed rainfall csv file untouched.
+     *
+     * @throws IOException If the temporary file cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    } // end close
+
+    /**
+     * Helper method to write the buffer to the temporary file.
+     */
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    } // end flushBuffer
+
+    /**
+     * Helper method to format a whole number into the buffer.
+     *
+     * @param value The value to format.
+     */
+    private void putLong(long value) {
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        // Write digits backwards from the end of the number
+        int numberOfDigits = 1;
+        for (long remaining = value / 10; remaining != 0; remaining /= 10) numberOfDigits++;
+        int index = position + numberOfDigits;
+        do {
+            buffer[--index] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        position += numberOfDigits;
+    } // end putLong
+
+    /**
+     * Helper method to format a number into the buffer with two decimal places,
+     * rounding half up as "%1.2f" does.
+     *
+     * @param value The value to format.
+     */
+    private void putFixed2(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= 1e15) {
+            // Out of range for fixed point formatting, rare enough to allocate
+            byte[] text = Double.toString(value).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(text, 0, buffer, position, text.length);
+            position += text.length;
+            return;
+        }
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        double scaled = value * 100;
+        long hundredths = Math.round(scaled);
+        if (Math.abs(scaled - Math.floor(scaled) - 0.5) <= TIE_ULPS * Math.ulp(scaled)) {
+            // Too close to a tie to tell, round the shortest decimal form half up as "%1.2f" does, rare enough to allocate
+            hundredths = new BigDecimal(Double.toString(value)).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+        }
+        putLong(hundredths / 100);
+        buffer[position++] = '.';
+        int fraction = (int) (hundredths % 100);
+        buffer[position++] = (byte) ('0' + fraction / 10);
+        buffer[position++] = (byte) ('0' + fraction % 10);
+    } // end putFixed2
+
+} // end class AnalysedFileWriter
@@ -0,0 +1,32 @@
+package rainfall;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded when raw rainfall data is analysed into monthly records.
+ */
+@Name("rainfall.Analysis")
+@Label("Raw Analysis")
+@Category({"Rainfall", "Loader"})
+@Description("Analysis of a raw rainfall csv file into an analysed csv file")
+public class AnalysisEvent extends jdk.jfr.Event {
+
+    @Label("Station Name")
+    public String stationName;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Months")
+    public int months;
+
+    @Label("Rejected Rows")
+    @Description("Invalid raw rainfall records skipped by a lenient analysis")
+    public long rejectedRows;
+
+} // end class AnalysisEvent
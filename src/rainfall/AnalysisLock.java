@@ -0,0 +1,120 @@
+package rainfall;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * AnalysisLock ensures a station's analysed rainfall csv file is written by one analysis at a time, across threads
+ * and across every process sharing the station's directory, such as several visualisers and a BatchAnalyser on one
+ * network share. Within a JVM, concurrent analyses of a station are a single flight: the first thread analyses and
+ * the others wait for its AnalysisReport. Across processes, the analysing thread holds an exclusive FileChannel lock
+ * on the station's lock file, so a process waiting for the lock finds the analysed file current once it is released,
+ * and reads it rather than analysing again.
+ */
+final class AnalysisLock {
+
+    private static final String LOCK_FILE_EXTENSION = ".lock";
+    // Analysis in progress in this JVM of each analysed file, by absolute path
+    private static final ConcurrentHashMap<Path, CompletableFuture<AnalysisReport>> FLIGHTS = new ConcurrentHashMap<>();
+
+    /**
+     * An Analysis writes a station's analysed rainfall csv file.
+     */
+    interface Analysis {
+
+        /**
+         * Method to analyse the station, called while holding its lock.
+         *
+         * @return AnalysisReport of the analysis.
+         * @throws Loader.LoaderException If the raw data is invalid or the analysed file cannot be written.
+         * @throws IOException            If the raw data cannot be read.
+         */
+        AnalysisReport analyse() throws Loader.LoaderException, IOException;
+
+    } // end interface Analysis
+
+    private AnalysisLock() {
+    } // end AnalysisLock constructor
+
+    /**
+     * Method to analyse a station unless it is already being analysed in this JVM, in which case the analysis
+     * in progress is waited for and its AnalysisReport shared, whatever LoadOptions it was started with.
+     * Once the station's lock file is locked, analysis is only run if it is still needed, as another process
+     * may have analysed the station while this one waited.
+     *
+     * @param analysedCSVFile The analysed rainfall csv file the analysis writes.
+     * @param isNeeded        Whether analysis is still needed, checked while holding the lock.
+     * @param analysis        The analysis to run.
+     * @return AnalysisReport of the analysis, or null if another process analysed the station.
+     * @throws Loader.LoaderException If the analysis failed, or was interrupted waiting for another thread's.
+     * @throws IOException            If the raw data cannot be read or the lock file cannot be locked.
+     */
+    @SuppressWarnings("try") // the lock is held for the body of the try statement, not referenced in it
+    static AnalysisReport analyseOnce(File analysedCSVFile, BooleanSupplier isNeeded, Analysis analysis)
+            throws Loader.LoaderException, IOException {
+        Path key = analysedCSVFile.toPath().toAbsolutePath().normalize();
+        CompletableFuture<AnalysisReport> flight = new CompletableFuture<>();
+        CompletableFuture<AnalysisReport> existingFlight = FLIGHTS.putIfAbsent(key, flight);
+        if (existingFlight != null) return join(existingFlight);
+        try {
+            AnalysisReport report = null;
+            // One lock per file within a JVM, so the flight also keeps this JVM from locking the file twice
+            Path lockFile = getLockFile(analysedCSVFile).toPath();
+            Files.createDirectories(lockFile.toAbsolutePath().getParent()); // a new AnalysedCache entry
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                if (isNeeded.getAsBoolean()) report = analysis.analyse();
+            }
+            flight.complete(report);
+            return report;
+        } catch (Loader.LoaderException | IOException | RuntimeException error) {
+            flight.completeExceptionally(error);
+            throw error;
+        } finally {
+            FLIGHTS.remove(key, flight);
+        }
+    } // end analyseOnce
+
+    /**
+     * Helper method to find the lock file of an analysed rainfall csv file, "[station]_analysed.csv.lock".
+     * Lock files are left in place, as deleting one could let two processes lock different files.
+     *
+     * @param analysedCSVFile The analysed rainfall csv file.
+     * @return The lock file.
+     */
+    static File getLockFile(File analysedCSVFile) {
+        return new File(analysedCSVFile.getPath() + LOCK_FILE_EXTENSION);
+    } // end getLockFile
+
+    /**
+     * Helper method to wait for another thread's analysis, rethrowing its failure.
+     *
+     * @param flight The analysis in progress.
+     * @return AnalysisReport of the analysis, or null if another process analysed the station.
+     * @throws Loader.LoaderException If the analysis failed or the thread was interrupted.
+     * @throws IOException            If the analysis failed to read raw data.
+     */
+    private static AnalysisReport join(CompletableFuture<AnalysisReport> flight) throws Loader.LoaderException, IOException {
+        try {
+            return flight.get();
+        } catch (ExecutionException error) {
+            Throwable cause = error.getCause();
+            if (cause instanceof IOException) throw new IOException(cause.getMessage(), cause);
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new Loader.LoaderException(cause.getMessage());
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            throw new Loader.LoaderException("interrupted waiting for analysis");
+        }
+    } // end join
+
+} // end class AnalysisLock
@@ -0,0 +1,119 @@
+package rainfall;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An object of class AnalysisReport holds details of an analysis of raw rainfall data,
+ * beyond the monthly records written to the analysed rainfall csv file.
+ */
+public class AnalysisReport {
+
+    private String stationNumber = ""; // BOM station number, from the first raw rainfall record
+    private long rows;
+    private int months;
+    private long missingDays;
+    private long duplicateDays;
+    private long replacedDays;
+    private RunLengths runLengths; // null unless run lengths were found
+    private final Map<String, Long> rejectedRows = new TreeMap<>(); // Number of records quarantined by reason
+
+    /**
+     * @return The Bureau of Meteorology station number of the raw rainfall data, or "" if unknown.
+     */
+    public String getStationNumber() {
+        return stationNumber;
+    } // end getStationNumber
+
+    /**
+     * @return The number of raw rainfall records read.
+     */
+    public long getRows() {
+        return rows;
+    } // end getRows
+
+    /**
+     * @return The number of monthly records written.
+     */
+    public int getMonths() {
+        return months;
+    } // end getMonths
+
+    /**
+     * @return The number of days within the analysed months without a rainfall reading.
+     */
+    public long getMissingDays() {
+        return missingDays;
+    } // end getMissingDays
+
+    /**
+     * @return The number of raw rainfall records ignored as a repeat of a day already read.
+     */
+    public long getDuplicateDays() {
+        return duplicateDays;
+    } // end getDuplicateDays
+
+    /**
+     * @return The number of raw rainfall records of merged files replaced by a newer file's record of the same day.
+     */
+    public long getReplacedDays() {
+        return replacedDays;
+    } // end getReplacedDays
+
+    /**
+     * @return The number of invalid raw rainfall records skipped by a lenient analysis.
+     */
+    public long getRejectedRows() {
+        long total = 0;
+        for (long rows : rejectedRows.values()) total += rows;
+        return total;
+    } // end getRejectedRows
+
+    /**
+     * @return The number of invalid raw rainfall records skipped by a lenient analysis, by reason.
+     */
+    public Map<String, Long> getRejectedRowsByReason() {
+        return Collections.unmodifiableMap(rejectedRows);
+    } // end getRejectedRowsByReason
+
+    /**
+     * @return The RunLengths of dry and wet days found by the analysis, or null if run lengths weren't found.
+     */
+    public RunLengths getRunLengths() {
+        return runLengths;
+    } // end getRunLengths
+
+    void setStationNumber(String stationNumber) {
+        this.stationNumber = stationNumber;
+    } // end setStationNumber
+
+    void setRows(long rows) {
+        this.rows = rows;
+    } // end setRows
+
+    void setMonths(int months) {
+        this.months = months;
+    } // end setMonths
+
+    void setMissingDays(long missingDays) {
+        this.missingDays = missingDays;
+    } // end setMissingDays
+
+    void setDuplicateDays(long duplicateDays) {
+        this.duplicateDays = duplicateDays;
+    } // end setDuplicateDays
+
+    void setReplacedDays(long replacedDays) {
+        this.replacedDays = replacedDays;
+    } // end setReplacedDays
+
+    void setRunLengths(RunLengths runLengths) {
+        this.runLengths = runLengths;
+    } // end setRunLengths
+
+    void addRejectedRow(String reason) {
+        rejectedRows.merge(reason, 1L, Long::sum);
+    } // end addRejectedRow
+
+} // end class AnalysisReport
@@ -0,0 +1,105 @@
+package rainfall;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An object of class AnalysisSources records the raw rainfall data files a station's analysed rainfall csv file
+ * was analysed from, by file name, with the FileFingerprint each had when analysis started. Names rather than paths
+ * are recorded so a data directory that is moved, or mounted at another path on another host, still matches.
+ * The analysed file is analysed again whenever its sources' fingerprints differ from the files now,
+ * so a raw file replaced by one with an older modified time, as copies that keep source times do, is noticed.
+ * The AnalysisSources is persisted as "[station]_sources.csv" alongside the analysed file.
+ */
+class AnalysisSources {
+
+    private static final String HEADER = "fingerprint,source";
+
+    private final Map<String, FileFingerprint> fingerprints; // Fingerprint by file name, null if missing
+
+    /**
+     * Constructor. Create an AnalysisSources object and store values.
+     */
+    private AnalysisSources(Map<String, FileFingerprint> fingerprints) {
+        this.fingerprints = Collections.unmodifiableMap(fingerprints);
+    } // end AnalysisSources constructor
+
+    /**
+     * Method to fingerprint raw rainfall data files as they are now.
+     *
+     * @param sourceFiles The raw rainfall data files.
+     * @return AnalysisSources of the files.
+     */
+    static AnalysisSources of(List<File> sourceFiles) {
+        Map<String, FileFingerprint> fingerprints = new TreeMap<>();
+        for (File sourceFile : sourceFiles) {
+            fingerprints.put(getKey(sourceFile), FileFingerprint.of(sourceFile));
+        }
+        return new AnalysisSources(fingerprints);
+    } // end of
+
+    /**
+     * Method to read a persisted AnalysisSources.
+     *
+     * @param sourcesFile The sources file written by write.
+     * @return AnalysisSources read, or null if the sources file doesn't exist or is invalid.
+     */
+    static AnalysisSources read(File sourcesFile) {
+        if (!sourcesFile.exists()) return null;
+        try (BufferedReader in = new BufferedReader(new FileReader(sourcesFile, StandardCharsets.UTF_8))) {
+            if (!HEADER.equals(in.readLine())) return null;
+            Map<String, FileFingerprint> fingerprints = new TreeMap<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                int separator = line.indexOf(','); // names may hold commas, fingerprints don't
+                if (separator < 0) return null;
+                fingerprints.put(line.substring(separator + 1), FileFingerprint.parse(line.substring(0, separator)));
+            }
+            return new AnalysisSources(fingerprints);
+        } catch (IOException | RuntimeException error) { // unreadable or corrupt, analyse again
+            return null;
+        }
+    } // end read
+
+    /**
+     * Method to persist the AnalysisSources, replacing the sources file atomically.
+     *
+     * @param sourcesFile The sources file to write.
+     * @throws IOException If the sources file cannot be written.
+     */
+    void write(File sourcesFile) throws IOException {
+        Path target = sourcesFile.toPath();
+        AtomicFiles.replace(target, out -> {
+            out.write(HEADER + "\n");
+            for (Map.Entry<String, FileFingerprint> fingerprint : fingerprints.entrySet()) {
+                out.write((fingerprint.getValue() == null ? "" : fingerprint.getValue()) + "," + fingerprint.getKey() + "\n");
+            }
+        });
+    } // end write
+
+    /**
+     * Method to check whether raw rainfall data files are the sources recorded, unchanged since analysis.
+     *
+     * @param sourceFiles The raw rainfall data files now.
+     * @return Whether the files are the same set of files with the same fingerprints.
+     */
+    boolean matches(List<File> sourceFiles) {
+        return fingerprints.equals(of(sourceFiles).fingerprints);
+    } // end matches
+
+    /**
+     * Helper method to key a source file by its name, a station's raw rainfall data files having different names.
+     */
+    private static String getKey(File sourceFile) {
+        return sourceFile.getName();
+    } // end getKey
+
+} // end class AnalysisSources
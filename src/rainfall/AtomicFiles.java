@@ -0,0 +1,110 @@
+package rainfall;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class AtomicFiles replaces files atomically, by writing a temporary file alongside the file
+ * and renaming it over the file, so readers never see a partially written file.
+ */
+final class AtomicFiles {
+
+    /**
+     * Constructor. AtomicFiles only has static methods.
+     */
+    private AtomicFiles() {
+    } // end AtomicFiles constructor
+
+    /**
+     * Method to replace a text file atomically with the UTF-8 text written by content.
+     *
+     * @param target  The path of the file to replace.
+     * @param content Writes the text of the file.
+     * @throws IOException If the file cannot be written or replaced.
+     */
+    static void replace(Path target, IOConsumer<Writer> content) throws IOException {
+        Path temporaryFile = createTemporaryFile(target);
+        try {
+            try (Writer out = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                content.accept(out);
+            }
+            move(temporaryFile, target);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    } // end replace
+
+    /**
+     * Method to replace a binary file atomically with the remaining bytes of a buffer.
+     *
+     * @param target The path of the file to replace.
+     * @param bytes  The bytes of the file.
+     * @throws IOException If the file cannot be written or replaced.
+     */
+    static void replace(Path target, ByteBuffer bytes) throws IOException {
+        Path temporaryFile = createTemporaryFile(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                while (bytes.hasRemaining()) channel.write(bytes);
+            }
+            move(temporaryFile, target);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    } // end replace
+
+    /**
+     * Method to create an empty temporary file alongside a file, creating its directory if needed,
+     * for writers that write the file over several calls before moving it with {@link #move}.
+     *
+     * @param target The path of the file to replace.
+     * @return The path of the temporary file.
+     * @throws IOException If the temporary file cannot be created.
+     */
+    static Path createTemporaryFile(Path target) throws IOException {
+        Path directory = Files.createDirectories(target.toAbsolutePath().getParent()); // e.g. a new cache entry
+        return Files.createTempFile(directory, target.getFileName().toString() + ".", ".tmp");
+    } // end createTemporaryFile
+
+    /**
+     * Method to rename a written temporary file over a file, atomically where the file system can.
+     *
+     * @param temporaryFile The path of the temporary file, created by {@link #createTemporaryFile}.
+     * @param target        The path of the file to replace.
+     * @throws IOException If the file cannot be replaced.
+     */
+    static void move(Path temporaryFile, Path target) throws IOException {
+        try {
+            Files.move(temporaryFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException error) { // fall back where file system can't rename atomically
+            Files.move(temporaryFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    } // end move
+
+    /**
+     * Interface IOConsumer is an operation on a value that may fail with an IOException.
+     *
+     * @param <T> The type of the value.
+     */
+    @FunctionalInterface
+    interface IOConsumer<T> {
+
+        /**
+         * Method to perform the operation.
+         *
+         * @param value The value.
+         * @throws IOException If the operation fails.
+         */
+        void accept(T value) throws IOException;
+
+    } // end interface IOConsumer
+
+} // end class AtomicFiles
@@ -0,0 +1,428 @@
+package rainfall;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BatchAnalyser analyses every station's raw rainfall data in a directory without the visualiser, such as a nightly
+ * drop of station files. Stations pass through a pipeline of three stages connected by bounded queues, so a slow
+ * stage holds back the others instead of filling memory:
+ * <ol>
+ * <li>read, reading and decompressing raw rainfall data files,</li>
+ * <li>analyse, parsing raw records and aggregating them into monthly records,</li>
+ * <li>write, writing analysed rainfall csv files, their YearIndex and the station catalog.</li>
+ * </ol>
+ * Each stage runs on its own threads, and throughput is printed once every station is done.
+ * Stations already analysed since their raw data was modified are skipped unless --force is given.
+ * With --lenient invalid raw records are quarantined rather than failing their station,
+ * and with --run-lengths each station's runs of dry and wet days are written to its runs file.
+ * With --cache analysed files are written to an {@link AnalysedCache} rather than beside the raw data,
+ * keeping within --cache-bytes bytes.
+ * Usage: java rainfall.BatchAnalyser [--readers n] [--analysers n] [--writers n] [--queue n] [--unsorted] [--lenient] [--run-lengths] [--force]
+ * [--cache directory] [--cache-bytes n] directory
+ * <p>
+ * Exits with status 0 if every station is analysed, 1 if any station fails and 2 for invalid arguments.
+ */
+public class BatchAnalyser {
+
+    private final String directoryName;
+    private final int readers;
+    private final int analysers;
+    private final int writers;
+    private final int queueCapacity;
+    private final LoadOptions options;
+
+    // Progress, updated by the stages
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final AtomicInteger stationsWritten = new AtomicInteger();
+    private final Map<String, String> failures = new TreeMap<>(); // Error message by station name
+
+    /**
+     * Constructor. Create a BatchAnalyser for a directory.
+     *
+     * @param directoryName The path to the directory of raw rainfall data files.
+     * @param readers       The number of threads reading raw rainfall data files.
+     * @param analysers     The number of threads analysing raw rainfall data.
+     * @param writers       The number of threads writing analysed rainfall csv files.
+     * @param queueCapacity The number of stations each queue between stages holds.
+     * @param options       The LoadOptions used to analyse raw rainfall data.
+     */
+    public BatchAnalyser(String directoryName, int readers, int analysers, int writers, int queueCapacity,
+                         LoadOptions options) {
+        if (readers < 1 || analysers < 1 || writers < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("stage threads and queue capacity must be positive");
+        }
+        this.directoryName = directoryName;
+        this.readers = readers;
+        this.analysers = analysers;
+        this.writers = writers;
+        this.queueCapacity = queueCapacity;
+        this.options = options;
+    } // end BatchAnalyser constructor
+
+    public static void main(String[] args) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int readers = 2;
+        int analysers = processors;
+        int writers = 2;
+        int queueCapacity = 2 * processors;
+        LoadOptions options = LoadOptions.DEFAULT;
+        boolean force = false;
+        String directoryName = null;
+        String cacheDirectoryName = null;
+        long cacheBytes = AnalysedCache.DEFAULT_MAX_BYTES;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--readers":
+                        readers = Integer.parseInt(args[++i]);
+                        break;
+                    case "--analysers":
+                        analysers = Integer.parseInt(args[++i]);
+                        break;
+                    case "--writers":
+                        writers = Integer.parseInt(args[++i]);
+                        break;
+                    case "--queue":
+                        queueCapacity = Integer.parseInt(args[++i]);
+                        break;
+                    case "--unsorted":
+                        options = options.withUnsortedInput(true);
+                        break;
+                    case "--lenient":
+                        options = options.withLenient(true);
+                        break;
+                    case "--run-lengths":
+                        options = options.withRunLengths(true);
+                        break;
+                    case "--fixed-point":
+                        options = options.withFixedPoint(true);
+                        break;
+                    case "--force":
+                        force = true;
+                        break;
+                    case "--cache":
+                        cacheDirectoryName = args[++i];
+                        break;
+                    case "--cache-bytes":
+                        cacheBytes = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        if (args[i].startsWith("--") || directoryName != null) throw new IllegalArgumentException(args[i]);
+                        directoryName = args[i];
+                }
+            }
+            if (directoryName == null) throw new IllegalArgumentException("missing directory");
+            if (!new File(directoryName).isDirectory()) throw new IllegalArgumentException("not a directory: " + directoryName);
+            if (cacheDirectoryName != null) AnalysedCache.setDefault(new AnalysedCache(Paths.get(cacheDirectoryName), cacheBytes));
+
+            BatchAnalyser batchAnalyser = new BatchAnalyser(directoryName, readers, analysers, writers, queueCapacity, options);
+            boolean succeeded = batchAnalyser.run(batchAnalyser.findStations(force));
+            System.exit(succeeded ? 0 : 1);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException error) { // includes NumberFormatException
+            System.err.println("Invalid argument: " + error.getMessage());
+            System.err.println("Usage: java rainfall.BatchAnalyser [--readers n] [--analysers n] [--writers n] "
+                    + "[--queue n] [--unsorted] [--lenient] [--run-lengths] [--fixed-point] [--force] "
+                    + "[--cache directory] [--cache-bytes n] directory");
+            System.exit(2);
+        } catch (IOException | Loader.LoaderException error) {
+            System.err.println("Unable to open analysed cache: " + error.getMessage());
+            System.exit(2);
+        } catch (InterruptedException error) {
+            System.err.println("Interrupted");
+            System.exit(1);
+        }
+    } // end main
+
+    /**
+     * Method to find the stations of the directory with raw rainfall data to analyse.
+     *
+     * @param force Whether to include stations already analysed since their raw data was modified.
+     * @return The names of the stations, in name order.
+     * @throws Loader.LoaderException If the default AnalysedCache is unusable.
+     */
+    public List<String> findStations(boolean force) throws Loader.LoaderException {
+        String[] fileNames = new File(directoryName).list();
+        TreeSet<String> stationNames = new TreeSet<>();
+        for (String fileName : fileNames == null ? new String[0] : fileNames) {
+            String stationName = Loader.getRawDataStationName(fileName);
+            if (stationName != null) stationNames.add(stationName);
+        }
+
+        List<String> stations = new ArrayList<>();
+        for (String stationName : stationNames) {
+            File rawDataFile = Loader.findRawDataFile(directoryName, stationName);
+            File analysedCSVFile = Loader.getAnalysedFile(directoryName, stationName);
+            if (force || Loader.isAnalysisNeeded(analysedCSVFile, rawDataFile)) stations.add(stationName);
+        }
+        return stations;
+    } // end findStations
+
+    /**
+     * Method to analyse stations through the pipeline, then print failures and throughput.
+     *
+     * @param stationNames The names of the stations to analyse.
+     * @return Whether every station was analysed.
+     * @throws InterruptedException If interrupted waiting for the stages.
+     */
+    public boolean run(List<String> stationNames) throws InterruptedException {
+        long start = System.nanoTime();
+        ConcurrentLinkedQueue<String> pendingStations = new ConcurrentLinkedQueue<>(stationNames);
+        BlockingQueue<RawStation> rawStations = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<AnalysedStation> analysedStations = new ArrayBlockingQueue<>(queueCapacity);
+
+        // Each stage passes an end marker per thread of the next stage once all its threads finish
+        CountDownLatch readersDone = new CountDownLatch(readers);
+        CountDownLatch analysersDone = new CountDownLatch(analysers);
+        CountDownLatch writersDone = new CountDownLatch(writers);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            threads.add(startStage("read-" + i, () -> read(pendingStations, rawStations), readersDone,
+                    () -> putEndMarkers(rawStations, RawStation.END, analysers)));
+        }
+        for (int i = 0; i < analysers; i++) {
+            threads.add(startStage("analyse-" + i, () -> analyse(rawStations, analysedStations), analysersDone,
+                    () -> putEndMarkers(analysedStations, AnalysedStation.END, writers)));
+        }
+        for (int i = 0; i < writers; i++) {
+            threads.add(startStage("write-" + i, () -> write(analysedStations), writersDone, () -> {
+            }));
+        }
+        try {
+            writersDone.await();
+        } finally {
+            for (Thread thread : threads) thread.interrupt(); // stops stages early if interrupted
+        }
+
+        // Report
+        double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+        synchronized (failures) {
+            for (Map.Entry<String, String> failure : failures.entrySet()) {
+                System.err.printf("FAILED %s: %s%n", failure.getKey(), failure.getValue());
+            }
+            System.out.printf("%d stations analysed, %d failed in %.2f s%n", stationsWritten.get(), failures.size(), seconds);
+            System.out.printf("%.1f MB/s, %.0f rows/s, %.1f stations/s (readers %d, analysers %d, writers %d, queue %d)%n",
+                    bytesRead.get() / 1e6 / seconds, rowsRead.get() / seconds, stationsWritten.get() / seconds,
+                    readers, analysers, writers, queueCapacity);
+            if (options.isLenient()) System.out.printf("%d invalid rows quarantined%n", rowsRejected.get());
+            return failures.isEmpty() && stationsWritten.get() == stationNames.size();
+        }
+    } // end run
+
+    /**
+     * Read stage, reads and decompresses each pending station's raw rainfall data into memory.
+     */
+    private void read(ConcurrentLinkedQueue<String> pendingStations, BlockingQueue<RawStation> rawStations)
+            throws InterruptedException {
+        String stationName;
+        while ((stationName = pendingStations.poll()) != null) {
+            File rawDataFile = Loader.findRawDataFile(directoryName, stationName);
+            try {
+                if (rawDataFile == null) throw new IOException("rainfall file not found");
+                AnalysisSources sources = AnalysisSources.of(Collections.singletonList(rawDataFile));
+                byte[] csv;
+                try (InputStream rawData = Loader.openRawDataFile(rawDataFile, stationName)) {
+                    csv = rawData.readAllBytes();
+                }
+                bytesRead.addAndGet(rawDataFile.length());
+                rawStations.put(new RawStation(stationName, rawDataFile, sources, csv));
+            } catch (IOException | RuntimeException error) { // unreadable raw data, unchecked errors included
+                fail(stationName, "unable to read rainfall file: " + error.getMessage());
+            }
+        }
+    } // end read
+
+    /**
+     * Analyse stage, parses raw rainfall records and aggregates them into a Station of monthly records.
+     */
+    private void analyse(BlockingQueue<RawStation> rawStations, BlockingQueue<AnalysedStation> analysedStations)
+            throws InterruptedException {
+        for (RawStation rawStation = rawStations.take(); rawStation != RawStation.END; rawStation = rawStations.take()) {
+            try {
+                // Only a lenient analysis skips records to the quarantine
+                Path quarantineFile = Loader.getQuarantineFile(directoryName, rawStation.stationName).toPath();
+                try (QuarantineFileWriter quarantine = options.isLenient() ? new QuarantineFileWriter(quarantineFile) : null) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(rawStation.csv),
+                            StandardCharsets.UTF_8));
+                    if (in.readLine() == null) throw new Loader.AnalysisException("empty rawDataCSVFile");
+                    StationBuilder stationBuilder = new StationBuilder(options.isFixedPoint());
+                    AnalysisReport report = new AnalysisReport();
+                    Loader.analyseDataset(() -> {
+                        String line = in.readLine();
+                        return line == null ? null : line.split(",", -1);
+                    }, (year, month, total, min, max, missingDays) ->
+                            stationBuilder.addRecord(year, month, total, min, max, missingDays), options, report, quarantine);
+                    if (quarantine != null) {
+                        quarantine.commit(); // replaces or removes an earlier analysis's quarantine
+                    } else {
+                        Files.deleteIfExists(quarantineFile); // a strict analysis skips nothing
+                    }
+                    rowsRead.addAndGet(report.getRows());
+                    rowsRejected.addAndGet(report.getRejectedRows());
+                    analysedStations.put(new AnalysedStation(rawStation.stationName, rawStation.rawDataFile,
+                            rawStation.sources, stationBuilder.build(), report));
+                }
+            } catch (Loader.AnalysisException | Loader.LoaderException | IOException | RuntimeException error) {
+                // invalid raw data, or quarantine file can't be found in an unusable cache
+                fail(rawStation.stationName, String.valueOf(error.getMessage()));
+            }
+        }
+    } // end analyse
+
+    /**
+     * Write stage, writes each analysed station's analysed rainfall csv file and catalog entry.
+     */
+    private void write(BlockingQueue<AnalysedStation> analysedStations) throws InterruptedException {
+        for (AnalysedStation analysedStation = analysedStations.take(); analysedStation != AnalysedStation.END;
+             analysedStation = analysedStations.take()) {
+            String stationName = analysedStation.stationName;
+            File analysedCSVFile;
+            try {
+                analysedCSVFile = Loader.getAnalysedFile(directoryName, stationName);
+            } catch (Loader.LoaderException error) {
+                fail(stationName, error.getMessage());
+                continue;
+            }
+            Station station = analysedStation.station;
+            AnalysisReport report = analysedStation.report;
+            AnalysisSources sources = analysedStation.sources;
+            // Hold the station's analysis lock, so loads in other processes wait rather than reading a partial update
+            try {
+                AnalysisLock.analyseOnce(analysedCSVFile, () -> true, () -> {
+                    try (AnalysedFileWriter writer = new AnalysedFileWriter(analysedCSVFile.toPath())) {
+                        for (int i = 0; i < station.getNumberOfRecords(); i++) {
+                            writer.writeRecord(station.getYear(i), station.getMonth(i), station.getTotal(i),
+                                    station.getMin(i), station.getMax(i), station.getMissingDays(i));
+                        }
+                        writer.commit();
+                    }
+                    sources.write(Loader.getSourcesFile(analysedCSVFile));
+                    RunLengths runLengths = report.getRunLengths();
+                    if (runLengths != null) runLengths.write(Loader.getRunLengthsFile(directoryName, stationName));
+                    return report;
+                });
+                Loader.updateAnalysedCache(analysedCSVFile);
+            } catch (Loader.LoaderException | IOException error) {
+                fail(stationName, "unable to write analysed file: " + error.getMessage());
+                continue;
+            }
+            Loader.updateCatalog(directoryName, stationName, report.getStationNumber(), analysedStation.rawDataFile,
+                    analysedCSVFile, station);
+            Loader.updateYearIndex(directoryName, stationName, analysedCSVFile, analysedStation.rawDataFile);
+            stationsWritten.incrementAndGet();
+        }
+    } // end write
+
+    /**
+     * Helper method to record a station's failure.
+     */
+    private void fail(String stationName, String message) {
+        synchronized (failures) {
+            failures.put(stationName, message);
+        }
+    } // end fail
+
+    /**
+     * Helper method to start a stage thread, which counts down done when it finishes
+     * and runs onLastDone if it is the stage's last thread to finish.
+     */
+    private static Thread startStage(String name, Stage stage, CountDownLatch done, Runnable onLastDone) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+            } finally {
+                synchronized (done) {
+                    done.countDown();
+                    if (done.getCount() == 0) onLastDone.run();
+                }
+            }
+        }, "batch-" + name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    } // end startStage
+
+    /**
+     * Helper method to put an end marker for each thread of the next stage.
+     */
+    private static <T> void putEndMarkers(BlockingQueue<T> queue, T endMarker, int count) {
+        try {
+            for (int i = 0; i < count; i++) queue.put(endMarker);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+        }
+    } // end putEndMarkers
+
+    /**
+     * A Stage is the work of one thread of a pipeline stage.
+     */
+    private interface Stage {
+        void run() throws InterruptedException;
+    } // end interface Stage
+
+    /**
+     * An object of class RawStation holds a station's decompressed raw rainfall csv data.
+     */
+    private static class RawStation {
+        private static final RawStation END = new RawStation(null, null, null, null);
+
+        private final String stationName;
+        private final File rawDataFile;
+        private final AnalysisSources sources; // Fingerprinted before reading
+        private final byte[] csv;
+
+        private RawStation(String stationName, File rawDataFile, AnalysisSources sources, byte[] csv) {
+            this.stationName = stationName;
+            this.rawDataFile = rawDataFile;
+            this.sources = sources;
+            this.csv = csv;
+        } // end RawStation constructor
+    } // end class RawStation
+
+    /**
+     * An object of class AnalysedStation holds a station's monthly records, ready to be written.
+     */
+    private static class AnalysedStation {
+        private static final AnalysedStation END = new AnalysedStation(null, null, null, null, null);
+
+        private final String stationName;
+        private final File rawDataFile;
+        private final AnalysisSources sources;
+        private final Station station;
+        private final AnalysisReport report;
+
+        private AnalysedStation(String stationName, File rawDataFile, AnalysisSources sources, Station station,
+                                AnalysisReport report) {
+            this.stationName = stationName;
+            this.rawDataFile = rawDataFile;
+            this.sources = sources;
+            this.station = station;
+            this.report = report;
+        } // end AnalysedStation constructor
+    } // end class AnalysedStation
+
+} // end class BatchAnalyser
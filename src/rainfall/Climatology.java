@@ -0,0 +1,222 @@
+package rainfall;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * An object of class Climatology holds the long-term mean and variance of monthly rainfall totals for each
+ * calendar month, accumulated in a single streaming pass with Welford's online algorithm so no totals are kept.
+ * Climatologies of separate ranges of records, or of separate stations, can be merged into the climatology of
+ * all their records, so they can be accumulated in parallel.
+ * A month is anomalous when its total is more than k standard deviations from its calendar month's mean.
+ */
+public class Climatology {
+
+    private static final int CHUNK_SIZE = 120; // Records per partial climatology, ten years of months
+
+    private final long[] counts = new long[12];
+    private final double[] means = new double[12];
+    private final double[] sumsOfSquares = new double[12]; // Sum of squared differences from the mean
+
+    /**
+     * Method to accumulate the months of a Station with rainfall readings, months with none are left out.
+     *
+     * @param station The Station to accumulate.
+     * @return Climatology of the station.
+     */
+    public static Climatology of(Station station) {
+        return of(station, 0, station.getNumberOfRecords());
+    } // end of
+
+    /**
+     * Method to accumulate a range of the months of a Station with rainfall readings, months with none are left out.
+     *
+     * @param station The Station to accumulate.
+     * @param from    The index of the first Record, inclusive.
+     * @param to      The index of the last Record, exclusive.
+     * @return Climatology of the range of records.
+     */
+    public static Climatology of(Station station, int from, int to) {
+        Climatology climatology = new Climatology();
+        for (int i = from; i < to; i++) {
+            if (!station.isMissing(i)) climatology.add(station.getMonth(i), station.getTotal(i));
+        }
+        return climatology;
+    } // end of
+
+    /**
+     * Method to accumulate the months of a Station with rainfall readings in parallel, as partial climatologies
+     * of chunks of its records merged into one.
+     *
+     * @param station The Station to accumulate.
+     * @return Climatology of the station.
+     */
+    public static Climatology ofChunks(Station station) {
+        int numberOfRecords = station.getNumberOfRecords();
+        int numberOfChunks = (numberOfRecords + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return IntStream.range(0, numberOfChunks).parallel()
+                .mapToObj(chunk -> of(station, chunk * CHUNK_SIZE, Math.min(numberOfRecords, (chunk + 1) * CHUNK_SIZE)))
+                .collect(Climatology::new, Climatology::merge, Climatology::merge);
+    } // end ofChunks
+
+    /**
+     * Method to accumulate the climatology of every station of a directory in parallel,
+     * from its raw rainfall data or analysed rainfall csv file.
+     *
+     * @param directoryName The path to the directory of rainfall data.
+     * @param failures      Map to put the error message of each station that cannot be loaded in, by station name.
+     * @return Climatology of each station loaded, by station name.
+     */
+    public static Map<String, Climatology> ofDirectory(String directoryName, Map<String, String> failures) {
+        String[] fileNames = new File(directoryName).list();
+        TreeSet<String> stationNames = new TreeSet<>();
+        for (String fileName : fileNames == null ? new String[0] : fileNames) {
+            String stationName = Loader.getStationName(fileName);
+            if (stationName != null) stationNames.add(stationName);
+        }
+
+        Map<String, Climatology> climatologies = new ConcurrentHashMap<>();
+        Map<String, String> errors = new ConcurrentHashMap<>();
+        stationNames.parallelStream().forEach(stationName -> {
+            try {
+                climatologies.put(stationName, ofChunks(Loader.load(directoryName, stationName)));
+            } catch (Loader.LoaderException error) {
+                errors.put(stationName, error.getMessage());
+            }
+        });
+        failures.putAll(errors);
+        return Collections.unmodifiableMap(new TreeMap<>(climatologies));
+    } // end ofDirectory
+
+    /**
+     * Method to add a monthly rainfall total, updating its calendar month's mean and variance.
+     *
+     * @param month The calendar month, 1 to 12.
+     * @param total The monthly rainfall total in mm.
+     */
+    public void add(int month, double total) {
+        int m = checkMonth(month);
+        long count = ++counts[m];
+        double delta = total - means[m];
+        means[m] += delta / count;
+        sumsOfSquares[m] += delta * (total - means[m]);
+    } // end add
+
+    /**
+     * Method to merge the totals accumulated by another Climatology into this one,
+     * as if they had been added to this one. The other Climatology is unchanged.
+     *
+     * @param other The Climatology to merge.
+     * @return This Climatology, so partial climatologies can be reduced.
+     */
+    public Climatology merge(Climatology other) {
+        for (int m = 0; m < 12; m++) {
+            long otherCount = other.counts[m];
+            if (otherCount == 0) continue;
+            long count = counts[m] + otherCount;
+            double delta = other.means[m] - means[m];
+            means[m] += delta * otherCount / count;
+            sumsOfSquares[m] += other.sumsOfSquares[m] + delta * delta * counts[m] * otherCount / count;
+            counts[m] = count;
+        }
+        return this;
+    } // end merge
+
+    /**
+     * @param month The calendar month, 1 to 12.
+     * @return The number of totals of the calendar month accumulated.
+     */
+    public long getCount(int month) {
+        return counts[checkMonth(month)];
+    } // end getCount
+
+    /**
+     * @param month The calendar month, 1 to 12.
+     * @return The mean total of the calendar month, or NaN if none have been accumulated.
+     */
+    public double getMean(int month) {
+        int m = checkMonth(month);
+        return counts[m] == 0 ? Double.NaN : means[m];
+    } // end getMean
+
+    /**
+     * @param month The calendar month, 1 to 12.
+     * @return The sample variance of the totals of the calendar month, or NaN if fewer than 2 have been accumulated.
+     */
+    public double getVariance(int month) {
+        int m = checkMonth(month);
+        return counts[m] < 2 ? Double.NaN : sumsOfSquares[m] / (counts[m] - 1);
+    } // end getVariance
+
+    /**
+     * @param month The calendar month, 1 to 12.
+     * @return The sample standard deviation of the totals of the calendar month,
+     * or NaN if fewer than 2 have been accumulated.
+     */
+    public double getStandardDeviation(int month) {
+        return Math.sqrt(getVariance(month));
+    } // end getStandardDeviation
+
+    /**
+     * Method to find the number of standard deviations a monthly total is from its calendar month's mean.
+     *
+     * @param month The calendar month, 1 to 12.
+     * @param total The monthly rainfall total in mm.
+     * @return The anomaly of the total, or NaN if the calendar month's totals don't vary.
+     */
+    public double getAnomaly(int month, double total) {
+        double standardDeviation = getStandardDeviation(month);
+        if (!(standardDeviation > 0)) return Double.NaN;
+        return (total - getMean(month)) / standardDeviation;
+    } // end getAnomaly
+
+    /**
+     * Method to find the anomaly of each month of a Station.
+     *
+     * @param station The Station, usually the one accumulated.
+     * @return The anomaly of each Record in Station order, NaN for months without rainfall readings.
+     */
+    public double[] getAnomalies(Station station) {
+        double[] anomalies = new double[station.getNumberOfRecords()];
+        for (int i = 0; i < anomalies.length; i++) {
+            anomalies[i] = station.isMissing(i) ? Double.NaN : getAnomaly(station.getMonth(i), station.getTotal(i));
+        }
+        return anomalies;
+    } // end getAnomalies
+
+    /**
+     * Method to flag the anomalous months of a Station.
+     *
+     * @param station   The Station, usually the one accumulated.
+     * @param threshold The number of standard deviations, k, from the mean a total must exceed.
+     * @return Whether each Record in Station order is anomalous.
+     */
+    public boolean[] findAnomalies(Station station, double threshold) {
+        double[] anomalies = getAnomalies(station);
+        boolean[] anomalous = new boolean[anomalies.length];
+        for (int i = 0; i < anomalies.length; i++) anomalous[i] = Math.abs(anomalies[i]) > threshold;
+        return anomalous;
+    } // end findAnomalies
+
+    /**
+     * Helper method to check a calendar month and find its index.
+     */
+    private static int checkMonth(int month) {
+        if (month < 1 || month > 12) throw new IllegalArgumentException("invalid month: " + month);
+        return month - 1;
+    } // end checkMonth
+
+    /**
+     * @return A string representation of Climatology.
+     */
+    public String toString() {
+        return String.format("Climatology[counts=%s]", Arrays.toString(counts));
+    } // end toString
+
+} // end class Climatology
@@ -0,0 +1,24 @@
+package rainfall;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded for each chart draw of a Station, or of Stations overlaid,
+ * its duration is the time taken to draw the chart.
+ */
+@Name("rainfall.Draw")
+@Label("Chart Draw")
+@Category({"Rainfall", "Visualiser"})
+@Description("Drawing of a Station's monthly rainfall chart")
+public class DrawEvent extends jdk.jfr.Event {
+
+    @Label("Records")
+    public int records;
+
+    @Label("Stations")
+    public int stations;
+
+} // end class DrawEvent
@@ -0,0 +1,85 @@
+package rainfall;
+
+import java.io.File;
+
+/**
+ * An object of class FileFingerprint identifies a version of a file by its size and last modified time,
+ * so a changed file can be detected without reading it.
+ */
+public class FileFingerprint {
+
+    private final long size;
+    private final long lastModified;
+
+    /**
+     * Constructor. Create a FileFingerprint from a file's size and last modified time.
+     *
+     * @param size         The size of the file in bytes.
+     * @param lastModified The last modified time of the file in milliseconds since the epoch.
+     */
+    public FileFingerprint(long size, long lastModified) {
+        this.size = size;
+        this.lastModified = lastModified;
+    } // end FileFingerprint constructor
+
+    /**
+     * Method to fingerprint a file as it is now.
+     *
+     * @param file The file to fingerprint.
+     * @return FileFingerprint of the file, or null if it does not exist.
+     */
+    public static FileFingerprint of(File file) {
+        long lastModified = file.lastModified();
+        if (lastModified == 0 && !file.exists()) return null;
+        return new FileFingerprint(file.length(), lastModified);
+    } // end of
+
+    /**
+     * Method to parse a FileFingerprint from the form returned by toString.
+     *
+     * @param text The text to parse, may be empty.
+     * @return The parsed FileFingerprint, or null if text is empty.
+     * @throws NumberFormatException If text is not a valid fingerprint.
+     */
+    public static FileFingerprint parse(String text) {
+        if (text.isEmpty()) return null;
+        int separator = text.indexOf(':');
+        if (separator < 0) throw new NumberFormatException("invalid fingerprint: " + text);
+        return new FileFingerprint(Long.parseLong(text.substring(0, separator)),
+                Long.parseLong(text.substring(separator + 1), 16));
+    } // end parse
+
+    /**
+     * @return The size of the file in bytes.
+     */
+    public long getSize() {
+        return size;
+    } // end getSize
+
+    /**
+     * @return The last modified time of the file in milliseconds since the epoch.
+     */
+    public long getLastModified() {
+        return lastModified;
+    } // end getLastModified
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof FileFingerprint)) return false;
+        FileFingerprint fingerprint = (FileFingerprint) other;
+        return size == fingerprint.size && lastModified == fingerprint.lastModified;
+    } // end equals
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(size) * 31 + Long.hashCode(lastModified);
+    } // end hashCode
+
+    /**
+     * @return A string representation of FileFingerprint as size and hexadecimal last modified time.
+     */
+    public String toString() {
+        return size + ":" + Long.toHexString(lastModified);
+    } // end toString
+
+} // end class FileFingerprint
@@ -0,0 +1,267 @@
+package rainfall;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An object of class FixedPointStation is a Station whose rainfall values are held as whole tenths of a mm,
+ * the precision BOM records rainfall to, in int columns rather than double columns.
+ * Totals are exact, and the rainfall columns take half the memory. Double accessors return the tenths in mm,
+ * and are exact to the tenth. FixedPointStation objects are built by a fixed point {@link StationBuilder},
+ * and like Station are immutable. A FixedPointStation with a month appended by withRecord is a FixedPointStation,
+ * with the month's rainfall rounded to tenths, sharing columns the way Station's withRecord does.
+ */
+public class FixedPointStation extends Station {
+
+    private static final double TENTHS_PER_MM = 10.0;
+
+    // Columns of Record values, filled up to numberOfRecords and never changed below it, rainfall and missing days
+    // null if not loaded
+    private final int[] years;
+    private final int[] months;
+    private final int[] totalTenths;
+    private final int[] minTenths;
+    private final int[] maxTenths;
+    private final int[] missingDays;
+    private final int numberOfRecords;
+    // Number of elements of the columns used by any FixedPointStation sharing them, null if the columns aren't shared
+    private final AtomicInteger usedLength;
+
+    /**
+     * Constructor. Create a FixedPointStation object over columns exactly as long as its Records,
+     * which must not be changed after.
+     */
+    FixedPointStation(int[] years, int[] months, int[] totalTenths, int[] minTenths, int[] maxTenths,
+                      int[] missingDays) {
+        this(years, months, totalTenths, minTenths, maxTenths, missingDays, years.length, null);
+    } // end FixedPointStation constructor
+
+    /**
+     * Constructor. Create a FixedPointStation object over columns, which must not be changed below numberOfRecords
+     * after.
+     *
+     * @param numberOfRecords The number of Records filled in the columns.
+     * @param usedLength      The number of elements used by FixedPointStations sharing the columns,
+     *                        or null if they are not shared and are exactly numberOfRecords long.
+     */
+    private FixedPointStation(int[] years, int[] months, int[] totalTenths, int[] minTenths, int[] maxTenths,
+                              int[] missingDays, int numberOfRecords, AtomicInteger usedLength) {
+        this.years = years;
+        this.months = months;
+        this.totalTenths = totalTenths;
+        this.minTenths = minTenths;
+        this.maxTenths = maxTenths;
+        this.missingDays = missingDays;
+        this.numberOfRecords = numberOfRecords;
+        this.usedLength = usedLength;
+    } // end FixedPointStation constructor
+
+    /**
+     * Method to derive a FixedPointStation with a Record appended, this FixedPointStation is unchanged.
+     * The Record's rainfall is rounded to whole tenths of a mm, as a fixed point StationBuilder rounds it.
+     * Columns are shared or copied as by {@link Station#withRecord(Record)}.
+     *
+     * @param record The Record to append.
+     * @return FixedPointStation holding this FixedPointStation's Records followed by record.
+     */
+    @Override
+    public Station withRecord(Record record) {
+        int n = numberOfRecords;
+        if (usedLength != null && n < years.length && usedLength.compareAndSet(n, n + 1)) {
+            // Claimed the element after this FixedPointStation's Records, which no other Station reads
+            setRecord(years, months, totalTenths, minTenths, maxTenths, missingDays, n, record);
+            return new FixedPointStation(years, months, totalTenths, minTenths, maxTenths, missingDays, n + 1,
+                    usedLength);
+        }
+        int capacity = Math.max(16, n * 2);
+        int[] newYears = Arrays.copyOf(years, capacity);
+        int[] newMonths = Arrays.copyOf(months, capacity);
+        int[] newTotalTenths = totalTenths != null ? Arrays.copyOf(totalTenths, capacity) : null;
+        int[] newMinTenths = minTenths != null ? Arrays.copyOf(minTenths, capacity) : null;
+        int[] newMaxTenths = maxTenths != null ? Arrays.copyOf(maxTenths, capacity) : null;
+        int[] newMissingDays = missingDays != null ? Arrays.copyOf(missingDays, capacity) : null;
+        setRecord(newYears, newMonths, newTotalTenths, newMinTenths, newMaxTenths, newMissingDays, n, record);
+        return new FixedPointStation(newYears, newMonths, newTotalTenths, newMinTenths, newMaxTenths, newMissingDays,
+                n + 1, new AtomicInteger(n + 1));
+    } // end withRecord
+
+    @Override
+    public Record getRecord(int year, int month) {
+        for (int i = 0; i < numberOfRecords; i++) {
+            if (years[i] == year && months[i] == month) {
+                return getRecord(i);
+            }
+        }
+        return null;
+    } // end getRecord
+
+    @Override
+    public Record getRecord(int i) {
+        checkIndex(i);
+        return new Record(years[i], months[i], getTotal(i), getMin(i), getMax(i), getMissingDays(i));
+    } // end getRecord
+
+    @Override
+    public int getYear(int i) {
+        checkIndex(i);
+        return years[i];
+    } // end getYear
+
+    @Override
+    public int getMonth(int i) {
+        checkIndex(i);
+        return months[i];
+    } // end getMonth
+
+    @Override
+    public double getTotal(int i) {
+        checkIndex(i);
+        return loaded(totalTenths, "total")[i] / TENTHS_PER_MM;
+    } // end getTotal
+
+    @Override
+    public double getMin(int i) {
+        checkIndex(i);
+        return loaded(minTenths, "min")[i] / TENTHS_PER_MM;
+    } // end getMin
+
+    @Override
+    public double getMax(int i) {
+        checkIndex(i);
+        return loaded(maxTenths, "max")[i] / TENTHS_PER_MM;
+    } // end getMax
+
+    @Override
+    public int getTotalTenths(int i) {
+        checkIndex(i);
+        return loaded(totalTenths, "total")[i];
+    } // end getTotalTenths
+
+    @Override
+    public int getMinTenths(int i) {
+        checkIndex(i);
+        return loaded(minTenths, "min")[i];
+    } // end getMinTenths
+
+    @Override
+    public int getMaxTenths(int i) {
+        checkIndex(i);
+        return loaded(maxTenths, "max")[i];
+    } // end getMaxTenths
+
+    @Override
+    public int getMissingDays(int i) {
+        checkIndex(i);
+        return loaded(missingDays, "missing days")[i];
+    } // end getMissingDays
+
+    @Override
+    public int getNumberOfRecords() {
+        return numberOfRecords;
+    } // end getNumberOfRecords
+
+    @Override
+    public double getMaxRainfallValue() {
+        int[] totals = loaded(totalTenths, "total");
+        int maxRainfall = Integer.MIN_VALUE;
+        for (int i = 0; i < numberOfRecords; i++) {
+            if (totals[i] > maxRainfall) maxRainfall = totals[i];
+        }
+        return numberOfRecords == 0 ? Double.NEGATIVE_INFINITY : maxRainfall / TENTHS_PER_MM;
+    } // end getMaxRainfallValue
+
+    @Override
+    public boolean hasColumn(LoadOptions.Column column) {
+        switch (column) {
+            case TOTAL:
+                return totalTenths != null;
+            case MIN:
+                return minTenths != null;
+            case MAX:
+                return maxTenths != null;
+            default:
+                return missingDays != null;
+        }
+    } // end hasColumn
+
+    @Override
+    long getApproximateBytes() {
+        // Object header and fields, plus the int column arrays loaded
+        int arrays = 2;
+        for (int[] column : new int[][]{totalTenths, minTenths, maxTenths, missingDays}) {
+            if (column != null) arrays++;
+        }
+        return 64 + arrays * (16 + (long) Integer.BYTES * years.length);
+    } // end getApproximateBytes
+
+    /*
+     * Column accessors for loops within the package share the int columns, which may be longer than the Records,
+     * rainfall columns are converted to mm in new arrays for the duration of a query. Columns not loaded are null.
+     */
+
+    @Override
+    int[] getYearColumn() {
+        return years;
+    } // end getYearColumn
+
+    @Override
+    int[] getMonthColumn() {
+        return months;
+    } // end getMonthColumn
+
+    @Override
+    double[] getTotalColumn() {
+        return toMillimetres(totalTenths, numberOfRecords);
+    } // end getTotalColumn
+
+    @Override
+    double[] getMinColumn() {
+        return toMillimetres(minTenths, numberOfRecords);
+    } // end getMinColumn
+
+    @Override
+    double[] getMaxColumn() {
+        return toMillimetres(maxTenths, numberOfRecords);
+    } // end getMaxColumn
+
+    @Override
+    int[] getMissingDaysColumn() {
+        return missingDays;
+    } // end getMissingDaysColumn
+
+    /**
+     * Helper method to convert the first length values of a column of tenths of a mm to mm.
+     */
+    private static double[] toMillimetres(int[] tenths, int length) {
+        if (tenths == null) return null;
+        double[] column = new double[length];
+        for (int i = 0; i < length; i++) column[i] = tenths[i] / TENTHS_PER_MM;
+        return column;
+    } // end toMillimetres
+
+    /**
+     * Helper method to set the values of a Record in columns, rounding its rainfall to whole tenths of a mm.
+     */
+    private static void setRecord(int[] years, int[] months, int[] totalTenths, int[] minTenths, int[] maxTenths,
+                                  int[] missingDays, int i, Record record) {
+        years[i] = record.getYear();
+        months[i] = record.getMonth();
+        if (totalTenths != null) totalTenths[i] = (int) Math.round(record.getTotal() * TENTHS_PER_MM);
+        if (minTenths != null) minTenths[i] = (int) Math.round(record.getMin() * TENTHS_PER_MM);
+        if (maxTenths != null) maxTenths[i] = (int) Math.round(record.getMax() * TENTHS_PER_MM);
+        if (missingDays != null) missingDays[i] = record.getMissingDays();
+    } // end setRecord
+
+    /**
+     * Helper method to check an index is within the Records of FixedPointStation.
+     *
+     * @param i The index to check.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    private void checkIndex(int i) {
+        if (i < 0 || i >= numberOfRecords) {
+            throw new ArrayIndexOutOfBoundsException("Index " + i + ", is Invalid");
+        }
+    } // end checkIndex
+
+} // end class FixedPointStation
@@ -0,0 +1,68 @@
+package rainfall;
+
+import java.util.Random;
+
+/**
+ * KernelBenchmark times the lane kernels of RainfallKernels against the scalar kernels
+ * over a synthetic series of daily rainfall readings.
+ * Usage: java rainfall.KernelBenchmark [number of values, default 4000000] [rounds, default 20]
+ */
+class KernelBenchmark {
+
+    private static volatile double sink; // Keeps results live so kernels aren't removed
+
+    public static void main(String[] args) {
+        int numberOfValues = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        // Synthetic series, mostly dry days with occasional heavy falls
+        Random random = new Random(42);
+        double[] values = new double[numberOfValues];
+        for (int i = 0; i < numberOfValues; i++) {
+            values[i] = random.nextDouble() < 0.6 ? 0.0 : Math.round(random.nextDouble() * random.nextDouble() * 1500) / 10.0;
+        }
+
+        System.out.printf("%d values, %d rounds, lanes %s by default%n", numberOfValues, rounds,
+                RainfallKernels.LANES_ENABLED ? "enabled" : "disabled");
+        System.out.printf("%-12s %12s %12s %8s%n", "kernel", "scalar ns/v", "lanes ns/v", "speedup");
+        report("sum", numberOfValues, rounds,
+                () -> sink = RainfallKernels.sumScalar(values, 0, numberOfValues),
+                () -> sink = RainfallKernels.sumLanes(values, 0, numberOfValues));
+        report("min", numberOfValues, rounds,
+                () -> sink = RainfallKernels.minScalar(values, 0, numberOfValues),
+                () -> sink = RainfallKernels.minLanes(values, 0, numberOfValues));
+        report("max", numberOfValues, rounds,
+                () -> sink = RainfallKernels.maxScalar(values, 0, numberOfValues),
+                () -> sink = RainfallKernels.maxLanes(values, 0, numberOfValues));
+        report("countAbove", numberOfValues, rounds,
+                () -> sink = RainfallKernels.countAboveScalar(values, 0, numberOfValues, 25.0),
+                () -> sink = RainfallKernels.countAboveLanes(values, 0, numberOfValues, 25.0));
+        report("histogram", numberOfValues, rounds,
+                () -> sink = RainfallKernels.histogramScalar(values, 0, numberOfValues, 0, 5, 32)[0],
+                () -> sink = RainfallKernels.histogramLanes(values, 0, numberOfValues, 0, 5, 32)[0]);
+    } // end main
+
+    /**
+     * Helper method to time a scalar and a lane kernel and print nanoseconds per value.
+     */
+    private static void report(String name, int numberOfValues, int rounds, Runnable scalar, Runnable lanes) {
+        double scalarTime = time(scalar, rounds) / numberOfValues;
+        double lanesTime = time(lanes, rounds) / numberOfValues;
+        System.out.printf("%-12s %12.3f %12.3f %7.2fx%n", name, scalarTime, lanesTime, scalarTime / lanesTime);
+    } // end report
+
+    /**
+     * Helper method to warm up a kernel then return its fastest time in nanoseconds.
+     */
+    private static double time(Runnable kernel, int rounds) {
+        for (int i = 0; i < rounds; i++) kernel.run(); // warm up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            kernel.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    } // end time
+
+} // end class KernelBenchmark
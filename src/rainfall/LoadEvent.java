@@ -0,0 +1,33 @@
+package rainfall;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded for each call to {@link Loader#load(String, String)},
+ * spanning the whole load including any analysis of raw rainfall data.
+ */
+@Name("rainfall.Load")
+@Label("Station Load")
+@Category({"Rainfall", "Loader"})
+@Description("Loading of a Station from an analysed or raw rainfall csv file")
+public class LoadEvent extends jdk.jfr.Event {
+
+    @Label("Station Name")
+    public String stationName;
+
+    @Label("Source Type")
+    @Description("Whether the Station came from an existing analysed file or from raw data")
+    public String sourceType;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Months")
+    public int months;
+
+} // end class LoadEvent
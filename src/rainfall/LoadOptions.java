@@ -0,0 +1,246 @@
+package rainfall;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * An object of class LoadOptions holds the options used by Loader to analyse raw rainfall data.
+ * LoadOptions objects are immutable, each with method returns a copy with one option changed,
+ * for example {@code LoadOptions.DEFAULT.withUnsortedInput(true)}.
+ */
+public class LoadOptions {
+
+    /**
+     * Options for raw rainfall data sorted by date, with duplicate days ignored.
+     */
+    public static final LoadOptions DEFAULT = new LoadOptions(false, false, false, false, 1.0, false,
+            Integer.MIN_VALUE, Integer.MAX_VALUE, Collections.unmodifiableSet(EnumSet.allOf(Column.class)));
+
+    /**
+     * A column of monthly rainfall data that can be loaded into a Station, the year and month are always loaded.
+     */
+    public enum Column {TOTAL, MIN, MAX, MISSING_DAYS}
+
+    private final boolean unsortedInput;
+    private final boolean rejectDuplicateDays;
+    private final boolean lenient;
+    private final boolean runLengths;
+    private final double wetThreshold;
+    private final boolean fixedPoint;
+    private final int fromYear;
+    private final int toYear;
+    private final Set<Column> columns; // Unmodifiable
+
+    /**
+     * Constructor. Create a LoadOptions object and store values.
+     *
+     * @param unsortedInput       Whether raw rainfall records may be in any order.
+     * @param rejectDuplicateDays Whether a day recorded twice fails analysis.
+     * @param lenient             Whether invalid raw rainfall records are quarantined rather than failing analysis.
+     * @param runLengths          Whether dry and wet run lengths are found as raw rainfall data is analysed.
+     * @param wetThreshold        The rainfall in mm a day must exceed to be wet.
+     * @param fixedPoint          Whether rainfall is parsed, summed and stored as whole tenths of a mm.
+     * @param fromYear            The first year loaded, inclusive.
+     * @param toYear              The last year loaded, inclusive.
+     * @param columns             The columns loaded.
+     */
+    private LoadOptions(boolean unsortedInput, boolean rejectDuplicateDays, boolean lenient, boolean runLengths,
+                        double wetThreshold, boolean fixedPoint, int fromYear, int toYear, Set<Column> columns) {
+        this.unsortedInput = unsortedInput;
+        this.rejectDuplicateDays = rejectDuplicateDays;
+        this.lenient = lenient;
+        this.runLengths = runLengths;
+        this.wetThreshold = wetThreshold;
+        this.fixedPoint = fixedPoint;
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        this.columns = columns;
+    } // end LoadOptions constructor
+
+    /**
+     * @param unsortedInput Whether raw rainfall records may be in any order, such as interleaved or merged files.
+     *                      Unsorted input is aggregated into a table of every month before being written,
+     *                      sorted input is written a month at a time as it is read.
+     * @return Copy of LoadOptions with the value of unsortedInput.
+     */
+    public LoadOptions withUnsortedInput(boolean unsortedInput) {
+        return new LoadOptions(unsortedInput, rejectDuplicateDays, lenient, runLengths, wetThreshold, fixedPoint, fromYear,
+                toYear, columns);
+    } // end withUnsortedInput
+
+    /**
+     * @param rejectDuplicateDays Whether a day recorded twice fails analysis,
+     *                            otherwise the first record of the day is kept and duplicates are counted.
+     * @return Copy of LoadOptions with the value of rejectDuplicateDays.
+     */
+    public LoadOptions withRejectDuplicateDays(boolean rejectDuplicateDays) {
+        return new LoadOptions(unsortedInput, rejectDuplicateDays, lenient, runLengths, wetThreshold, fixedPoint, fromYear,
+                toYear, columns);
+    } // end withRejectDuplicateDays
+
+    /**
+     * @param lenient Whether invalid raw rainfall records, such as an illegal date, an unreadable number or,
+     *                when rejected, a duplicate day, are skipped and written with their line number and reason to
+     *                the station's quarantine file while analysis continues, see {@link Loader#loadRejectedRows}.
+     *                Otherwise the first invalid record fails analysis.
+     * @return Copy of LoadOptions with the value of lenient.
+     */
+    public LoadOptions withLenient(boolean lenient) {
+        return new LoadOptions(unsortedInput, rejectDuplicateDays, lenient, runLengths, wetThreshold, fixedPoint, fromYear,
+                toYear, columns);
+    } // end withLenient
+
+    /**
+     * @param runLengths Whether runs of dry and wet days are found as raw rainfall data is analysed,
+     *                   and written to the station's runs file. Runs are only found for sorted input.
+     * @return Copy of LoadOptions with the value of runLengths.
+     */
+    public LoadOptions withRunLengths(boolean runLengths) {
+        return new LoadOptions(unsortedInput, rejectDuplicateDays, lenient, runLengths, wetThreshold, fixedPoint, fromYear,
+                toYear, columns);
+    } // end withRunLengths
+
+    /**
+     * @param wetThreshold The rainfall in mm a day must exceed to be wet when finding run lengths, 1.0 by default.
+     * @return Copy of LoadOptions with the value of wetThreshold.
+     */
+    public LoadOptions withWetThreshold(double wetThreshold) {
+        if (!(wetThreshold >= 0)) throw new IllegalArgumentException("wetThreshold must not be negative: " + wetThreshold);
+        return new LoadOptions(unsortedInput, rejectDuplicateDays, lenient, runLengths, wetThreshold, fixedPoint, fromYear,
+                toYear, columns);
+    } // end withWetThreshold
+
+    /**
+     * @param fixedPoint Whether rainfall is handled as whole tenths of a mm, the precision BOM records it to.
+     *                   Readings are parsed without floating point, summed exactly whatever order months are
+     *                   aggregated in, and loaded into a {@link FixedPointStation} of int columns. A reading with
+     *                   a non-zero digit after the tenths is invalid. Otherwise rainfall is handled as doubles.
+     * @return Copy of LoadOptions with the value of fixedPoint.
+     */
+    public LoadOptions withFixedPoint(boolean fixedPoint) {
+        return new LoadOptions(unsortedInput, rejectDuplicateDays, lenient, runLengths, wetThreshold, fixedPoint, fromYear,
+                toYear, columns);
+    } // end withFixedPoint
+
+    /**
+     * @param fromYear The first year loaded into the Station, inclusive.
+     * @param toYear   The last year loaded into the Station, inclusive. Lines of other years in the analysed
+     *                 rainfall csv file are skipped by their year alone, or not read at all when the station's
+     *                 YearIndex is current. Raw rainfall data is still analysed in full.
+     * @return Copy of LoadOptions with the range of years.
+     */
+    public LoadOptions withYears(int fromYear, int toYear) {
+        if (fromYear > toYear) throw new IllegalArgumentException("fromYear is after toYear: " + fromYear + " > " + toYear);
+        return new LoadOptions(unsortedInput, rejectDuplicateDays, lenient, runLengths, wetThreshold, fixedPoint, fromYear,
+                toYear, columns);
+    } // end withYears
+
+    /**
+     * @param columns The columns loaded into the Station, the year and month are always loaded.
+     *                Other columns of the analysed rainfall csv file are neither parsed nor stored, and reading
+     *                them from the Station fails. By default every column is loaded.
+     * @return Copy of LoadOptions with the columns.
+     */
+    public LoadOptions withColumns(Column... columns) {
+        Set<Column> columnSet = EnumSet.noneOf(Column.class);
+        Collections.addAll(columnSet, columns);
+        return new LoadOptions(unsortedInput, rejectDuplicateDays, lenient, runLengths, wetThreshold, fixedPoint, fromYear,
+                toYear, Collections.unmodifiableSet(columnSet));
+    } // end withColumns
+
+    /**
+     * @return The value of unsortedInput.
+     */
+    public boolean isUnsortedInput() {
+        return unsortedInput;
+    } // end isUnsortedInput
+
+    /**
+     * @return The value of rejectDuplicateDays.
+     */
+    public boolean isRejectDuplicateDays() {
+        return rejectDuplicateDays;
+    } // end isRejectDuplicateDays
+
+    /**
+     * @return The value of lenient.
+     */
+    public boolean isLenient() {
+        return lenient;
+    } // end isLenient
+
+    /**
+     * @return The value of runLengths.
+     */
+    public boolean isRunLengths() {
+        return runLengths;
+    } // end isRunLengths
+
+    /**
+     * @return The value of wetThreshold.
+     */
+    public double getWetThreshold() {
+        return wetThreshold;
+    } // end getWetThreshold
+
+    /**
+     * @return The value of fixedPoint.
+     */
+    public boolean isFixedPoint() {
+        return fixedPoint;
+    } // end isFixedPoint
+
+    /**
+     * @return The value of fromYear, Integer.MIN_VALUE unless a range of years is loaded.
+     */
+    public int getFromYear() {
+        return fromYear;
+    } // end getFromYear
+
+    /**
+     * @return The value of toYear, Integer.MAX_VALUE unless a range of years is loaded.
+     */
+    public int getToYear() {
+        return toYear;
+    } // end getToYear
+
+    /**
+     * @return Whether only a range of years is loaded.
+     */
+    public boolean hasYearRange() {
+        return fromYear != Integer.MIN_VALUE || toYear != Integer.MAX_VALUE;
+    } // end hasYearRange
+
+    /**
+     * @return The columns loaded, unmodifiable.
+     */
+    public Set<Column> getColumns() {
+        return columns;
+    } // end getColumns
+
+    /**
+     * @param column The column.
+     * @return Whether the column is loaded.
+     */
+    public boolean hasColumn(Column column) {
+        return columns.contains(column);
+    } // end hasColumn
+
+    /**
+     * @return Whether only part of a station is loaded, some years or some columns.
+     */
+    public boolean isProjected() {
+        return hasYearRange() || columns.size() < Column.values().length;
+    } // end isProjected
+
+    /**
+     * @return A string representation of LoadOptions.
+     */
+    public String toString() {
+        return String.format("LoadOptions[unsortedInput=%b, rejectDuplicateDays=%b, lenient=%b, runLengths=%b, "
+                + "wetThreshold=%s, fixedPoint=%b, years=%d-%d, columns=%s]", unsortedInput, rejectDuplicateDays, lenient,
+                runLengths, wetThreshold, fixedPoint, fromYear, toYear, columns);
+    } // end toString
+
+} // end class LoadOptions
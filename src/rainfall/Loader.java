@@ -1,8 +1,31 @@
 package rainfall;
 
-import textio.TextIO;
-
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * An object of class Loader is used to load a Station object of Record objects from a csv file,
@@ -10,9 +33,19 @@ import java.io.File;
  */
 public class Loader {
 
+    private static final int BUFFER_SIZE = 64 * 1024; // Size of read buffers
+    // Suffixes of a station's analysed artefacts, kept beside its raw data or in an AnalysedCache entry
+    private static final String ANALYSED_FILE_SUFFIX = "_analysed.csv";
+    private static final String INDEX_FILE_SUFFIX = "_index.csv";
+    private static final String QUARANTINE_FILE_SUFFIX = "_quarantine.csv";
+    private static final String RUNS_FILE_SUFFIX = "_runs.csv";
+    private static final String SOURCES_FILE_SUFFIX = "_sources.csv";
+    // Extensions of raw rainfall data files, in the order they are looked for
+    private static final String[] RAW_DATA_EXTENSIONS = {".csv", ".csv.gz", ".zip"};
+
     /**
      * Method to load and return Station object from a valid analysed rainfall csv file location,
-     * If analysed doesn't exist will process raw rainfall data file first.
+     * If analysed doesn't exist, or raw rainfall data has been modified since, will process raw rainfall data file first.
      *
      * @param directoryName The path to the directory that the analysed rainfall csv file is located.
      * @param stationName   The name of the station that collected the associated rainfall data.
@@ -20,6 +53,24 @@ public class Loader {
      * @throws LoaderException If an exception occurs that cannot be handled.
      */
     public static Station load(String directoryName, String stationName) throws LoaderException {
+        return load(directoryName, stationName, LoadOptions.DEFAULT);
+    } // end load
+
+    /**
+     * Method to load and return Station object from a valid analysed rainfall csv file location,
+     * If analysed doesn't exist will process raw rainfall data file first using the given LoadOptions.
+     * Only the years and columns of the LoadOptions are loaded, a range of years is read through the station's
+     * YearIndex. The station catalog is only updated by loads of every year and column.
+     * A station is analysed once however many threads and processes load it at the same time, see {@link AnalysisLock},
+     * so a load joining another thread's analysis shares that analysis' LoadOptions.
+     *
+     * @param directoryName The path to the directory that the analysed rainfall csv file is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @param options       The LoadOptions used to analyse raw rainfall data and load the Station.
+     * @return Station object containing the Record objects requested from analysed rainfall csv.
+     * @throws LoaderException If an exception occurs that cannot be handled.
+     */
+    public static Station load(String directoryName, String stationName, LoadOptions options) throws LoaderException {
         // Check valid input
         if (directoryName.strip().equals("")) {
             throw new LoaderException("empty directory name");
@@ -27,148 +78,1061 @@ public class Loader {
             throw new LoaderException("empty station name");
         }
 
-        // Create analysedCSVFile
-        String pathToAnalysedCSVFile = String.format("%s/%s_analysed.csv", directoryName, stationName);
-        File analysedCSVFile = new File(pathToAnalysedCSVFile);
+        // Begin timing load, the event is only committed when a JFR recording has it enabled
+        LoadEvent loadEvent = new LoadEvent();
+        loadEvent.begin();
+
+        // Find raw data as csv, gzipped csv or zip archive, and the analysed file read for it
+        File rawDataFile = findRawDataFile(directoryName, stationName);
+        File analysedCSVFile = findAnalysedFile(directoryName, stationName, rawDataFile);
+        File sourceFile = analysedCSVFile; // File the Station was loaded from, for LoadEvent
+        AnalysisReport report = null;
+
+        if (isAnalysisNeeded(analysedCSVFile, rawDataFile)) {
+            if (rawDataFile == null) throw new LoaderException("rainfall file not found");
+
+            // Analyse rawDataFile, decompressing as it is read, unless another thread or process is analysing it
+            try {
+                report = AnalysisLock.analyseOnce(analysedCSVFile, () -> isAnalysisNeeded(analysedCSVFile, rawDataFile), () -> {
+                    AnalysisSources sources = AnalysisSources.of(Collections.singletonList(rawDataFile));
+                    try (InputStream rawData = openRawDataFile(rawDataFile, stationName)) {
+                        return analyseRawData(rawData, analysedCSVFile, stationName, rawDataFile.length(), sources,
+                                options);
+                    }
+                });
+            } catch (IOException error) { // error reading raw data
+                throw new LoaderException("unable to analyse rainfall file: " + error.getMessage());
+            }
+            if (report != null) sourceFile = rawDataFile;
+        }
+        // load analysed file, or just the lines of a range of years
+        Station station;
+        if (options.hasYearRange()) {
+            station = parseAnalysedYears(directoryName, stationName, analysedCSVFile, rawDataFile, options);
+        } else {
+            station = parseAnalysedFile(analysedCSVFile, stationName, options);
+            if (report != null) updateYearIndex(directoryName, stationName, analysedCSVFile, rawDataFile);
+        }
+        if (!options.isProjected()) { // catalog entries summarise whole stations
+            String stationNumber = report != null ? report.getStationNumber() : null;
+            updateCatalog(directoryName, stationName, stationNumber, rawDataFile, analysedCSVFile, station);
+        }
+
+        loadEvent.end();
+        if (loadEvent.shouldCommit()) {
+            loadEvent.stationName = stationName;
+            loadEvent.sourceType = sourceFile == analysedCSVFile ? "analysed" : getSourceType(sourceFile);
+            loadEvent.bytes = sourceFile.length();
+            loadEvent.months = station.getNumberOfRecords();
+            loadEvent.commit();
+        }
+        return station;
+    } // end load
+
+    /**
+     * Method to load the numbers of invalid raw rainfall records a lenient analysis of a station skipped,
+     * read from its quarantine csv file, so they are known whether a load analysed the station or found it current.
+     * A strict analysis has no skipped records, and removes the quarantine file of an earlier lenient analysis.
+     *
+     * @param directoryName The path to the directory that the raw rainfall data is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @return The number of records skipped by reason, such as "illegal day", empty if none were skipped.
+     * @throws LoaderException If the quarantine file cannot be read.
+     */
+    public static Map<String, Long> loadRejectedRows(String directoryName, String stationName) throws LoaderException {
+        try {
+            return QuarantineFileWriter.countRows(getQuarantineFile(directoryName, stationName).toPath());
+        } catch (IOException error) {
+            throw new LoaderException("unable to read quarantine file: " + error.getMessage());
+        }
+    } // end loadRejectedRows
+
+    /**
+     * Method to load the runs of dry and wet days of a station, from its runs file if it is current,
+     * otherwise by analysing its raw rainfall data again, which also updates its analysed rainfall csv file.
+     *
+     * @param directoryName The path to the directory that the raw rainfall data is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @param options       The LoadOptions of any analysis, giving the wet threshold. Input must be sorted by date.
+     * @return RunLengths of the station.
+     * @throws LoaderException If an exception occurs that cannot be handled.
+     */
+    public static RunLengths loadRunLengths(String directoryName, String stationName, LoadOptions options)
+            throws LoaderException {
+        if (options.isUnsortedInput()) throw new LoaderException("run lengths need raw rainfall data sorted by date");
+        File rawDataFile = findRawDataFile(directoryName, stationName);
+        if (rawDataFile == null) throw new LoaderException("rainfall file not found");
+        File runsFile = getRunLengthsFile(directoryName, stationName);
+        File analysedCSVFile = getAnalysedFile(directoryName, stationName);
+        RunLengths runLengths = readCurrentRunLengths(runsFile, analysedCSVFile, rawDataFile, options);
+        if (runLengths != null) return runLengths;
+
+        // Analyse rawDataFile again, finding run lengths as it streams through, unless another process finds them first
+        AnalysisReport report;
+        try {
+            report = AnalysisLock.analyseOnce(analysedCSVFile,
+                    () -> readCurrentRunLengths(runsFile, analysedCSVFile, rawDataFile, options) == null, () -> {
+                        AnalysisSources sources = AnalysisSources.of(Collections.singletonList(rawDataFile));
+                        try (InputStream rawData = openRawDataFile(rawDataFile, stationName)) {
+                            return analyseRawData(rawData, analysedCSVFile, stationName, rawDataFile.length(), sources,
+                                    options.withRunLengths(true));
+                        }
+                    });
+        } catch (IOException error) { // error reading raw data
+            throw new LoaderException("unable to analyse rainfall file: " + error.getMessage());
+        }
+        if (report == null) { // found by another process while waiting for the lock
+            runLengths = readCurrentRunLengths(runsFile, analysedCSVFile, rawDataFile, options);
+            if (runLengths == null) throw new LoaderException("unable to read runs file");
+            return runLengths;
+        }
+        if (report.getRunLengths() == null || report.getRunLengths().getWetThreshold() != options.getWetThreshold()) {
+            // Joined another thread's analysis, which didn't find these run lengths, so analyse again
+            return loadRunLengths(directoryName, stationName, options);
+        }
+        Station station = parseAnalysedFile(analysedCSVFile, stationName, LoadOptions.DEFAULT);
+        updateCatalog(directoryName, stationName, report.getStationNumber(), rawDataFile, analysedCSVFile, station);
+        updateYearIndex(directoryName, stationName, analysedCSVFile, rawDataFile);
+        return report.getRunLengths();
+    } // end loadRunLengths
+
+    /**
+     * Helper method to read a station's runs file if it is current, found with the wet threshold by the analysis
+     * that wrote the analysed rainfall csv file, which is itself current for the raw rainfall data.
+     *
+     * @param runsFile        The runs file of the station.
+     * @param analysedCSVFile The analysed rainfall csv file of the station.
+     * @param rawDataFile     The raw rainfall data file of the station.
+     * @param options         The LoadOptions giving the wet threshold.
+     * @return RunLengths read, or null if the runs file is missing, invalid or not current.
+     */
+    private static RunLengths readCurrentRunLengths(File runsFile, File analysedCSVFile, File rawDataFile,
+                                                    LoadOptions options) {
+        RunLengths runLengths = RunLengths.read(runsFile);
+        if (runLengths != null && runLengths.getWetThreshold() == options.getWetThreshold()
+                && runsFile.lastModified() >= analysedCSVFile.lastModified()
+                && !isAnalysisNeeded(analysedCSVFile, rawDataFile)) {
+            return runLengths;
+        }
+        return null;
+    } // end readCurrentRunLengths
 
-        if (!analysedCSVFile.exists()) {
+    /**
+     * Method to load and return Station object holding only a range of years, reading only the lines of those years
+     * from the analysed rainfall csv file through the station's YearIndex. The station is analysed first if needed,
+     * and its YearIndex is built if missing or out of date. Equivalent to load with {@link LoadOptions#withYears}.
+     *
+     * @param directoryName The path to the directory that the analysed rainfall csv file is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @param fromYear      The first year to load, inclusive.
+     * @param toYear        The last year to load, inclusive.
+     * @return Station object containing the Record objects of the years, which may be none.
+     * @throws LoaderException If an exception occurs that cannot be handled.
+     */
+    public static Station loadYears(String directoryName, String stationName, int fromYear, int toYear)
+            throws LoaderException {
+        return load(directoryName, stationName, LoadOptions.DEFAULT.withYears(fromYear, toYear));
+    } // end loadYears
 
-            // Create rawDataCSVFile
-            String pathToRawDataCSVFile = String.format("%s/%s.csv", directoryName, stationName);
-            File rawDataCSVFile = new File(pathToRawDataCSVFile);
+    /**
+     * Method to load and return Station object from several raw rainfall data files of one station,
+     * such as an old download and yearly refreshes with overlapping date ranges. Each file must be sorted by date,
+     * files are merged by date as they are read and where files hold the same day the most recently modified
+     * file's record is kept, or the later file in rawDataFiles if modified at the same time.
+     * The merged data is analysed into the station's analysed rainfall csv file, recording the set of files merged,
+     * which is analysed again whenever the set differs or any of its files has changed, so a load of the station's
+     * single raw file after a merged load, or the reverse, analyses again rather than returning the other's data.
+     *
+     * @param directoryName The path to the directory that the analysed rainfall csv file is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @param rawDataFiles  The raw rainfall data files, as csv files, gzipped csv files or zip archives.
+     * @param options       The LoadOptions used to analyse raw rainfall data.
+     * @return Station object containing all Record objects from analysed rainfall csv.
+     * @throws LoaderException If an exception occurs that cannot be handled.
+     */
+    public static Station load(String directoryName, String stationName, List<File> rawDataFiles, LoadOptions options)
+            throws LoaderException {
+        // Check valid input
+        if (directoryName.strip().equals("")) {
+            throw new LoaderException("empty directory name");
+        } else if (stationName.strip().equals("")) {
+            throw new LoaderException("empty station name");
+        } else if (rawDataFiles.isEmpty()) {
+            throw new LoaderException("no rainfall files");
+        }
+        for (File rawDataFile : rawDataFiles) {
+            if (!rawDataFile.exists()) throw new LoaderException("rainfall file not found: " + rawDataFile.getName());
+        }
 
-            if (!rawDataCSVFile.exists()) throw new LoaderException("rainfall file not found");
+        LoadEvent loadEvent = new LoadEvent();
+        loadEvent.begin();
 
-            // Analyse rawDataCSVFile
-            TextIO.readFile(pathToRawDataCSVFile);
+        // Order files by increasing priority, the sort is stable so list order breaks ties
+        List<File> filesByPriority = new ArrayList<>(rawDataFiles);
+        filesByPriority.sort(Comparator.comparingLong(File::lastModified));
+        File newestFile = filesByPriority.get(filesByPriority.size() - 1);
+        long bytes = 0;
+        for (File rawDataFile : filesByPriority) bytes += rawDataFile.length();
+
+        File analysedCSVFile = getAnalysedFile(directoryName, stationName);
+        AnalysisReport report = null;
+        if (isAnalysisNeeded(analysedCSVFile, filesByPriority)) {
+            // Merge unless another thread or process is analysing the station
+            long mergedBytes = bytes;
             try {
-                initialiseOutFile(pathToRawDataCSVFile);
-                analyseDataset(pathToAnalysedCSVFile);
-            } catch (AnalysisException error) { // error analysing raw data
-                File outFile = new File(pathToAnalysedCSVFile); // delete failed analysed file
-                outFile.deleteOnExit();
-                throw new LoaderException(error.getMessage());
+                report = AnalysisLock.analyseOnce(analysedCSVFile, () -> isAnalysisNeeded(analysedCSVFile, filesByPriority),
+                        () -> analyseMergedFiles(filesByPriority, analysedCSVFile, stationName, mergedBytes,
+                                AnalysisSources.of(filesByPriority), options));
+            } catch (IOException error) { // error reading raw data
+                throw new LoaderException("unable to analyse rainfall file: " + error.getMessage());
             }
         }
-        // load analysed file
-        TextIO.readFile((pathToAnalysedCSVFile));
-        Station station = loadStation();
-        if (station == null) throw new LoaderException("empty analysedCSVFile");
+        Station station = parseAnalysedFile(analysedCSVFile, stationName, options);
+        if (!options.isProjected()) { // catalog entries summarise whole stations
+            String stationNumber = report != null ? report.getStationNumber() : null;
+            updateCatalog(directoryName, stationName, stationNumber, newestFile, analysedCSVFile, station);
+        }
+
+        loadEvent.end();
+        if (loadEvent.shouldCommit()) {
+            loadEvent.stationName = stationName;
+            loadEvent.sourceType = report != null ? "merged" : "analysed";
+            loadEvent.bytes = report != null ? bytes : analysedCSVFile.length();
+            loadEvent.months = station.getNumberOfRecords();
+            loadEvent.commit();
+        }
         return station;
     } // end load
 
     /**
-     * Helper method to read analysed rainfall csv and generate Station object.
+     * Method to load every station in a zip archive of raw rainfall csv files,
+     * entries are decompressed and analysed in parallel, each station's analysed rainfall csv file
+     * is written to the archive's directory and stations already analysed are not analysed again.
      *
-     * @return Loaded Station object.
+     * @param directoryName The path to the directory that the zip archive is located.
+     * @param bundleName    The name of the zip archive, without the ".zip" extension.
+     * @return Map of station name, taken from each csv entry's file name, to loaded Station object.
+     * @throws LoaderException If any station in the archive cannot be loaded.
      */
-    private static Station loadStation() {
-        // Set index of values
-        final int INDEX_OF_YEAR = 0;
-        final int INDEX_OF_MONTH = 1;
-        final int INDEX_OF_RAINFALL_TOTAL = 2;
-        final int INDEX_OF_RAINFALL_MIN = 3;
-        final int INDEX_OF_RAINFALL_MAX = 4;
+    public static Map<String, Station> loadBundle(String directoryName, String bundleName) throws LoaderException {
+        return loadBundle(directoryName, bundleName, LoadOptions.DEFAULT);
+    } // end loadBundle
 
-        // Check analysedCSVFile is not empty
-        if (readNextLine() == null) return null;
-
-        Station station = new Station();
-        // Read first line
-        String[] analysedRecord = readNextLine();
-        while (analysedRecord != null) {
-            // Convert values from strings
-            int year = Integer.parseInt(analysedRecord[INDEX_OF_YEAR]);
-            int month = Integer.parseInt(analysedRecord[INDEX_OF_MONTH]);
-            double rainfallTotal = Double.parseDouble(analysedRecord[INDEX_OF_RAINFALL_TOTAL]);
-            double rainfallMin = Double.parseDouble(analysedRecord[INDEX_OF_RAINFALL_MIN]);
-            double rainfallMax = Double.parseDouble(analysedRecord[INDEX_OF_RAINFALL_MAX]);
-
-            // Create Record and add to Station
-            Record record = new Record(year, month, rainfallTotal, rainfallMin, rainfallMax);
-            station.addRecord(record);
-
-            // Get next line
-            analysedRecord = readNextLine();
+    /**
+     * Method to load every station in a zip archive of raw rainfall csv files, analysing raw rainfall data
+     * using the given LoadOptions.
+     *
+     * @param directoryName The path to the directory that the zip archive is located.
+     * @param bundleName    The name of the zip archive, without the ".zip" extension.
+     * @param options       The LoadOptions used to analyse raw rainfall data.
+     * @return Map of station name, taken from each csv entry's file name, to loaded Station object.
+     * @throws LoaderException If any station in the archive cannot be loaded.
+     */
+    public static Map<String, Station> loadBundle(String directoryName, String bundleName, LoadOptions options)
+            throws LoaderException {
+        // Check valid input
+        if (directoryName.strip().equals("")) {
+            throw new LoaderException("empty directory name");
+        } else if (bundleName.strip().equals("")) {
+            throw new LoaderException("empty bundle name");
+        }
+
+        File bundleFile = new File(String.format("%s/%s.zip", directoryName, bundleName));
+        if (!bundleFile.exists()) throw new LoaderException("rainfall bundle not found");
+
+        Map<String, Station> stations = new TreeMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try (ZipFile bundle = new ZipFile(bundleFile)) {
+            // Submit a task per csv entry, ZipFile allows entries to be inflated concurrently
+            Map<String, Future<Station>> pendingStations = new TreeMap<>();
+            Enumeration<? extends ZipEntry> entries = bundle.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().endsWith(".csv")) continue;
+
+                String entryName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                String stationName = entryName.substring(0, entryName.length() - ".csv".length());
+                File analysedCSVFile = getAnalysedFile(directoryName, stationName);
+                pendingStations.put(stationName, executor.submit(() -> {
+                    String stationNumber = null;
+                    if (isAnalysisNeeded(analysedCSVFile, bundleFile)) {
+                        AnalysisReport report = AnalysisLock.analyseOnce(analysedCSVFile,
+                                () -> isAnalysisNeeded(analysedCSVFile, bundleFile), () -> {
+                                    AnalysisSources sources = AnalysisSources.of(Collections.singletonList(bundleFile));
+                                    try (InputStream rawData = bundle.getInputStream(entry)) {
+                                        return analyseRawData(rawData, analysedCSVFile, stationName,
+                                                entry.getCompressedSize(), sources, options);
+                                    }
+                                });
+                        if (report != null) stationNumber = report.getStationNumber();
+                    }
+                    Station station = parseAnalysedFile(analysedCSVFile, stationName, options);
+                    if (!options.isProjected()) { // catalog entries summarise whole stations
+                        updateCatalog(directoryName, stationName, stationNumber, bundleFile, analysedCSVFile, station);
+                    }
+                    return station;
+                }));
+            }
+
+            // Collect results in station name order
+            for (Map.Entry<String, Future<Station>> pendingStation : pendingStations.entrySet()) {
+                try {
+                    stations.put(pendingStation.getKey(), pendingStation.getValue().get());
+                } catch (ExecutionException error) {
+                    throw new LoaderException(pendingStation.getKey() + ": " + error.getCause().getMessage());
+                }
+            }
+        } catch (IOException error) { // error opening bundle
+            throw new LoaderException("unable to read rainfall bundle: " + error.getMessage());
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            throw new LoaderException("interrupted loading rainfall bundle");
+        } finally {
+            executor.shutdownNow();
+        }
+        return stations;
+    } // end loadBundle
+
+    /**
+     * Helper method to merge several raw rainfall data files of one station by date, analysing the merged data
+     * into an analysed rainfall csv file.
+     *
+     * @param filesByPriority The raw rainfall data files, in increasing priority.
+     * @param analysedCSVFile The analysed rainfall csv file to write.
+     * @param stationName     The name of the station, for AnalysisEvent.
+     * @param bytes           The total size of the raw rainfall data files, for AnalysisEvent.
+     * @param sources         The AnalysisSources to record, fingerprinted before the files are read.
+     * @param options         The LoadOptions of the analysis.
+     * @return AnalysisReport of the analysis, including days replaced by higher priority files.
+     * @throws LoaderException If the raw data is invalid or the analysed file cannot be written.
+     * @throws IOException     If the raw data cannot be read.
+     */
+    private static AnalysisReport analyseMergedFiles(List<File> filesByPriority, File analysedCSVFile, String stationName,
+                                                     long bytes, AnalysisSources sources, LoadOptions options)
+            throws LoaderException, IOException {
+        // Open every file before merging, closing those already opened if one fails
+        List<BufferedReader> readers = new ArrayList<>();
+        try {
+            for (File rawDataFile : filesByPriority) {
+                readers.add(new BufferedReader(new InputStreamReader(openRawDataFile(rawDataFile, stationName),
+                        StandardCharsets.UTF_8), BUFFER_SIZE));
+            }
+        } catch (IOException error) {
+            for (BufferedReader in : readers) {
+                try {
+                    in.close();
+                } catch (IOException ignored) { // already failing
+                }
+            }
+            throw error;
+        }
+
+        List<String> sourceNames = new ArrayList<>();
+        for (File rawDataFile : filesByPriority) sourceNames.add(rawDataFile.getName());
+        try (RawDataMerger merger = new RawDataMerger(readers, sourceNames)) {
+            AnalysisReport report = analyseRawData(merger, analysedCSVFile, stationName, bytes, sources, options);
+            report.setReplacedDays(merger.getReplacedDays());
+            return report;
+        }
+    } // end analyseMergedFiles
+
+    /**
+     * Helper method to analyse raw rainfall data into an analysed rainfall csv file.
+     *
+     * @param rawData         The stream of raw rainfall csv data, already decompressed.
+     * @param analysedCSVFile The analysed rainfall csv file to write.
+     * @param stationName     The name of the station, for AnalysisEvent.
+     * @param bytes           The size of the raw rainfall data file, for AnalysisEvent.
+     * @param sources         The AnalysisSources to record, fingerprinted before the data is read.
+     * @param options         The LoadOptions of the analysis.
+     * @return AnalysisReport of the analysis.
+     * @throws LoaderException If the raw data is invalid or the analysed file cannot be written.
+     * @throws IOException     If the raw data cannot be read.
+     */
+    private static AnalysisReport analyseRawData(InputStream rawData, File analysedCSVFile, String stationName, long bytes,
+                                                 AnalysisSources sources, LoadOptions options)
+            throws LoaderException, IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(rawData, StandardCharsets.UTF_8), BUFFER_SIZE);
+        // Check file is not empty and remove header
+        if (readNextLine(in) == null) throw new LoaderException("empty rawDataCSVFile");
+        return analyseRawData(() -> readNextLine(in), analysedCSVFile, stationName, bytes, sources, options);
+    } // end analyseRawData
+
+    /**
+     * Helper method to analyse raw rainfall records into an analysed rainfall csv file.
+     *
+     * @param rawRecords      The reader of raw rainfall records, positioned after any header.
+     * @param analysedCSVFile The analysed rainfall csv file to write.
+     * @param stationName     The name of the station, for AnalysisEvent.
+     * @param bytes           The size of the raw rainfall data, for AnalysisEvent.
+     * @param sources         The AnalysisSources to record, fingerprinted before the data is read.
+     * @param options         The LoadOptions of the analysis.
+     * @return AnalysisReport of the analysis.
+     * @throws LoaderException If the raw data is invalid or the analysed file cannot be written.
+     * @throws IOException     If the raw data cannot be read.
+     */
+    private static AnalysisReport analyseRawData(RawRecordReader rawRecords, File analysedCSVFile, String stationName,
+                                                 long bytes, AnalysisSources sources, LoadOptions options)
+            throws LoaderException, IOException {
+        AnalysisEvent analysisEvent = new AnalysisEvent();
+        analysisEvent.begin();
+        // Write to a temporary file that replaces analysedCSVFile only once analysis succeeds
+        File quarantineFile = new File(analysedCSVFile.getParentFile(), stationName + QUARANTINE_FILE_SUFFIX);
+        try (AnalysedFileWriter writer = new AnalysedFileWriter(analysedCSVFile.toPath());
+             QuarantineFileWriter quarantine = new QuarantineFileWriter(quarantineFile.toPath())) {
+            AnalysisReport report = new AnalysisReport();
+            analyseDataset(rawRecords, writer, options, report, quarantine);
+            writer.commit();
+            sources.write(getSourcesFile(analysedCSVFile));
+            quarantine.commit(); // replaces or removes an earlier analysis's quarantine, a strict one skips nothing
+            if (report.getRunLengths() != null) {
+                report.getRunLengths().write(new File(analysedCSVFile.getParentFile(), stationName + RUNS_FILE_SUFFIX));
+            }
+            updateAnalysedCache(analysedCSVFile);
+            analysisEvent.end();
+            if (analysisEvent.shouldCommit()) {
+                analysisEvent.stationName = stationName;
+                analysisEvent.bytes = bytes;
+                analysisEvent.months = report.getMonths();
+                analysisEvent.rejectedRows = report.getRejectedRows();
+                analysisEvent.commit();
+            }
+            return report;
+        } catch (AnalysisException error) { // error analysing raw data
+            throw new LoaderException(error.getMessage());
+        }
+    } // end analyseRawData
+
+    /**
+     * Helper method to parse the lines of a range of years of an analysed rainfall csv file into a Station object,
+     * reading only those lines through the station's YearIndex, which is built if missing or out of date.
+     *
+     * @param directoryName   The path to the directory of the station.
+     * @param stationName     The name of the station.
+     * @param analysedCSVFile The analysed rainfall csv file to parse.
+     * @param rawDataFile     The raw rainfall data file, or null if there is none.
+     * @param options         The LoadOptions giving the years and columns to load, and whether rainfall is fixed point.
+     * @return Loaded Station object, which may have no Records.
+     * @throws LoaderException If the analysed file cannot be indexed or read.
+     */
+    private static Station parseAnalysedYears(String directoryName, String stationName, File analysedCSVFile,
+                                              File rawDataFile, LoadOptions options) throws LoaderException {
+        YearIndex yearIndex = YearIndex.read(getIndexFile(directoryName, stationName));
+        if (yearIndex == null || !yearIndex.isCurrent(analysedCSVFile, rawDataFile)) {
+            yearIndex = updateYearIndex(directoryName, stationName, analysedCSVFile, rawDataFile);
+        }
+        if (yearIndex == null) throw new LoaderException("unable to index analysedCSVFile");
+
+        ParseEvent parseEvent = new ParseEvent();
+        parseEvent.begin();
+        long[] range = yearIndex.getAnalysedRange(options.getFromYear(), options.getToYear());
+        StationBuilder stationBuilder = new StationBuilder(options.isFixedPoint(), options.getColumns());
+        try (RandomAccessFile in = new RandomAccessFile(analysedCSVFile, "r")) {
+            // Read just the bytes of the years, lines start at indexed offsets
+            byte[] lines = new byte[(int) (range[1] - range[0])];
+            in.seek(range[0]);
+            in.readFully(lines);
+            readRecords(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(lines), StandardCharsets.UTF_8)),
+                    stationBuilder, options);
+        } catch (IOException | NumberFormatException | IndexOutOfBoundsException error) { // changed while reading, or unreadable
+            throw new LoaderException("unable to read analysedCSVFile: " + error.getMessage());
+        }
+        Station station = stationBuilder.build();
+        parseEvent.end();
+        if (parseEvent.shouldCommit()) {
+            parseEvent.stationName = stationName;
+            parseEvent.bytes = range[1] - range[0];
+            parseEvent.months = station.getNumberOfRecords();
+            parseEvent.commit();
         }
         return station;
+    } // end parseAnalysedYears
+
+    /**
+     * Helper method to parse an analysed rainfall csv file into a Station object.
+     *
+     * @param analysedCSVFile The analysed rainfall csv file to parse.
+     * @param stationName     The name of the station, for ParseEvent.
+     * @param options         The LoadOptions giving the years and columns to load, and whether rainfall is fixed point.
+     * @return Loaded Station object.
+     * @throws LoaderException If the analysed file is empty or cannot be read.
+     */
+    private static Station parseAnalysedFile(File analysedCSVFile, String stationName, LoadOptions options)
+            throws LoaderException {
+        ParseEvent parseEvent = new ParseEvent();
+        parseEvent.begin();
+        Station station;
+        try (BufferedReader in = new BufferedReader(new FileReader(analysedCSVFile, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            station = loadStation(in, options);
+        } catch (IOException | NumberFormatException | IndexOutOfBoundsException error) {
+            throw new LoaderException("unable to read analysedCSVFile: " + error.getMessage());
+        }
+        if (station == null) throw new LoaderException("empty analysedCSVFile");
+        parseEvent.end();
+        if (parseEvent.shouldCommit()) {
+            parseEvent.stationName = stationName;
+            parseEvent.bytes = analysedCSVFile.length();
+            parseEvent.months = station.getNumberOfRecords();
+            parseEvent.commit();
+        }
+        return station;
+    } // end parseAnalysedFile
+
+    /**
+     * Helper method to add or refresh a station's entry in its directory's StationCatalog,
+     * if the catalog is missing the entry or it summarises an older analysed rainfall csv file.
+     * The catalog is advisory, so failing to update it does not fail the load.
+     *
+     * @param directoryName   The path to the directory of the station.
+     * @param stationName     The name of the station.
+     * @param stationNumber   The BOM station number from analysis, or null if the station was not analysed.
+     * @param rawDataFile     The raw rainfall data file, or null if there is none.
+     * @param analysedCSVFile The analysed rainfall csv file the station was loaded from.
+     * @param station         The loaded Station object.
+     */
+    static void updateCatalog(String directoryName, String stationName, String stationNumber,
+                              File rawDataFile, File analysedCSVFile, Station station) {
+        try {
+            FileFingerprint analysedFingerprint = FileFingerprint.of(analysedCSVFile);
+            StationCatalog.Entry entry = StationCatalog.read(directoryName).getEntry(stationName);
+            if (entry != null && analysedFingerprint.equals(entry.getAnalysedFingerprint())) return; // up to date
+
+            // Find station number from previous entry or raw data if not analysed just now
+            if (stationNumber == null && entry != null) stationNumber = entry.getStationNumber();
+            if (stationNumber == null) stationNumber = readStationNumber(rawDataFile, stationName);
+
+            FileFingerprint rawFingerprint = rawDataFile == null ? null : FileFingerprint.of(rawDataFile);
+            StationCatalog.update(directoryName,
+                    StationCatalog.Entry.of(stationName, stationNumber, rawFingerprint, analysedFingerprint, station));
+        } catch (IOException ignored) { // catalog left as it was, e.g. read-only directory
+        }
+    } // end updateCatalog
+
+    /**
+     * Helper method to build and persist the YearIndex of a station's files.
+     * The index is advisory, so failing to write it does not fail the load.
+     *
+     * @param directoryName   The path to the directory of the station.
+     * @param stationName     The name of the station.
+     * @param analysedCSVFile The analysed rainfall csv file.
+     * @param rawDataFile     The raw rainfall data file, or null if there is none.
+     * @return The YearIndex built, or null if the files cannot be indexed.
+     */
+    static YearIndex updateYearIndex(String directoryName, String stationName, File analysedCSVFile, File rawDataFile) {
+        YearIndex yearIndex;
+        try {
+            yearIndex = YearIndex.build(analysedCSVFile, rawDataFile);
+        } catch (IOException error) {
+            return null;
+        }
+        try {
+            File indexFile = getIndexFile(directoryName, stationName);
+            yearIndex.write(indexFile);
+            updateAnalysedCache(indexFile);
+        } catch (IOException | LoaderException ignored) { // used without persisting, e.g. read-only directory
+        }
+        return yearIndex;
+    } // end updateYearIndex
+
+    /**
+     * Helper method to read the BOM station number from the first record of raw rainfall data.
+     *
+     * @param rawDataFile The raw rainfall data file, or null if there is none.
+     * @param stationName The name of the station that collected the associated rainfall data.
+     * @return The station number, or "" if it cannot be read.
+     */
+    private static String readStationNumber(File rawDataFile, String stationName) {
+        final int INDEX_OF_STATION_NUMBER = 1;
+        if (rawDataFile == null) return "";
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(openRawDataFile(rawDataFile, stationName),
+                StandardCharsets.UTF_8))) {
+            readNextLine(in); // skip header
+            String[] rainfallRecord = readNextLine(in);
+            return rainfallRecord == null || rainfallRecord.length <= INDEX_OF_STATION_NUMBER ? ""
+                    : rainfallRecord[INDEX_OF_STATION_NUMBER];
+        } catch (IOException error) {
+            return "";
+        }
+    } // end readStationNumber
+
+    /**
+     * Helper method to find the analysed rainfall csv file of a station, which may not exist yet.
+     *
+     * @param directoryName The path to the directory that the analysed rainfall csv file is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @return The analysed rainfall csv file.
+     * @throws LoaderException If the default AnalysedCache is unusable.
+     */
+    static File getAnalysedFile(String directoryName, String stationName) throws LoaderException {
+        return new File(getArtefactDirectory(directoryName, stationName), stationName + ANALYSED_FILE_SUFFIX);
+    } // end getAnalysedFile
+
+    /**
+     * Helper method to find the analysed rainfall csv file a station is read from. This is the station's analysed file,
+     * except when an AnalysedCache has no analysed file for the station yet and one beside the raw rainfall data is
+     * current, as in a data directory analysed before the cache was configured or holding analysed files only.
+     *
+     * @param directoryName The path to the directory that the raw rainfall data is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @param rawDataFile   The raw rainfall data file, or null if there is none.
+     * @return The analysed rainfall csv file to read, which may not exist yet.
+     * @throws LoaderException If the default AnalysedCache is unusable.
+     */
+    static File findAnalysedFile(String directoryName, String stationName, File rawDataFile) throws LoaderException {
+        File analysedCSVFile = getAnalysedFile(directoryName, stationName);
+        File besideRawData = new File(directoryName, stationName + ANALYSED_FILE_SUFFIX);
+        if (analysedCSVFile.exists() || analysedCSVFile.equals(besideRawData) || !besideRawData.exists()) {
+            return analysedCSVFile;
+        }
+        return isAnalysisNeeded(besideRawData, rawDataFile) ? analysedCSVFile : besideRawData;
+    } // end findAnalysedFile
+
+    /**
+     * Helper method to find the YearIndex file of a station, which may not exist yet.
+     *
+     * @param directoryName The path to the directory that the analysed rainfall csv file is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @return The YearIndex file.
+     * @throws LoaderException If the default AnalysedCache is unusable.
+     */
+    static File getIndexFile(String directoryName, String stationName) throws LoaderException {
+        return new File(getArtefactDirectory(directoryName, stationName), stationName + INDEX_FILE_SUFFIX);
+    } // end getIndexFile
+
+    /**
+     * Helper method to find the quarantine csv file of invalid raw rainfall records skipped by a lenient analysis
+     * of a station, which may not exist.
+     *
+     * @param directoryName The path to the directory that the analysed rainfall csv file is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @return The quarantine csv file.
+     * @throws LoaderException If the default AnalysedCache is unusable.
+     */
+    static File getQuarantineFile(String directoryName, String stationName) throws LoaderException {
+        return new File(getArtefactDirectory(directoryName, stationName), stationName + QUARANTINE_FILE_SUFFIX);
+    } // end getQuarantineFile
+
+    /**
+     * Helper method to find the runs file of a station's dry and wet run lengths, which may not exist.
+     *
+     * @param directoryName The path to the directory that the analysed rainfall csv file is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @return The runs file.
+     * @throws LoaderException If the default AnalysedCache is unusable.
+     */
+    static File getRunLengthsFile(String directoryName, String stationName) throws LoaderException {
+        return new File(getArtefactDirectory(directoryName, stationName), stationName + RUNS_FILE_SUFFIX);
+    } // end getRunLengthsFile
+
+    /**
+     * Helper method to find the directory of a station's analysed artefacts, its entry directory in the default
+     * AnalysedCache if one is configured, otherwise the directory of its raw rainfall data.
+     *
+     * @param directoryName The path to the directory of the station's raw rainfall data.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @return The directory of the station's analysed artefacts, which may not exist yet.
+     * @throws LoaderException If the default AnalysedCache is unusable.
+     */
+    private static File getArtefactDirectory(String directoryName, String stationName) throws LoaderException {
+        AnalysedCache cache;
+        try {
+            cache = AnalysedCache.getDefault();
+        } catch (IOException error) {
+            throw new LoaderException(error.getMessage());
+        }
+        return cache == null ? new File(directoryName) : cache.getEntryDirectory(directoryName, stationName);
+    } // end getArtefactDirectory
+
+    /**
+     * Helper method to record an analysed artefact just written in the default AnalysedCache, if one is configured,
+     * which may evict the artefacts of other stations to stay within its byte budget.
+     *
+     * @param artefactFile The analysed artefact written.
+     * @throws IOException If the default AnalysedCache is unusable.
+     */
+    static void updateAnalysedCache(File artefactFile) throws IOException {
+        AnalysedCache cache = AnalysedCache.getDefault();
+        if (cache != null) cache.update(artefactFile);
+    } // end updateAnalysedCache
+
+    /**
+     * Helper method to find the sources file recording the raw rainfall data an analysed rainfall csv file
+     * was analysed from, beside the analysed file.
+     *
+     * @param analysedCSVFile The analysed rainfall csv file.
+     * @return The sources file.
+     */
+    static File getSourcesFile(File analysedCSVFile) {
+        String analysedName = analysedCSVFile.getName();
+        String stationName = analysedName.substring(0, analysedName.length() - ANALYSED_FILE_SUFFIX.length());
+        return new File(analysedCSVFile.getParentFile(), stationName + SOURCES_FILE_SUFFIX);
+    } // end getSourcesFile
+
+    /**
+     * Helper method to find the station name of a raw rainfall data file in a directory listing.
+     *
+     * @param fileName The name of the file.
+     * @return The station name, or null if the file is not raw rainfall data, such as an analysed or index file.
+     */
+    static String getRawDataStationName(String fileName) {
+        if (fileName.endsWith(ANALYSED_FILE_SUFFIX) || fileName.endsWith(INDEX_FILE_SUFFIX)
+                || fileName.endsWith(QUARANTINE_FILE_SUFFIX) || fileName.endsWith(RUNS_FILE_SUFFIX)
+                || fileName.endsWith(SOURCES_FILE_SUFFIX) || fileName.equals(StationCatalog.MANIFEST_FILE_NAME)) {
+            return null;
+        }
+        for (String extension : RAW_DATA_EXTENSIONS) {
+            if (fileName.endsWith(extension)) return fileName.substring(0, fileName.length() - extension.length());
+        }
+        return null;
+    } // end getRawDataStationName
+
+    /**
+     * Helper method to find the station name of a raw rainfall data file or an analysed rainfall csv file
+     * in a directory listing, so stations with analysed data only are found too.
+     *
+     * @param fileName The name of the file.
+     * @return The station name, or null if the file is neither raw rainfall data nor an analysed rainfall csv file.
+     */
+    static String getStationName(String fileName) {
+        if (fileName.endsWith(ANALYSED_FILE_SUFFIX)) {
+            return fileName.substring(0, fileName.length() - ANALYSED_FILE_SUFFIX.length());
+        }
+        return getRawDataStationName(fileName);
+    } // end getStationName
+
+    /**
+     * Helper method to find a station's raw rainfall data, either as a csv file,
+     * a gzipped csv file or a zip archive as downloaded from the BOM.
+     *
+     * @param directoryName The path to the directory that the raw rainfall data is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @return The raw rainfall data file, or null if none exists.
+     */
+    static File findRawDataFile(String directoryName, String stationName) {
+        for (String extension : RAW_DATA_EXTENSIONS) {
+            File rawDataFile = new File(String.format("%s/%s%s", directoryName, stationName, extension));
+            if (rawDataFile.exists()) return rawDataFile;
+        }
+        return null;
+    } // end findRawDataFile
+
+    /**
+     * Helper method to open a raw rainfall data file as a stream of csv data, decompressing if required.
+     * From a zip archive the entry named after the station is read, otherwise its BOM "_Data.csv" entry
+     * or its only csv entry.
+     *
+     * @param rawDataFile The raw rainfall data file found by findRawDataFile.
+     * @param stationName The name of the station that collected the associated rainfall data.
+     * @return Stream of raw rainfall csv data.
+     * @throws IOException If the file cannot be read or a zip archive has no matching csv entry.
+     */
+    static InputStream openRawDataFile(File rawDataFile, String stationName) throws IOException {
+        if (getSourceType(rawDataFile).equals("zip")) return openZipEntry(rawDataFile, stationName);
+        InputStream in = new BufferedInputStream(new FileInputStream(rawDataFile), BUFFER_SIZE);
+        try {
+            return getSourceType(rawDataFile).equals("gzip") ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+        } catch (IOException error) {
+            in.close();
+            throw error;
+        }
+    } // end openRawDataFile
+
+    /**
+     * Helper method to open the csv entry of a zip archive holding a station's raw data, the entry named exactly
+     * after the station, otherwise its BOM "_Data.csv" entry or its only csv entry.
+     *
+     * @param rawDataFile The zip archive.
+     * @param stationName The name of the station that collected the associated rainfall data.
+     * @return Stream of the matching csv entry, which closes the archive when closed.
+     * @throws IOException If the archive cannot be read or has no matching csv entry.
+     */
+    private static InputStream openZipEntry(File rawDataFile, String stationName) throws IOException {
+        ZipFile zipFile = new ZipFile(rawDataFile);
+        try {
+            // Choose entry from the central directory
+            List<ZipEntry> csvEntries = new ArrayList<>();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && entry.getName().endsWith(".csv")) csvEntries.add(entry);
+            }
+            ZipEntry chosenEntry = null;
+            for (ZipEntry entry : csvEntries) {
+                String baseName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                if (baseName.equals(stationName + ".csv")) {
+                    chosenEntry = entry;
+                    break;
+                }
+            }
+            if (chosenEntry == null) {
+                for (ZipEntry entry : csvEntries) {
+                    if (entry.getName().endsWith("_Data.csv")) {
+                        chosenEntry = entry;
+                        break;
+                    }
+                }
+            }
+            if (chosenEntry == null && csvEntries.size() == 1) chosenEntry = csvEntries.get(0);
+            if (chosenEntry == null) {
+                throw new IOException("no rainfall csv for " + stationName + " in " + rawDataFile.getName());
+            }
+
+            // Read the entry directly, closing the archive with it
+            return new FilterInputStream(new BufferedInputStream(zipFile.getInputStream(chosenEntry), BUFFER_SIZE)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        zipFile.close();
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException error) {
+            zipFile.close();
+            throw error;
+        }
+    } // end openZipEntry
+
+    /**
+     * Helper method to describe the type of a raw rainfall data file from its extension.
+     *
+     * @param rawDataFile The raw rainfall data file.
+     * @return "zip", "gzip" or "raw" for an uncompressed csv file.
+     */
+    private static String getSourceType(File rawDataFile) {
+        if (rawDataFile.getName().endsWith(".zip")) return "zip";
+        if (rawDataFile.getName().endsWith(".gz")) return "gzip";
+        return "raw";
+    } // end getSourceType
+
+    /**
+     * Helper method to read analysed rainfall csv and generate Station object.
+     *
+     * @param in      The reader of the analysed rainfall csv file.
+     * @param options The LoadOptions giving the years and columns to load, and whether rainfall is fixed point.
+     * @return Loaded Station object.
+     * @throws IOException If the analysed rainfall csv file cannot be read.
+     */
+    private static Station loadStation(BufferedReader in, LoadOptions options) throws IOException {
+        // Check analysedCSVFile is not empty
+        if (readNextLine(in) == null) return null;
+
+        StationBuilder stationBuilder = new StationBuilder(options.isFixedPoint(), options.getColumns());
+        readRecords(in, stationBuilder, options);
+        return stationBuilder.build();
     } // end loadStation
 
+    /**
+     * Helper method to read lines of an analysed rainfall csv file into a StationBuilder, keeping only the years and
+     * columns of the LoadOptions. The year at the start of each line is compared before the rest of the line is
+     * parsed, and reading stops at the first later year as lines are in date order. Values of columns not
+     * requested are skipped over without being parsed.
+     *
+     * @param in             The reader of the analysed rainfall csv file, positioned at the start of a line after the header.
+     * @param stationBuilder The StationBuilder to add records to, of the columns requested.
+     * @param options        The LoadOptions giving the years and columns to read.
+     * @throws IOException If there is an error reading the analysed rainfall csv file.
+     */
+    private static void readRecords(BufferedReader in, StationBuilder stationBuilder, LoadOptions options)
+            throws IOException {
+        boolean fixedPoint = stationBuilder.isFixedPoint();
+        boolean readTotal = options.hasColumn(LoadOptions.Column.TOTAL);
+        boolean readMin = options.hasColumn(LoadOptions.Column.MIN);
+        boolean readMax = options.hasColumn(LoadOptions.Column.MAX);
+        boolean readMissingDays = options.hasColumn(LoadOptions.Column.MISSING_DAYS);
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            // Find the end of each value: year, month, total, min, max and missing days
+            int yearEnd = line.indexOf(',');
+            int year = Integer.parseInt(line, 0, yearEnd, 10);
+            if (year < options.getFromYear()) continue;
+            if (year > options.getToYear()) break;
+            int monthEnd = line.indexOf(',', yearEnd + 1);
+            int totalEnd = line.indexOf(',', monthEnd + 1);
+            int minEnd = line.indexOf(',', totalEnd + 1);
+            int maxEnd = line.indexOf(',', minEnd + 1); // no missing days in files analysed before they were tracked
+            if (minEnd < 0) throw new NumberFormatException("missing values in analysedCSVFile: " + line);
+            int month = Integer.parseInt(line, yearEnd + 1, monthEnd, 10);
+            int missingDays = readMissingDays && maxEnd >= 0 ? Integer.parseInt(line, maxEnd + 1, line.length(), 10) : 0;
+            if (maxEnd < 0) maxEnd = line.length();
+
+            // Add to Station, fixed point without converting through double
+            if (fixedPoint) {
+                stationBuilder.addRecordTenths(year, month,
+                        readTotal ? parseTenths(line, monthEnd + 1, totalEnd) : 0,
+                        readMin ? parseTenths(line, totalEnd + 1, minEnd) : 0,
+                        readMax ? parseTenths(line, minEnd + 1, maxEnd) : 0, missingDays);
+            } else {
+                stationBuilder.addRecord(year, month,
+                        readTotal ? Double.parseDouble(line.substring(monthEnd + 1, totalEnd)) : 0,
+                        readMin ? Double.parseDouble(line.substring(totalEnd + 1, minEnd)) : 0,
+                        readMax ? Double.parseDouble(line.substring(minEnd + 1, maxEnd)) : 0, missingDays);
+            }
+        }
+    } // end readRecords
+
     /**
      * Helper method to analyse raw rainfall csv files.
+     * Sorted raw data is written a month at a time as it is read, and fails if a record is earlier than
+     * the month being read. Unsorted raw data is accumulated into a MonthTable then written in date order.
+     * An invalid record fails analysis, unless analysis is lenient, when it is skipped to the quarantine.
      *
-     * @param pathToAnalysedCSVFile Path to the analysed rainfall file to write.
+     * @param in      The reader of raw rainfall records, positioned after any header.
+     * @param writer  The writer the monthly records are written to.
+     * @param options The LoadOptions of the analysis.
+     * @param report  The AnalysisReport to record details of the analysis in.
+     * @param quarantine The RowQuarantine invalid raw rainfall records are skipped to when analysis is lenient.
      * @throws AnalysisException If there is an error with the raw rainfall data csv file.
+     * @throws IOException       If there is an error reading raw or writing analysed rainfall data.
      */
-    private static void analyseDataset(String pathToAnalysedCSVFile) throws AnalysisException {
+    static void analyseDataset(RawRecordReader in, MonthlyRecordWriter writer, LoadOptions options,
+                               AnalysisReport report, RowQuarantine quarantine) throws AnalysisException, IOException {
         // Set index of values
+        final int INDEX_OF_STATION_NUMBER = 1;
         final int INDEX_OF_YEAR = 2;
         final int INDEX_OF_MONTH = 3;
         final int INDEX_OF_DAY = 4;
         final int INDEX_OF_RAINFALL_MEASUREMENT = 5;
 
-        // Check file is not empty and remove header
-        if (readNextLine() == null) throw new AnalysisException("empty rawDataCSVFile");
-
-        // Set write file and write header
-        TextIO.writeFile(pathToAnalysedCSVFile);
-        TextIO.putln("year,month,total,min,max");
-
         // Set tracking variables with sentinel values
+        MonthTable monthTable = options.isUnsortedInput() ? new MonthTable() : null;
+        // Fixed point readings are whole tenths of a mm, summed exactly by the double accumulators below 2^53 tenths
+        // then scaled to mm as each month is written
+        double unitsPerMm = options.isFixedPoint() ? 10.0 : 1.0;
+        // Runs of days need days in date order, so are only found for sorted input
+        RunLengths runLengths = options.isRunLengths() && monthTable == null ? new RunLengths(options.getWetThreshold()) : null;
         double monthlyRainfallTotal = 0.0;
         double monthlyRainfallMin = Double.POSITIVE_INFINITY;
         double monthlyRainfallMax = Double.NEGATIVE_INFINITY;
-        int currentMonth = 1;
+        int monthlyDaysRead = 0; // Bit (day - 1) set for each day with a raw rainfall record
+        int monthlyDaysRecorded = 0; // Bit (day - 1) set for each day with a rainfall reading
+        int currentMonth = 0;
         int currentYear = 0;
+        int monthsWritten = 0;
+        long rowsRead = 0;
+        long missingDays = 0;
+        long duplicateDays = 0;
 
         // Read first raw rainfall data line
-        String[] rainfallRecord = readNextLine();
+        String[] rainfallRecord = in.readNextRecord();
+        if (rainfallRecord != null && rainfallRecord.length > INDEX_OF_STATION_NUMBER) {
+            report.setStationNumber(rainfallRecord[INDEX_OF_STATION_NUMBER]);
+        }
         while (rainfallRecord != null) {
+            rowsRead++;
+            // Invalid records are only checked for by the checks a valid record passes, so the lenient mode
+            // costs nothing until a record is skipped
+            try {
+                if (rainfallRecord.length <= INDEX_OF_RAINFALL_MEASUREMENT) {
+                    throw new RowException("missing values", "missing values in rawDataCSVFile: " + rainfallRecord.length);
+                }
 
-            // Replace blank rainfall readings with 0.0
-            if (rainfallRecord[INDEX_OF_RAINFALL_MEASUREMENT].equals("")) {
-                rainfallRecord[INDEX_OF_RAINFALL_MEASUREMENT] = String.valueOf(0.0);
-            }
+                // Extract values, blank rainfall readings are missing rather than 0.0
+                int day = Integer.parseInt(rainfallRecord[INDEX_OF_DAY]);
+                int year = Integer.parseInt(rainfallRecord[INDEX_OF_YEAR]);
+                int month = Integer.parseInt(rainfallRecord[INDEX_OF_MONTH]);
+                String reading = rainfallRecord[INDEX_OF_RAINFALL_MEASUREMENT];
+                double rainfallMeasurement = reading.isEmpty() ? Double.NaN
+                        : options.isFixedPoint() ? parseTenths(reading) : Double.parseDouble(reading);
 
-            // Extract values
-            int day = Integer.parseInt(rainfallRecord[INDEX_OF_DAY]);
-            int year = Integer.parseInt(rainfallRecord[INDEX_OF_YEAR]);
-            int month = Integer.parseInt(rainfallRecord[INDEX_OF_MONTH]);
-            double rainfallMeasurement = Double.parseDouble(rainfallRecord[INDEX_OF_RAINFALL_MEASUREMENT]);
+                // Check Valid values
+                if (day < 1 || day > 31) throw new RowException("illegal day", "illegal day in rawDataCSVFile: " + day);
+                if (month < 1 || month > 12) throw new RowException("illegal month", "illegal month in rawDataCSVFile: " + month);
+                if (year < 1000 || year > 9999) throw new RowException("illegal year", "illegal year in rawDataCSVFile: " + year);
+                if (day > 28 && day > Record.getDaysInMonth(year, month)) {
+                    throw new RowException("illegal day", String.format("illegal day in rawDataCSVFile: %d/%d/%d",
+                            year, month, day));
+                }
 
-            // Update Sentinel Value
-            if (currentYear == 0) currentYear = year;
+                boolean duplicateDay;
+                if (monthTable != null) {
+                    duplicateDay = !monthTable.add(year, month, day, rainfallMeasurement);
+                } else {
+                    // Update Sentinel Values
+                    if (currentYear == 0) {
+                        currentYear = year;
+                        currentMonth = month;
+                    }
 
-            // Check Valid values
-            if (day < 1 || day > 31) throw new AnalysisException("illegal day in rawDataCSVFile: " + day);
-            if (month < 1 || month > 12) throw new AnalysisException("illegal month in rawDataCSVFile: " + month);
-            if (year < 1000 || year > 9999) throw new AnalysisException("illegal year in rawDataCSVFile: " + year);
+                    if (year != currentYear || month != currentMonth) {
+                        if (year < currentYear || (year == currentYear && month < currentMonth)) {
+                            throw new RowException("not sorted by date", String.format("rawDataCSVFile not sorted by "
+                                    + "date at %d/%d, load with unsorted input", year, month));
+                        }
+                        // Write to file
+                        missingDays += writeMonth(writer, currentYear, currentMonth, monthlyRainfallTotal, monthlyRainfallMin,
+                                monthlyRainfallMax, monthlyDaysRecorded, unitsPerMm);
+                        monthsWritten++;
 
-            if (month != currentMonth) {
-                // Print to file
-                printToFile(currentYear, currentMonth, monthlyRainfallTotal, monthlyRainfallMin, monthlyRainfallMax);
+                        // Reset tracking variables with sentinel values
+                        monthlyRainfallTotal = 0.0;
+                        monthlyRainfallMin = Double.POSITIVE_INFINITY;
+                        monthlyRainfallMax = Double.NEGATIVE_INFINITY;
+                        monthlyDaysRead = 0;
+                        monthlyDaysRecorded = 0;
 
-                // Reset tracking variables with sentinel values
-                monthlyRainfallTotal = 0.0;
-                monthlyRainfallMin = Double.POSITIVE_INFINITY;
-                monthlyRainfallMax = Double.NEGATIVE_INFINITY;
+                        // Update new month/year
+                        currentMonth = month;
+                        currentYear = year;
+                    }
 
-                // Update new month/year
-                currentMonth = month;
-                currentYear = year;
+                    // Update total, min & max, keeping the first record of a day
+                    int dayBit = 1 << (day - 1);
+                    duplicateDay = (monthlyDaysRead & dayBit) != 0;
+                    monthlyDaysRead |= dayBit;
+                    if (!duplicateDay && !Double.isNaN(rainfallMeasurement)) {
+                        monthlyRainfallTotal += rainfallMeasurement;
+                        if (rainfallMeasurement > monthlyRainfallMax) monthlyRainfallMax = rainfallMeasurement;
+                        if (rainfallMeasurement < monthlyRainfallMin) monthlyRainfallMin = rainfallMeasurement;
+                        monthlyDaysRecorded |= dayBit;
+                    }
+                }
+                if (duplicateDay) {
+                    if (options.isRejectDuplicateDays()) {
+                        throw new RowException("duplicate day",
+                                String.format("duplicate day in rawDataCSVFile: %d/%d/%d", year, month, day));
+                    }
+                    duplicateDays++;
+                } else if (runLengths != null) {
+                    runLengths.add(year, month, day, rainfallMeasurement / unitsPerMm);
+                }
+            } catch (RowException | NumberFormatException error) { // invalid record, fail or skip it
+                if (!options.isLenient()) {
+                    throw new AnalysisException(error instanceof RowException ? error.getMessage()
+                            : "invalid number in rawDataCSVFile: " + error.getMessage());
+                }
+                String reason = error instanceof RowException ? ((RowException) error).getReason() : "invalid number";
+                if (quarantine != null) {
+                    quarantine.quarantine(in.getSourceName(), in.getLineNumber(rowsRead), reason, rainfallRecord);
+                }
+                report.addRejectedRow(reason);
             }
 
-            // Update total, min & max
-            monthlyRainfallTotal += rainfallMeasurement;
-            if (rainfallMeasurement > monthlyRainfallMax) monthlyRainfallMax = rainfallMeasurement;
-            if (rainfallMeasurement < monthlyRainfallMin) monthlyRainfallMin = rainfallMeasurement;
-
             // Read next raw rainfall data line
-            rainfallRecord = readNextLine();
+            rainfallRecord = in.readNextRecord();
         }
 
-        if (TextIO.eof()) // Write last rainfallRecord to file
-            printToFile(currentYear, currentMonth, monthlyRainfallTotal, monthlyRainfallMin, monthlyRainfallMax);
+        if (monthTable != null) {
+            // Write every month in date order
+            if (monthTable.isEmpty()) throw new AnalysisException("no rainfall records in rawDataCSVFile");
+            monthTable.write(writer, report, unitsPerMm);
+        } else {
+            // Write last rainfallRecord to file
+            if (currentYear == 0) throw new AnalysisException("no rainfall records in rawDataCSVFile");
+            missingDays += writeMonth(writer, currentYear, currentMonth, monthlyRainfallTotal, monthlyRainfallMin,
+                    monthlyRainfallMax, monthlyDaysRecorded, unitsPerMm);
+            monthsWritten++;
+            report.setMonths(monthsWritten);
+            report.setMissingDays(missingDays);
+        }
+        report.setRows(rowsRead);
+        report.setDuplicateDays(duplicateDays);
+        if (runLengths != null) {
+            runLengths.finish();
+            report.setRunLengths(runLengths);
+        }
     } // end analyseDataset
 
     /**
@@ -176,56 +1140,186 @@ public class Loader {
      * specified detail message.
      */
     public static class LoaderException extends Exception {
+        private static final long serialVersionUID = 1L;
+
         public LoaderException(String message) {
             super(message);
         }
     } // end class LoaderException
 
+    /**
+     * An AnalysisException for a single invalid raw rainfall record, with the reason it is invalid
+     * for counting the records a lenient analysis skips.
+     */
+    private static class RowException extends AnalysisException {
+        private static final long serialVersionUID = 1L;
+
+        private final String reason;
+
+        private RowException(String reason, String message) {
+            super(message);
+            this.reason = reason;
+        }
+
+        private String getReason() {
+            return reason;
+        }
+    } // end class RowException
+
     /**
      * Constructs an {@code AnalysisException} with the
      * specified detail message.
      */
     public static class AnalysisException extends Exception {
+        private static final long serialVersionUID = 1L;
+
         public AnalysisException(String message) {
             super(message);
         }
     } // end class AnalysisException
 
     /**
-     * Helper method to read and return next line of file.
+     * Helper method to check whether raw rainfall data needs analysing, because the analysed rainfall csv file
+     * doesn't exist, is in an older format or is stale as the raw data has changed since it was analysed.
      *
-     * @return String[] representation of record or null if file is empty.
+     * @param analysedCSVFile The analysed rainfall csv file.
+     * @param rawDataFile     The raw rainfall data file, or null if there is none.
+     * @return Whether the raw data needs analysing.
      */
-    private static String[] readNextLine() {
-        if (TextIO.eof()) {
-            return null;
-        } else {
-            return TextIO.getln().split(",", -1);
+    static boolean isAnalysisNeeded(File analysedCSVFile, File rawDataFile) {
+        return isAnalysisNeeded(analysedCSVFile,
+                rawDataFile == null ? Collections.emptyList() : Collections.singletonList(rawDataFile));
+    } // end isAnalysisNeeded
+
+    /**
+     * Helper method to check whether raw rainfall data files need analysing, because the analysed rainfall csv file
+     * doesn't exist, is in an older format or is stale. The analysed file is stale if the fingerprints of the files
+     * it was analysed from, kept in its sources file, differ from the files now, so a file replaced by an older one
+     * is analysed again. Files analysed before sources were recorded are stale if any file was modified since.
+     *
+     * @param analysedCSVFile The analysed rainfall csv file.
+     * @param rawDataFiles    The raw rainfall data files, empty if there are none.
+     * @return Whether the raw data needs analysing.
+     */
+    static boolean isAnalysisNeeded(File analysedCSVFile, List<File> rawDataFiles) {
+        if (!analysedCSVFile.exists()) return true;
+        if (rawDataFiles.isEmpty()) return false; // only the analysed file is available
+        if (!isAnalysedFileCurrent(analysedCSVFile)) return true;
+        AnalysisSources sources = AnalysisSources.read(getSourcesFile(analysedCSVFile));
+        if (sources != null) return !sources.matches(rawDataFiles);
+        for (File rawDataFile : rawDataFiles) {
+            if (rawDataFile.lastModified() > analysedCSVFile.lastModified()) return true;
         }
-    } // end extractNextMeasurement
+        return false;
+    } // end isAnalysisNeeded
 
     /**
-     * Helper method to create a csv file to with suffix "_analysed" to store analysed rainfall data.
+     * Helper method to check an analysed rainfall csv file is in the current format,
+     * files analysed before missing days were tracked hold blank readings as 0.0 and are analysed again.
      *
-     * @param pathToRainfallData Path to the raw rainfall data csv file.
+     * @param analysedCSVFile The analysed rainfall csv file to check.
+     * @return Whether the analysed file's header is the current header.
      */
-    private static void initialiseOutFile(String pathToRainfallData) {
-        String fileName = pathToRainfallData.substring(pathToRainfallData.lastIndexOf("/") + 1, pathToRainfallData.lastIndexOf("."));
-        String pathToOutFile = String.format("resources/%s_analysed.csv", fileName);
-        TextIO.writeFile(pathToOutFile);
-    } // end initialiseOutFile
+    static boolean isAnalysedFileCurrent(File analysedCSVFile) {
+        try (BufferedReader in = new BufferedReader(new FileReader(analysedCSVFile, StandardCharsets.UTF_8))) {
+            return AnalysedFileWriter.HEADER_LINE.equals(in.readLine());
+        } catch (IOException error) { // unreadable, let parsing report it
+            return true;
+        }
+    } // end isAnalysedFileCurrent
 
     /**
-     * Helper method to write analysed rainfall records to file.
+     * Helper method to write a month's rainfall data with the days missing a reading,
+     * a month without any readings is written with zero total, min and max.
      *
+     * @param writer        The writer for the analysed rainfall file.
      * @param year          The year the rainfall data was recorded.
      * @param month         The month the rainfall data was recorded.
-     * @param rainfallTotal The total rainfall in mm for the specified month.
-     * @param rainfallMin   The minimum rainfall recorded for the specified month.
-     * @param rainfallMax   The maximum rainfall recorded for the specified month.
+     * @param rainfallTotal The total rainfall in mm of the days with readings.
+     * @param rainfallMin   The minimum rainfall of the days with readings.
+     * @param rainfallMax   The maximum rainfall of the days with readings.
+     * @param daysRecorded  Bitset of the days with readings, bit (day - 1) for each day.
+     * @param unitsPerMm    The number of units of the rainfall values in a mm, 10 for fixed point tenths.
+     * @return The number of days of the month missing a reading.
+     * @throws IOException If there is an error writing the analysed rainfall file.
      */
-    private static void printToFile(int year, int month, double rainfallTotal, double rainfallMin, double rainfallMax) {
-        TextIO.putf("%d,%d,%1.2f,%1.2f,%1.2f\n", year, month, rainfallTotal, rainfallMin, rainfallMax);
-    } // end printToFile
+    private static int writeMonth(MonthlyRecordWriter writer, int year, int month, double rainfallTotal, double rainfallMin,
+                                  double rainfallMax, int daysRecorded, double unitsPerMm) throws IOException {
+        if (daysRecorded == 0) {
+            rainfallMin = 0.0;
+            rainfallMax = 0.0;
+        }
+        int missingDays = Record.getMissingDays(year, month, daysRecorded);
+        writer.writeRecord(year, month, rainfallTotal / unitsPerMm, rainfallMin / unitsPerMm, rainfallMax / unitsPerMm,
+                missingDays);
+        return Integer.bitCount(missingDays);
+    } // end writeMonth
+
+    /**
+     * Helper method to parse a rainfall value in mm into whole tenths of a mm using only integer arithmetic,
+     * such as "12.4" or the "12.40" of an analysed file.
+     *
+     * @param text The rainfall value, with at most one non-zero digit after the decimal point.
+     * @return The rainfall value in tenths of a mm.
+     * @throws NumberFormatException If text is not a number, is more precise than tenths or is out of range.
+     */
+    static int parseTenths(String text) {
+        return parseTenths(text, 0, text.length());
+    } // end parseTenths
+
+    /**
+     * Helper method to parse a rainfall value within a line into whole tenths of a mm, without copying it.
+     *
+     * @param text  The text holding the rainfall value.
+     * @param begin The index of the start of the value.
+     * @param end   The index after the end of the value.
+     * @return The rainfall value in tenths of a mm.
+     * @throws NumberFormatException If the value is not a number, is more precise than tenths or is out of range.
+     */
+    static int parseTenths(String text, int begin, int end) {
+        int i = begin;
+        boolean negative = i < end && text.charAt(i) == '-';
+        if (negative || (i < end && text.charAt(i) == '+')) i++;
+        long tenths = 0;
+        int digits = 0;
+        for (; i < end && text.charAt(i) != '.'; i++, digits++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || tenths > Integer.MAX_VALUE) {
+                throw new NumberFormatException("For input string: \"" + text.substring(begin, end) + "\"");
+            }
+            tenths = tenths * 10 + digit;
+        }
+        tenths *= 10;
+        if (i < end) { // decimal point, then tenths and any trailing zeros
+            i++;
+            for (int place = 0; i < end; i++, place++, digits++) {
+                int digit = text.charAt(i) - '0';
+                if (digit < 0 || digit > 9 || (place > 0 && digit != 0)) {
+                    throw new NumberFormatException("For input string: \"" + text.substring(begin, end) + "\"");
+                }
+                if (place == 0) tenths += digit;
+            }
+        }
+        if (digits == 0 || tenths > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + text.substring(begin, end) + "\"");
+        }
+        return (int) (negative ? -tenths : tenths);
+    } // end parseTenths
+
+    /**
+     * Helper method to read and return next line of file.
+     *
+     * @param in The reader of the file.
+     * @return String[] representation of record or null if file is empty.
+     * @throws IOException If the file cannot be read.
+     */
+    private static String[] readNextLine(BufferedReader in) throws IOException {
+        String line = in.readLine();
+        if (line == null) {
+            return null;
+        } else {
+            return line.split(",", -1);
+        }
+    } // end extractNextMeasurement
 
 } // end class Loader
\ No newline at end of file
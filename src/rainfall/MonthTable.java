@@ -0,0 +1,144 @@
+package rainfall;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * An object of class MonthTable accumulates daily rainfall readings in any order into monthly totals,
+ * held in primitive columns indexed by year and month so each reading is added in constant time.
+ * The table covers the years read so far and grows at either end as earlier or later years are read,
+ * then months are written in date order in a single pass.
+ */
+class MonthTable {
+
+    private static final int INITIAL_YEARS = 32;
+
+    private int firstYear; // Year of the first slot
+    private int numberOfYears; // Number of years of slots, 12 slots per year
+    private double[] totals;
+    private double[] mins;
+    private double[] maxes;
+    private int[] daysRead; // Bit (day - 1) set for each day with a raw rainfall record, blank or not
+    private int[] daysRecorded; // Bit (day - 1) set for each day with a rainfall reading
+
+    /**
+     * Method to add a day's raw rainfall record to its month.
+     *
+     * @param year     The year of the reading, checked valid.
+     * @param month    The month of the reading, checked valid.
+     * @param day      The day of the reading, checked valid.
+     * @param rainfall The rainfall in mm, or NaN if the reading is blank.
+     * @return False if the day has already been read, in which case the record is ignored.
+     */
+    boolean add(int year, int month, int day, double rainfall) {
+        int slot = getSlot(year, month);
+        int dayBit = 1 << (day - 1);
+        if ((daysRead[slot] & dayBit) != 0) return false;
+        daysRead[slot] |= dayBit;
+        if (!Double.isNaN(rainfall)) {
+            if (daysRecorded[slot] == 0) {
+                mins[slot] = rainfall;
+                maxes[slot] = rainfall;
+            } else {
+                if (rainfall < mins[slot]) mins[slot] = rainfall;
+                if (rainfall > maxes[slot]) maxes[slot] = rainfall;
+            }
+            totals[slot] += rainfall;
+            daysRecorded[slot] |= dayBit;
+        }
+        return true;
+    } // end add
+
+    /**
+     * Method to write every month read, in date order.
+     *
+     * @param writer The writer the monthly records are written to.
+     * @param report The AnalysisReport to add months and missing days to.
+     * @param unitsPerMm The number of units of the added rainfall values in a mm, 10 for fixed point tenths.
+     * @throws IOException If there is an error writing the analysed rainfall file.
+     */
+    void write(MonthlyRecordWriter writer, AnalysisReport report, double unitsPerMm) throws IOException {
+        int months = 0;
+        long missingDays = 0;
+        for (int slot = 0; slot < numberOfYears * 12; slot++) {
+            if (daysRead[slot] == 0) continue; // month not in raw data
+            int year = firstYear + slot / 12;
+            int month = slot % 12 + 1;
+            int missing = Record.getMissingDays(year, month, daysRecorded[slot]);
+            writer.writeRecord(year, month, totals[slot] / unitsPerMm, mins[slot] / unitsPerMm, maxes[slot] / unitsPerMm,
+                    missing);
+            missingDays += Integer.bitCount(missing);
+            months++;
+        }
+        report.setMonths(months);
+        report.setMissingDays(missingDays);
+    } // end write
+
+    /**
+     * @return Whether no raw rainfall records have been added.
+     */
+    boolean isEmpty() {
+        return numberOfYears == 0;
+    } // end isEmpty
+
+    /**
+     * Helper method to find the slot of a month, growing the table to cover its year.
+     *
+     * @param year  The year of the month.
+     * @param month The month.
+     * @return The index of the month's slot in the columns.
+     */
+    private int getSlot(int year, int month) {
+        if (numberOfYears == 0) {
+            firstYear = year;
+            numberOfYears = 1;
+            allocate(INITIAL_YEARS, 0);
+        } else if (year < firstYear) {
+            // Grow towards earlier years, shifting the existing slots along
+            int yearsAdded = firstYear - year;
+            int capacity = Math.max(totals.length / 12 * 2, numberOfYears + yearsAdded);
+            allocate(capacity, yearsAdded);
+            firstYear = year;
+            numberOfYears += yearsAdded;
+        } else if (year >= firstYear + numberOfYears) {
+            numberOfYears = year - firstYear + 1;
+            if (numberOfYears * 12 > totals.length) allocate(Math.max(totals.length / 12 * 2, numberOfYears), 0);
+        }
+        return (year - firstYear) * 12 + month - 1;
+    } // end getSlot
+
+    /**
+     * Helper method to replace the columns with larger ones, keeping existing slots.
+     *
+     * @param yearsCapacity The number of years the new columns hold.
+     * @param yearsOffset   The number of years to shift existing slots by.
+     */
+    private void allocate(int yearsCapacity, int yearsOffset) {
+        int capacity = yearsCapacity * 12;
+        int offset = yearsOffset * 12;
+        totals = copyInto(totals, new double[capacity], offset);
+        mins = copyInto(mins, new double[capacity], offset);
+        maxes = copyInto(maxes, new double[capacity], offset);
+        daysRead = copyInto(daysRead, new int[capacity], offset);
+        daysRecorded = copyInto(daysRecorded, new int[capacity], offset);
+    } // end allocate
+
+    private static double[] copyInto(double[] from, double[] to, int offset) {
+        if (from != null) System.arraycopy(from, 0, to, offset, Math.min(from.length, to.length - offset));
+        return to;
+    } // end copyInto
+
+    private static int[] copyInto(int[] from, int[] to, int offset) {
+        if (from != null) System.arraycopy(from, 0, to, offset, Math.min(from.length, to.length - offset));
+        return to;
+    } // end copyInto
+
+    /**
+     * @return A string representation of MonthTable.
+     */
+    public String toString() {
+        return String.format("MonthTable[years=%d-%d, months=%d]", firstYear, firstYear + numberOfYears - 1,
+                Arrays.stream(daysRead == null ? new int[0] : daysRead).filter(days -> days != 0).count());
+    } // end toString
+
+} // end class MonthTable
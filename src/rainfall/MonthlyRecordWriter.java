@@ -0,0 +1,24 @@
+package rainfall;
+
+import java.io.IOException;
+
+/**
+ * A MonthlyRecordWriter receives the monthly records produced by analysis of raw rainfall data, in date order.
+ */
+interface MonthlyRecordWriter {
+
+    /**
+     * Method to write a month's rainfall data.
+     *
+     * @param year          The year the rainfall data was recorded.
+     * @param month         The month the rainfall data was recorded.
+     * @param rainfallTotal The total rainfall in mm for the specified month.
+     * @param rainfallMin   The minimum rainfall recorded for the specified month.
+     * @param rainfallMax   The maximum rainfall recorded for the specified month.
+     * @param missingDays   Bitset of the days without a rainfall reading, bit (day - 1) for each day.
+     * @throws IOException If the record cannot be written.
+     */
+    void writeRecord(int year, int month, double rainfallTotal, double rainfallMin, double rainfallMax,
+                     int missingDays) throws IOException;
+
+} // end interface MonthlyRecordWriter
@@ -0,0 +1,321 @@
+package rainfall;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * An object of class OffHeapStation is a read only Station whose monthly rainfall data is kept outside the heap,
+ * as columns in a direct buffer or in a memory-mapped station file that several JVMs can share.
+ * Records are created on request from the columns, so large numbers of stations don't enlarge the heap.
+ * An OffHeapStation must be closed when no longer needed, and must not be closed while it is being read.
+ * It may be shared between threads without locking, reads on any thread fail once another thread has closed it.
+ */
+public class OffHeapStation extends Station implements Closeable {
+
+    private static final int MAGIC = 0x52465354; // "RFST"
+    private static final int VERSION = 2; // 2 added the missing days column
+    private static final int HEADER_SIZE = 16; // magic, version, number of records, reserved
+
+    private final int numberOfRecords;
+    private final int yearsOffset;
+    private final int monthsOffset;
+    private final int totalsOffset;
+    private final int minsOffset;
+    private final int maxesOffset;
+    private final int missingDaysOffset;
+    private volatile ByteBuffer columns; // null once closed, volatile so a close is seen by every reading thread
+
+    /**
+     * Constructor. Create an OffHeapStation over a buffer holding a station file's layout.
+     *
+     * @param columns The buffer holding the header and columns.
+     * @throws IOException If the buffer does not hold a valid station layout.
+     */
+    private OffHeapStation(ByteBuffer columns) throws IOException {
+        columns.order(ByteOrder.LITTLE_ENDIAN);
+        if (columns.capacity() < HEADER_SIZE || columns.getInt(0) != MAGIC) throw new IOException("not a station file");
+        if (columns.getInt(4) != VERSION) throw new IOException("unsupported station file version: " + columns.getInt(4));
+        numberOfRecords = columns.getInt(8);
+        if (numberOfRecords < 0 || columns.capacity() < getLayoutSize(numberOfRecords)) {
+            throw new IOException("truncated station file");
+        }
+        yearsOffset = HEADER_SIZE;
+        monthsOffset = yearsOffset + Integer.BYTES * numberOfRecords;
+        totalsOffset = monthsOffset + Integer.BYTES * numberOfRecords;
+        minsOffset = totalsOffset + Double.BYTES * numberOfRecords;
+        maxesOffset = minsOffset + Double.BYTES * numberOfRecords;
+        missingDaysOffset = maxesOffset + Double.BYTES * numberOfRecords;
+        this.columns = columns;
+    } // end OffHeapStation constructor
+
+    /**
+     * Method to copy a Station's Records into a new OffHeapStation backed by a direct buffer.
+     *
+     * @param station The Station to copy, with every column loaded.
+     * @return OffHeapStation holding the same Records.
+     * @throws IllegalArgumentException If a column was not loaded into the Station.
+     */
+    public static OffHeapStation copyOf(Station station) {
+        ByteBuffer columns = ByteBuffer.allocateDirect(getLayoutSize(station.getNumberOfRecords()));
+        putLayout(station, columns);
+        try {
+            return new OffHeapStation(columns);
+        } catch (IOException error) { // layout was just written
+            throw new IllegalStateException(error);
+        }
+    } // end copyOf
+
+    /**
+     * Method to write a Station's Records to a station file, which is replaced atomically.
+     *
+     * @param station     The Station to write, with every column loaded.
+     * @param stationFile The path of the station file.
+     * @throws IOException If the station file cannot be written.
+     * @throws IllegalArgumentException If a column was not loaded into the Station.
+     */
+    public static void write(Station station, Path stationFile) throws IOException {
+        ByteBuffer columns = ByteBuffer.allocate(getLayoutSize(station.getNumberOfRecords()));
+        putLayout(station, columns);
+        AtomicFiles.replace(stationFile, columns);
+    } // end write
+
+    /**
+     * Method to map a station file written by write into memory as an OffHeapStation,
+     * pages of the file are shared with any other process mapping it.
+     *
+     * @param stationFile The path of the station file.
+     * @return OffHeapStation reading the mapped file.
+     * @throws IOException If the station file cannot be mapped or is invalid.
+     */
+    public static OffHeapStation map(Path stationFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(stationFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("station file too large");
+            return new OffHeapStation(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    } // end map
+
+    @Override
+    public Record getRecord(int year, int month) {
+        ByteBuffer columns = getColumns();
+        for (int i = 0; i < numberOfRecords; i++) {
+            if (columns.getInt(yearsOffset + Integer.BYTES * i) == year
+                    && columns.getInt(monthsOffset + Integer.BYTES * i) == month) {
+                return getRecord(i);
+            }
+        }
+        return null;
+    } // end getRecord
+
+    @Override
+    public Record getRecord(int i) {
+        checkIndex(i);
+        ByteBuffer columns = getColumns();
+        return new Record(columns.getInt(yearsOffset + Integer.BYTES * i), columns.getInt(monthsOffset + Integer.BYTES * i),
+                columns.getDouble(totalsOffset + Double.BYTES * i), columns.getDouble(minsOffset + Double.BYTES * i),
+                columns.getDouble(maxesOffset + Double.BYTES * i), columns.getInt(missingDaysOffset + Integer.BYTES * i));
+    } // end getRecord
+
+    @Override
+    public int getYear(int i) {
+        checkIndex(i);
+        return getColumns().getInt(yearsOffset + Integer.BYTES * i);
+    } // end getYear
+
+    @Override
+    public int getMonth(int i) {
+        checkIndex(i);
+        return getColumns().getInt(monthsOffset + Integer.BYTES * i);
+    } // end getMonth
+
+    @Override
+    public double getTotal(int i) {
+        checkIndex(i);
+        return getColumns().getDouble(totalsOffset + Double.BYTES * i);
+    } // end getTotal
+
+    @Override
+    public double getMin(int i) {
+        checkIndex(i);
+        return getColumns().getDouble(minsOffset + Double.BYTES * i);
+    } // end getMin
+
+    @Override
+    public double getMax(int i) {
+        checkIndex(i);
+        return getColumns().getDouble(maxesOffset + Double.BYTES * i);
+    } // end getMax
+
+    @Override
+    public int getMissingDays(int i) {
+        checkIndex(i);
+        return getColumns().getInt(missingDaysOffset + Integer.BYTES * i);
+    } // end getMissingDays
+
+    @Override
+    public int getNumberOfRecords() {
+        return numberOfRecords;
+    } // end getNumberOfRecords
+
+    @Override
+    public double getMaxRainfallValue() {
+        ByteBuffer columns = getColumns();
+        double maxRainfall = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < numberOfRecords; i++) {
+            double total = columns.getDouble(totalsOffset + Double.BYTES * i);
+            if (total > maxRainfall) maxRainfall = total;
+        }
+        return maxRainfall;
+    } // end getMaxRainfallValue
+
+    /**
+     * Only the object itself is on the heap, the columns are not counted.
+     */
+    @Override
+    long getApproximateBytes() {
+        return 64;
+    } // end getApproximateBytes
+
+    /*
+     * Column accessors copy the columns onto the heap for the duration of a query.
+     */
+
+    @Override
+    int[] getYearColumn() {
+        return getIntColumn(yearsOffset);
+    } // end getYearColumn
+
+    @Override
+    int[] getMonthColumn() {
+        return getIntColumn(monthsOffset);
+    } // end getMonthColumn
+
+    @Override
+    double[] getTotalColumn() {
+        return getDoubleColumn(totalsOffset);
+    } // end getTotalColumn
+
+    @Override
+    double[] getMinColumn() {
+        return getDoubleColumn(minsOffset);
+    } // end getMinColumn
+
+    @Override
+    double[] getMaxColumn() {
+        return getDoubleColumn(maxesOffset);
+    } // end getMaxColumn
+
+    @Override
+    int[] getMissingDaysColumn() {
+        return getIntColumn(missingDaysOffset);
+    } // end getMissingDaysColumn
+
+    /**
+     * @return The number of bytes of columns held outside the heap, or 0 once closed.
+     */
+    public long getOffHeapBytes() {
+        ByteBuffer columns = this.columns;
+        return columns == null ? 0 : columns.capacity();
+    } // end getOffHeapBytes
+
+    /**
+     * Method to release the columns, after which the OffHeapStation can't be read.
+     * Direct and mapped memory is freed once the released buffer is garbage collected.
+     */
+    @Override
+    public void close() {
+        columns = null;
+    } // end close
+
+    /**
+     * Helper method to return the columns or fail if closed.
+     *
+     * @return The buffer holding the columns.
+     */
+    private ByteBuffer getColumns() {
+        ByteBuffer columns = this.columns;
+        if (columns == null) throw new IllegalStateException("OffHeapStation is closed");
+        return columns;
+    } // end getColumns
+
+    /**
+     * Helper method to check an index is within the Records of OffHeapStation.
+     *
+     * @param i The index to check.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    private void checkIndex(int i) {
+        if (i < 0 || i >= numberOfRecords) throw new ArrayIndexOutOfBoundsException("Index " + i + ", is Invalid");
+    } // end checkIndex
+
+    /**
+     * Helper method to copy an int column onto the heap.
+     *
+     * @param offset The offset of the column.
+     * @return Array holding the column.
+     */
+    private int[] getIntColumn(int offset) {
+        int[] column = new int[numberOfRecords];
+        ByteBuffer columns = getColumns().duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        columns.position(offset);
+        columns.asIntBuffer().get(column);
+        return column;
+    } // end getIntColumn
+
+    /**
+     * Helper method to copy a double column onto the heap.
+     *
+     * @param offset The offset of the column.
+     * @return Array holding the column.
+     */
+    private double[] getDoubleColumn(int offset) {
+        double[] column = new double[numberOfRecords];
+        ByteBuffer columns = getColumns().duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        columns.position(offset);
+        columns.asDoubleBuffer().get(column);
+        return column;
+    } // end getDoubleColumn
+
+    /**
+     * Helper method to find the size of a station file's layout.
+     *
+     * @param numberOfRecords The number of Records.
+     * @return The size in bytes of the header and columns.
+     */
+    private static int getLayoutSize(int numberOfRecords) {
+        long size = HEADER_SIZE + (3L * Integer.BYTES + 3L * Double.BYTES) * numberOfRecords;
+        if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("too many records: " + numberOfRecords);
+        return (int) size;
+    } // end getLayoutSize
+
+    /**
+     * Helper method to write the header and columns of a Station into a buffer.
+     *
+     * @param station The Station to write, with every column loaded.
+     * @param columns The buffer to write to, with room for the layout.
+     * @throws IllegalArgumentException If a column was not loaded into the Station.
+     */
+    private static void putLayout(Station station, ByteBuffer columns) {
+        for (LoadOptions.Column column : LoadOptions.Column.values()) {
+            if (!station.hasColumn(column)) {
+                throw new IllegalArgumentException("station has no " + column.name().toLowerCase(Locale.ROOT) + " column loaded");
+            }
+        }
+        int numberOfRecords = station.getNumberOfRecords();
+        columns.order(ByteOrder.LITTLE_ENDIAN);
+        columns.putInt(MAGIC).putInt(VERSION).putInt(numberOfRecords).putInt(0);
+        for (int i = 0; i < numberOfRecords; i++) columns.putInt(station.getYear(i));
+        for (int i = 0; i < numberOfRecords; i++) columns.putInt(station.getMonth(i));
+        for (int i = 0; i < numberOfRecords; i++) columns.putDouble(station.getTotal(i));
+        for (int i = 0; i < numberOfRecords; i++) columns.putDouble(station.getMin(i));
+        for (int i = 0; i < numberOfRecords; i++) columns.putDouble(station.getMax(i));
+        for (int i = 0; i < numberOfRecords; i++) columns.putInt(station.getMissingDays(i));
+        columns.flip();
+    } // end putLayout
+
+} // end class OffHeapStation
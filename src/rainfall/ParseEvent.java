@@ -0,0 +1,28 @@
+package rainfall;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded when an analysed rainfall csv file is parsed into a Station.
+ */
+@Name("rainfall.Parse")
+@Label("Analysed File Parse")
+@Category({"Rainfall", "Loader"})
+@Description("Parsing of an analysed rainfall csv file into Record objects")
+public class ParseEvent extends jdk.jfr.Event {
+
+    @Label("Station Name")
+    public String stationName;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Months")
+    public int months;
+
+} // end class ParseEvent
@@ -0,0 +1,162 @@
+package rainfall;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An object of class QuarantineFileWriter writes the raw rainfall records skipped by a lenient analysis
+ * to a quarantine csv file, one line per record with the file and line number it was read from and the short reason
+ * it was skipped. The file is left blank where analysis reads a single raw rainfall data file.
+ * Like AnalysedFileWriter, records are written to a temporary file that only replaces the quarantine file when
+ * {@link #commit()} is called. The temporary file is only created once a record is quarantined, and committing
+ * without any removes the quarantine file of an earlier analysis.
+ */
+public class QuarantineFileWriter implements RowQuarantine, Closeable {
+
+    static final String HEADER_LINE = "source,line,reason,record";
+
+    private final Path quarantineFile;
+    private Path temporaryFile; // null until the first record is quarantined
+    private Writer out;
+    private long rows;
+    private boolean closed;
+
+    /**
+     * Constructor. Create a QuarantineFileWriter, no file is written until a record is quarantined.
+     *
+     * @param quarantineFile The path of the quarantine csv file to write.
+     */
+    public QuarantineFileWriter(Path quarantineFile) {
+        this.quarantineFile = quarantineFile;
+    } // end QuarantineFileWriter constructor
+
+    /**
+     * Method to write a skipped raw rainfall record as a line of the quarantine csv file.
+     *
+     * @param sourceName The name of the raw rainfall data file of the record, or "" if analysis reads a single file.
+     * @param lineNumber The line number of the record in its file, counting the header as line 1.
+     * @param reason     The short reason the record was skipped, such as "illegal day".
+     * @param rawRecord  The values of the record.
+     * @throws IOException If the temporary file cannot be created or written.
+     */
+    @Override
+    public void quarantine(String sourceName, long lineNumber, String reason, String[] rawRecord) throws IOException {
+        if (closed) throw new IOException("writer is closed");
+        if (out == null) {
+            temporaryFile = AtomicFiles.createTemporaryFile(quarantineFile);
+            out = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8);
+            out.write(HEADER_LINE + "\n");
+        }
+        out.write(quote(sourceName) + "," + lineNumber + "," + quote(reason) + "," + quote(String.join(",", rawRecord))
+                + "\n");
+        rows++;
+    } // end quarantine
+
+    /**
+     * Method to finish writing and atomically replace the quarantine csv file with the quarantined records,
+     * or remove it if no records were quarantined.
+     *
+     * @throws IOException If the records cannot be written or the quarantine file cannot be replaced.
+     */
+    public void commit() throws IOException {
+        if (closed) throw new IOException("writer is closed");
+        closed = true;
+        if (out == null) {
+            Files.deleteIfExists(quarantineFile);
+            return;
+        }
+        try {
+            out.close();
+            AtomicFiles.move(temporaryFile, quarantineFile);
+        } catch (IOException error) {
+            Files.deleteIfExists(temporaryFile);
+            throw error;
+        }
+    } // end commit
+
+    /**
+     * Method to discard the temporary file if the writer has not been committed,
+     * leaving any existing quarantine csv file untouched.
+     *
+     * @throws IOException If the temporary file cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (out == null) return;
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    } // end close
+
+    /**
+     * @return The number of records quarantined.
+     */
+    public long getRows() {
+        return rows;
+    } // end getRows
+
+    /**
+     * Method to count the records of a quarantine csv file by the reason they were skipped.
+     *
+     * @param quarantineFile The path of the quarantine csv file to read.
+     * @return The number of records quarantined by reason, empty if the file doesn't exist.
+     * @throws IOException If the file cannot be read or isn't a quarantine csv file.
+     */
+    static Map<String, Long> countRows(Path quarantineFile) throws IOException {
+        Map<String, Long> rows = new TreeMap<>();
+        if (!Files.exists(quarantineFile)) return rows;
+        try (BufferedReader in = Files.newBufferedReader(quarantineFile, StandardCharsets.UTF_8)) {
+            if (!HEADER_LINE.equals(in.readLine())) throw new IOException("invalid quarantine file header");
+            String line;
+            while ((line = in.readLine()) != null) {
+                // Skip the quoted source and the line number to the quoted reason
+                int lineNumberEnd = line.indexOf(',', unquotedEnd(line, 0) + 1);
+                if (lineNumberEnd < 0) throw new IOException("invalid quarantine file line: " + line);
+                int reasonEnd = unquotedEnd(line, lineNumberEnd + 1);
+                rows.merge(line.substring(lineNumberEnd + 2, reasonEnd - 1).replace("\"\"", "\""), 1L, Long::sum);
+            }
+        }
+        return rows;
+    } // end countRows
+
+    /**
+     * Helper method to find the end of a quoted csv value.
+     *
+     * @return Index just past the closing quote of the value starting at start.
+     * @throws IOException If there is no quoted value at start.
+     */
+    private static int unquotedEnd(String line, int start) throws IOException {
+        if (start >= line.length() || line.charAt(start) != '"') {
+            throw new IOException("invalid quarantine file line: " + line);
+        }
+        int index = start + 1;
+        while (true) {
+            index = line.indexOf('"', index);
+            if (index < 0) throw new IOException("invalid quarantine file line: " + line);
+            if (index + 1 < line.length() && line.charAt(index + 1) == '"') {
+                index += 2; // doubled quote within the value
+            } else {
+                return index + 1;
+            }
+        }
+    } // end unquotedEnd
+
+    /**
+     * Helper method to quote a csv value, doubling any quotes within it.
+     */
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    } // end quote
+
+} // end class QuarantineFileWriter
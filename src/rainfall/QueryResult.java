@@ -0,0 +1,133 @@
+package rainfall;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An object of class QueryResult holds the aggregated value of each group of a StationQuery,
+ * in group key order.
+ */
+public class QueryResult {
+
+    private final SortedMap<Integer, Double> values; // Aggregated value by group key
+
+    /**
+     * Constructor. Create a QueryResult from its values.
+     *
+     * @param values Aggregated value by group key.
+     */
+    private QueryResult(SortedMap<Integer, Double> values) {
+        this.values = Collections.unmodifiableSortedMap(values);
+    } // end QueryResult constructor
+
+    /**
+     * @return Aggregated value by group key, in key order.
+     */
+    public SortedMap<Integer, Double> getValues() {
+        return values;
+    } // end getValues
+
+    /**
+     * @param key The key of a group.
+     * @return The aggregated value of the group, or NaN if the query has no such group.
+     */
+    public double getValue(int key) {
+        Double value = values.get(key);
+        return value == null ? Double.NaN : value;
+    } // end getValue
+
+    /**
+     * @return The number of groups in the result.
+     */
+    public int getNumberOfGroups() {
+        return values.size();
+    } // end getNumberOfGroups
+
+    /**
+     * @return A string representation of QueryResult in CSV format, a line of key and value per group.
+     */
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<Integer, Double> entry : values.entrySet()) {
+            text.append(String.format(Locale.ROOT, "%d,%1.2f\n", entry.getKey(), entry.getValue()));
+        }
+        return text.toString();
+    } // end toString
+
+    /**
+     * An object of class Accumulator holds partial aggregates of each group, which can be merged
+     * with those of other Station objects before the final values are computed.
+     */
+    static class Accumulator {
+        private final TreeMap<Integer, double[]> groups = new TreeMap<>(); // count, sum, min, max by group key
+
+        /**
+         * Method to add partial aggregates of a group.
+         */
+        void add(int key, long count, double sum, double min, double max) {
+            double[] group = groups.get(key);
+            if (group == null) {
+                groups.put(key, new double[]{count, sum, min, max});
+            } else {
+                group[0] += count;
+                group[1] += sum;
+                group[2] = Math.min(group[2], min);
+                group[3] = Math.max(group[3], max);
+            }
+        } // end add
+
+        /**
+         * Method to merge another Accumulator's groups into this one.
+         *
+         * @param other The Accumulator to merge.
+         * @return This Accumulator.
+         */
+        Accumulator merge(Accumulator other) {
+            for (Map.Entry<Integer, double[]> entry : other.groups.entrySet()) {
+                double[] group = entry.getValue();
+                add(entry.getKey(), (long) group[0], group[1], group[2], group[3]);
+            }
+            return this;
+        } // end merge
+
+        /**
+         * Method to compute the final value of each group.
+         *
+         * @param aggregate        The Aggregate to compute.
+         * @param havingComparison The Comparison groups must meet, or null to keep all groups.
+         * @param havingValue      The value compared against.
+         * @return QueryResult of the groups.
+         */
+        QueryResult getResult(StationQuery.Aggregate aggregate, StationQuery.Comparison havingComparison, double havingValue) {
+            SortedMap<Integer, Double> values = new TreeMap<>();
+            for (Map.Entry<Integer, double[]> entry : groups.entrySet()) {
+                double[] group = entry.getValue();
+                double value;
+                switch (aggregate) {
+                    case COUNT:
+                        value = group[0];
+                        break;
+                    case SUM:
+                        value = group[1];
+                        break;
+                    case MEAN:
+                        value = group[1] / group[0];
+                        break;
+                    case MIN:
+                        value = group[2];
+                        break;
+                    default:
+                        value = group[3];
+                        break;
+                }
+                if (havingComparison == null || havingComparison.test(value, havingValue)) values.put(entry.getKey(), value);
+            }
+            return new QueryResult(values);
+        } // end getResult
+
+    } // end class Accumulator
+
+} // end class QueryResult
@@ -0,0 +1,211 @@
+package rainfall;
+
+/**
+ * RainfallKernels provides aggregation kernels over primitive rainfall columns: sum, min, max,
+ * count above a threshold and histogram binning over the range [from, to) of an array.
+ * By default the kernels process four independent lanes per iteration, which removes the loop-carried
+ * dependency of a scalar fold so the JIT compiler can pipeline and vectorise them. Running with
+ * {@code -Drainfall.kernels=scalar} switches to plain scalar loops.
+ * Lanes add values in a different order, so sums may differ from scalar sums in the last bits.
+ */
+public class RainfallKernels {
+
+    /**
+     * Whether the lane kernels are used, fixed at startup so the JIT compiler removes the unused branch.
+     */
+    public static final boolean LANES_ENABLED = !"scalar".equals(System.getProperty("rainfall.kernels"));
+
+    private RainfallKernels() {
+    } // end RainfallKernels constructor
+
+    /**
+     * @param values The column of values.
+     * @param from   The index of the first value, inclusive.
+     * @param to     The index of the last value, exclusive.
+     * @return The sum of the values, 0 if there are none.
+     */
+    public static double sum(double[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        return LANES_ENABLED ? sumLanes(values, from, to) : sumScalar(values, from, to);
+    } // end sum
+
+    /**
+     * @param values The column of values.
+     * @param from   The index of the first value, inclusive.
+     * @param to     The index of the last value, exclusive.
+     * @return The lowest of the values, positive infinity if there are none.
+     */
+    public static double min(double[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        return LANES_ENABLED ? minLanes(values, from, to) : minScalar(values, from, to);
+    } // end min
+
+    /**
+     * @param values The column of values.
+     * @param from   The index of the first value, inclusive.
+     * @param to     The index of the last value, exclusive.
+     * @return The highest of the values, negative infinity if there are none.
+     */
+    public static double max(double[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        return LANES_ENABLED ? maxLanes(values, from, to) : maxScalar(values, from, to);
+    } // end max
+
+    /**
+     * @param values    The column of values.
+     * @param from      The index of the first value, inclusive.
+     * @param to        The index of the last value, exclusive.
+     * @param threshold The value to compare against.
+     * @return The number of values greater than threshold.
+     */
+    public static int countAbove(double[] values, int from, int to, double threshold) {
+        checkRange(values.length, from, to);
+        return LANES_ENABLED ? countAboveLanes(values, from, to, threshold) : countAboveScalar(values, from, to, threshold);
+    } // end countAbove
+
+    /**
+     * Method to count values into equal width bins starting at origin,
+     * values outside the bins are counted in the first or last bin.
+     *
+     * @param values       The column of values.
+     * @param from         The index of the first value, inclusive.
+     * @param to           The index of the last value, exclusive.
+     * @param origin       The lowest value of the first bin.
+     * @param binWidth     The width of each bin.
+     * @param numberOfBins The number of bins.
+     * @return Array of the count of values in each bin.
+     */
+    public static int[] histogram(double[] values, int from, int to, double origin, double binWidth, int numberOfBins) {
+        checkRange(values.length, from, to);
+        if (binWidth <= 0 || numberOfBins < 1) throw new IllegalArgumentException("invalid bins");
+        return LANES_ENABLED ? histogramLanes(values, from, to, origin, binWidth, numberOfBins)
+                : histogramScalar(values, from, to, origin, binWidth, numberOfBins);
+    } // end histogram
+
+    /*
+     * Scalar kernels.
+     */
+
+    static double sumScalar(double[] values, int from, int to) {
+        double sum = 0.0;
+        for (int i = from; i < to; i++) sum += values[i];
+        return sum;
+    } // end sumScalar
+
+    static double minScalar(double[] values, int from, int to) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = from; i < to; i++) if (values[i] < min) min = values[i];
+        return min;
+    } // end minScalar
+
+    static double maxScalar(double[] values, int from, int to) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) if (values[i] > max) max = values[i];
+        return max;
+    } // end maxScalar
+
+    static int countAboveScalar(double[] values, int from, int to, double threshold) {
+        int count = 0;
+        for (int i = from; i < to; i++) if (values[i] > threshold) count++;
+        return count;
+    } // end countAboveScalar
+
+    static int[] histogramScalar(double[] values, int from, int to, double origin, double binWidth, int numberOfBins) {
+        int[] bins = new int[numberOfBins];
+        double scale = 1.0 / binWidth;
+        for (int i = from; i < to; i++) bins[getBin(values[i], origin, scale, numberOfBins)]++;
+        return bins;
+    } // end histogramScalar
+
+    /*
+     * Lane kernels, four independent accumulators per iteration then a scalar tail.
+     */
+
+    static double sumLanes(double[] values, int from, int to) {
+        double sum0 = 0.0, sum1 = 0.0, sum2 = 0.0, sum3 = 0.0;
+        int i = from;
+        for (int end = to - 3; i < end; i += 4) {
+            sum0 += values[i];
+            sum1 += values[i + 1];
+            sum2 += values[i + 2];
+            sum3 += values[i + 3];
+        }
+        for (; i < to; i++) sum0 += values[i];
+        return (sum0 + sum1) + (sum2 + sum3);
+    } // end sumLanes
+
+    static double minLanes(double[] values, int from, int to) {
+        double min0 = Double.POSITIVE_INFINITY, min1 = min0, min2 = min0, min3 = min0;
+        int i = from;
+        for (int end = to - 3; i < end; i += 4) {
+            min0 = values[i] < min0 ? values[i] : min0;
+            min1 = values[i + 1] < min1 ? values[i + 1] : min1;
+            min2 = values[i + 2] < min2 ? values[i + 2] : min2;
+            min3 = values[i + 3] < min3 ? values[i + 3] : min3;
+        }
+        for (; i < to; i++) min0 = values[i] < min0 ? values[i] : min0;
+        return Math.min(Math.min(min0, min1), Math.min(min2, min3));
+    } // end minLanes
+
+    static double maxLanes(double[] values, int from, int to) {
+        double max0 = Double.NEGATIVE_INFINITY, max1 = max0, max2 = max0, max3 = max0;
+        int i = from;
+        for (int end = to - 3; i < end; i += 4) {
+            max0 = values[i] > max0 ? values[i] : max0;
+            max1 = values[i + 1] > max1 ? values[i + 1] : max1;
+            max2 = values[i + 2] > max2 ? values[i + 2] : max2;
+            max3 = values[i + 3] > max3 ? values[i + 3] : max3;
+        }
+        for (; i < to; i++) max0 = values[i] > max0 ? values[i] : max0;
+        return Math.max(Math.max(max0, max1), Math.max(max2, max3));
+    } // end maxLanes
+
+    static int countAboveLanes(double[] values, int from, int to, double threshold) {
+        int count0 = 0, count1 = 0, count2 = 0, count3 = 0;
+        int i = from;
+        for (int end = to - 3; i < end; i += 4) {
+            // branch free, comparisons become 0 or 1
+            count0 += values[i] > threshold ? 1 : 0;
+            count1 += values[i + 1] > threshold ? 1 : 0;
+            count2 += values[i + 2] > threshold ? 1 : 0;
+            count3 += values[i + 3] > threshold ? 1 : 0;
+        }
+        for (; i < to; i++) count0 += values[i] > threshold ? 1 : 0;
+        return count0 + count1 + count2 + count3;
+    } // end countAboveLanes
+
+    static int[] histogramLanes(double[] values, int from, int to, double origin, double binWidth, int numberOfBins) {
+        // A count array per lane so consecutive values in the same bin don't wait on each other's stores
+        int[] bins0 = new int[numberOfBins], bins1 = new int[numberOfBins];
+        int[] bins2 = new int[numberOfBins], bins3 = new int[numberOfBins];
+        double scale = 1.0 / binWidth;
+        int i = from;
+        for (int end = to - 3; i < end; i += 4) {
+            bins0[getBin(values[i], origin, scale, numberOfBins)]++;
+            bins1[getBin(values[i + 1], origin, scale, numberOfBins)]++;
+            bins2[getBin(values[i + 2], origin, scale, numberOfBins)]++;
+            bins3[getBin(values[i + 3], origin, scale, numberOfBins)]++;
+        }
+        for (; i < to; i++) bins0[getBin(values[i], origin, scale, numberOfBins)]++;
+        for (int bin = 0; bin < numberOfBins; bin++) bins0[bin] += bins1[bin] + bins2[bin] + bins3[bin];
+        return bins0;
+    } // end histogramLanes
+
+    /**
+     * Helper method to find the bin of a value, clamped to the bins.
+     */
+    private static int getBin(double value, double origin, double scale, int numberOfBins) {
+        int bin = (int) ((value - origin) * scale); // NaN converts to 0
+        return Math.max(0, Math.min(numberOfBins - 1, bin));
+    } // end getBin
+
+    /**
+     * Helper method to check a range is within an array.
+     */
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new ArrayIndexOutOfBoundsException("Range [" + from + ", " + to + "), is Invalid");
+        }
+    } // end checkRange
+
+} // end class RainfallKernels
@@ -0,0 +1,161 @@
+package rainfall;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * An object of class RawDataMerger merges several raw rainfall csv files of one station, each sorted by date,
+ * into a single stream of records sorted by date. Files are read a record at a time through a heap of their
+ * current records, so memory is bounded by the number of files rather than their size.
+ * Where files hold the same day, the record of the file with the highest priority is kept and the others are
+ * skipped, so a newer download replaces overlapping days of an older one.
+ */
+class RawDataMerger implements RawRecordReader, Closeable {
+
+    private static final int INDEX_OF_YEAR = 2;
+    private static final int INDEX_OF_MONTH = 3;
+    private static final int INDEX_OF_DAY = 4;
+
+    private final List<BufferedReader> readers;
+    private final PriorityQueue<Cursor> cursors; // Current record of each file with records left
+    private long replacedDays; // Records skipped for a higher priority file's record of the same day
+    private String sourceName = ""; // File of the last record read
+    private long lineNumber; // Line of the last record read within its file
+
+    /**
+     * Constructor. Create a RawDataMerger and read the header and first record of each file.
+     *
+     * @param readers     Readers of the raw rainfall csv files, in increasing priority.
+     * @param sourceNames The names of the files, in the same order, for quarantined records.
+     * @throws IOException If a file cannot be read.
+     */
+    RawDataMerger(List<BufferedReader> readers, List<String> sourceNames) throws IOException {
+        this.readers = readers;
+        cursors = new PriorityQueue<>(Math.max(1, readers.size()));
+        for (int priority = 0; priority < readers.size(); priority++) {
+            Cursor cursor = new Cursor(readers.get(priority), sourceNames.get(priority), priority);
+            cursor.in.readLine(); // skip header
+            cursor.lineNumber = 1;
+            if (cursor.advance()) cursors.add(cursor);
+        }
+    } // end RawDataMerger constructor
+
+    /**
+     * Method to read the earliest remaining record across all files,
+     * skipping lower priority records of the same day.
+     *
+     * @return The csv values of the next record, or null once every file is read.
+     * @throws IOException If a file cannot be read.
+     */
+    @Override
+    public String[] readNextRecord() throws IOException {
+        Cursor cursor = cursors.poll();
+        if (cursor == null) return null;
+        String[] record = cursor.record;
+        int date = cursor.date;
+        sourceName = cursor.sourceName;
+        lineNumber = cursor.lineNumber;
+
+        // The winner is the highest priority file on this date, others on the same day are passed over
+        while (date >= 0 && !cursors.isEmpty() && cursors.peek().date == date) {
+            Cursor replaced = cursors.poll();
+            replacedDays++;
+            if (replaced.advance()) cursors.add(replaced);
+        }
+        if (cursor.advance()) cursors.add(cursor);
+        return record;
+    } // end readNextRecord
+
+    /**
+     * @return The name of the file the last record was read from.
+     */
+    @Override
+    public String getSourceName() {
+        return sourceName;
+    } // end getSourceName
+
+    /**
+     * @return The line number of the last record read within its file, counting the header as line 1.
+     */
+    @Override
+    public long getLineNumber(long recordsRead) {
+        return lineNumber;
+    } // end getLineNumber
+
+    /**
+     * @return The number of records skipped because a higher priority file held the same day.
+     */
+    long getReplacedDays() {
+        return replacedDays;
+    } // end getReplacedDays
+
+    /**
+     * Method to close every file.
+     *
+     * @throws IOException If a file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException closeError = null;
+        for (BufferedReader in : readers) {
+            try {
+                in.close();
+            } catch (IOException error) {
+                closeError = error;
+            }
+        }
+        if (closeError != null) throw closeError;
+    } // end close
+
+    /**
+     * An object of class Cursor holds the current record of one file, ordered by date
+     * then by decreasing priority.
+     */
+    private static class Cursor implements Comparable<Cursor> {
+        private final BufferedReader in;
+        private final String sourceName;
+        private final int priority;
+        private String[] record;
+        private long lineNumber; // Line of record within the file
+        private int date; // yyyymmdd of record, or -1 if it can't be read so analysis reports it
+
+        private Cursor(BufferedReader in, String sourceName, int priority) {
+            this.in = in;
+            this.sourceName = sourceName;
+            this.priority = priority;
+        } // end Cursor constructor
+
+        /**
+         * Method to read the file's next record.
+         *
+         * @return False once the file has no more records.
+         * @throws IOException If the file cannot be read.
+         */
+        private boolean advance() throws IOException {
+            String line = in.readLine();
+            if (line == null) {
+                record = null;
+                return false;
+            }
+            lineNumber++;
+            record = line.split(",", -1);
+            try {
+                date = Integer.parseInt(record[INDEX_OF_YEAR]) * 10000 + Integer.parseInt(record[INDEX_OF_MONTH]) * 100
+                        + Integer.parseInt(record[INDEX_OF_DAY]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException error) {
+                date = -1;
+            }
+            return true;
+        } // end advance
+
+        @Override
+        public int compareTo(Cursor other) {
+            if (date != other.date) return Integer.compare(date, other.date);
+            return Integer.compare(other.priority, priority);
+        } // end compareTo
+    } // end class Cursor
+
+} // end class RawDataMerger
@@ -0,0 +1,37 @@
+package rainfall;
+
+import java.io.IOException;
+
+/**
+ * A RawRecordReader supplies raw rainfall records, split into their csv values, to analysis.
+ */
+interface RawRecordReader {
+
+    /**
+     * Method to read the next raw rainfall record.
+     *
+     * @return The csv values of the next record, or null once there are no more records.
+     * @throws IOException If the raw rainfall data cannot be read.
+     */
+    String[] readNextRecord() throws IOException;
+
+    /**
+     * Method to find the raw rainfall data file the last record was read from, where several files are merged.
+     *
+     * @return The name of the file, or "" if records are read from a single file.
+     */
+    default String getSourceName() {
+        return "";
+    } // end getSourceName
+
+    /**
+     * Method to find the line of the last record read within its file.
+     *
+     * @param recordsRead The number of records read, including the last.
+     * @return The line number of the last record, counting the header as line 1.
+     */
+    default long getLineNumber(long recordsRead) {
+        return recordsRead + 1;
+    } // end getLineNumber
+
+} // end interface RawRecordReader
@@ -9,6 +9,7 @@ public class Record {
     private final double total;
     private final double min;
     private final double max;
+    private final int missingDays; // Bit (day - 1) set for each day without a rainfall reading
 
     /**
      * Constructor. Create a Record object and store values,
@@ -21,11 +22,27 @@ public class Record {
      * @param max   The maximum rainfall recorded for the specified month.
      */
     public Record(int year, int month, double total, double min, double max) {
+        this(year, month, total, min, max, 0);
+    } // end Record constructor
+
+    /**
+     * Constructor. Create a Record object with days missing a rainfall reading and store values,
+     * all values must be checked valid by program calling the constructor.
+     *
+     * @param year        The year the rainfall data was recorded.
+     * @param month       The month the rainfall data was recorded.
+     * @param total       The total rainfall in mm for the specified month.
+     * @param min         The minimum rainfall recorded for the specified month.
+     * @param max         The maximum rainfall recorded for the specified month.
+     * @param missingDays Bitset of the days without a rainfall reading, bit (day - 1) for each day.
+     */
+    public Record(int year, int month, double total, double min, double max, int missingDays) {
         this.year = year;
         this.month = month;
         this.total = total;
         this.min = min;
         this.max = max;
+        this.missingDays = missingDays;
     } // end Record constructor
 
     /**
@@ -63,6 +80,67 @@ public class Record {
         return max;
     } // end getMax
 
+    /**
+     * @return Bitset of the days without a rainfall reading, bit (day - 1) for each day.
+     */
+    public int getMissingDays() {
+        return missingDays;
+    } // end getMissingDays
+
+    /**
+     * @return The number of days without a rainfall reading.
+     */
+    public int getNumberOfMissingDays() {
+        return Integer.bitCount(missingDays);
+    } // end getNumberOfMissingDays
+
+    /**
+     * @return Whether every day of the month has a rainfall reading.
+     */
+    public boolean isComplete() {
+        return missingDays == 0;
+    } // end isComplete
+
+    /**
+     * @return Whether no day of the month has a rainfall reading.
+     */
+    public boolean isMissing() {
+        return missingDays == getMissingDays(year, month, 0);
+    } // end isMissing
+
+    /**
+     * Method to find the number of days in a month, without creating date objects.
+     *
+     * @param year  The year of the month.
+     * @param month The month, 1 to 12.
+     * @return The number of days in the month.
+     */
+    public static int getDaysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    } // end getDaysInMonth
+
+    /**
+     * Method to find the days of a month without a rainfall reading.
+     *
+     * @param year         The year of the month.
+     * @param month        The month.
+     * @param daysRecorded Bitset of the days with a rainfall reading, bit (day - 1) for each day.
+     * @return Bitset of the days of the month without a rainfall reading, bit (day - 1) for each day.
+     */
+    public static int getMissingDays(int year, int month, int daysRecorded) {
+        return ~daysRecorded & ((1 << getDaysInMonth(year, month)) - 1);
+    } // end getMissingDays
+
     /**
      * @return A string representation of Record in CSV format.
      */
@@ -0,0 +1,21 @@
+package rainfall;
+
+import java.io.IOException;
+
+/**
+ * A RowQuarantine receives the raw rainfall records a lenient analysis skips as invalid.
+ */
+interface RowQuarantine {
+
+    /**
+     * Method to quarantine a skipped raw rainfall record.
+     *
+     * @param sourceName The name of the raw rainfall data file of the record, or "" if analysis reads a single file.
+     * @param lineNumber The line number of the record in its file, counting the header as line 1.
+     * @param reason     The short reason the record was skipped, such as "illegal day".
+     * @param rawRecord  The values of the record.
+     * @throws IOException If the record cannot be written.
+     */
+    void quarantine(String sourceName, long lineNumber, String reason, String[] rawRecord) throws IOException;
+
+} // end interface RowQuarantine
@@ -0,0 +1,426 @@
+package rainfall;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * An object of class RunLengths holds the lengths of runs of consecutive dry days, with no rainfall,
+ * and of consecutive wet days, with more rainfall than a threshold, of a station's daily rainfall readings.
+ * Readings are added one at a time in date order as raw rainfall data is analysed, so runs carry across month
+ * and year boundaries while only the runs in progress are held, then each year's longest runs are kept once
+ * the year is read. A blank reading or a day without a record ends any run, as it is unknown whether it was dry.
+ * The RunLengths is persisted as "[station]_runs.csv" alongside the analysed file.
+ */
+public class RunLengths {
+
+    /**
+     * The number of histogram buckets, bucket n counts runs of n days and the last counts any longer runs.
+     */
+    public static final int HISTOGRAM_SIZE = 128;
+
+    private static final int INITIAL_YEARS = 16;
+    private static final String YEARS_HEADER = "year,longestDry,longestDryStart,longestWet,longestWetStart";
+    private static final String HISTOGRAM_HEADER = "length,dryRuns,wetRuns";
+
+    private final double wetThreshold;
+
+    // Runs in progress, start dates are packed as yyyymmdd and 0 when there is no run
+    private int lastDate; // Date of the last reading added
+    private int currentDryRun;
+    private int currentDryRunStart;
+    private int currentWetRun;
+    private int currentWetRunStart;
+
+    // Longest runs of the whole record
+    private int longestDryRun;
+    private int longestDryRunStart;
+    private int longestWetRun;
+    private int longestWetRunStart;
+    private final long[] dryRunHistogram = new long[HISTOGRAM_SIZE];
+    private final long[] wetRunHistogram = new long[HISTOGRAM_SIZE];
+
+    // Longest runs reaching into each year read, including days of earlier years of a run carried into the year
+    private int numberOfYears;
+    private int[] years = new int[INITIAL_YEARS];
+    private int[] yearLongestDryRuns = new int[INITIAL_YEARS];
+    private int[] yearLongestDryRunStarts = new int[INITIAL_YEARS];
+    private int[] yearLongestWetRuns = new int[INITIAL_YEARS];
+    private int[] yearLongestWetRunStarts = new int[INITIAL_YEARS];
+    private boolean finished;
+
+    /**
+     * Constructor. Create an empty RunLengths object.
+     *
+     * @param wetThreshold The rainfall in mm a day must exceed to be wet.
+     */
+    public RunLengths(double wetThreshold) {
+        if (!(wetThreshold >= 0)) throw new IllegalArgumentException("wetThreshold must not be negative: " + wetThreshold);
+        this.wetThreshold = wetThreshold;
+    } // end RunLengths constructor
+
+    /**
+     * Method to add a day's rainfall reading, days must be added in date order without repeats.
+     *
+     * @param year     The year of the reading.
+     * @param month    The month of the reading.
+     * @param day      The day of the reading.
+     * @param rainfall The rainfall in mm, or NaN if the reading is blank.
+     */
+    void add(int year, int month, int day, double rainfall) {
+        int date = year * 10000 + month * 100 + day;
+        if (numberOfYears == 0 || years[numberOfYears - 1] != year) startYear(year);
+        if (lastDate == 0 || date != nextDate(lastDate)) { // gap in the records
+            endDryRun();
+            endWetRun();
+        }
+        lastDate = date;
+
+        if (rainfall == 0) {
+            endWetRun();
+            if (currentDryRun++ == 0) currentDryRunStart = date;
+            int y = numberOfYears - 1;
+            if (currentDryRun > yearLongestDryRuns[y]) {
+                yearLongestDryRuns[y] = currentDryRun;
+                yearLongestDryRunStarts[y] = currentDryRunStart;
+            }
+        } else if (rainfall > wetThreshold) {
+            endDryRun();
+            if (currentWetRun++ == 0) currentWetRunStart = date;
+            int y = numberOfYears - 1;
+            if (currentWetRun > yearLongestWetRuns[y]) {
+                yearLongestWetRuns[y] = currentWetRun;
+                yearLongestWetRunStarts[y] = currentWetRunStart;
+            }
+        } else { // blank, or some rain but not wet
+            endDryRun();
+            endWetRun();
+        }
+    } // end add
+
+    /**
+     * Method to finish adding readings, counting the runs in progress in the histograms
+     * while keeping them as the current runs.
+     */
+    void finish() {
+        if (finished) return;
+        finished = true;
+        countRun(dryRunHistogram, currentDryRun);
+        countRun(wetRunHistogram, currentWetRun);
+        if (currentDryRun > longestDryRun) {
+            longestDryRun = currentDryRun;
+            longestDryRunStart = currentDryRunStart;
+        }
+        if (currentWetRun > longestWetRun) {
+            longestWetRun = currentWetRun;
+            longestWetRunStart = currentWetRunStart;
+        }
+    } // end finish
+
+    /**
+     * @return The rainfall in mm a day must exceed to be wet.
+     */
+    public double getWetThreshold() {
+        return wetThreshold;
+    } // end getWetThreshold
+
+    /**
+     * @return The length in days of the longest dry run.
+     */
+    public int getLongestDryRun() {
+        return longestDryRun;
+    } // end getLongestDryRun
+
+    /**
+     * @return The first day of the longest dry run, or null if there are no dry days.
+     */
+    public LocalDate getLongestDryRunStart() {
+        return toLocalDate(longestDryRunStart);
+    } // end getLongestDryRunStart
+
+    /**
+     * @return The length in days of the longest wet run.
+     */
+    public int getLongestWetRun() {
+        return longestWetRun;
+    } // end getLongestWetRun
+
+    /**
+     * @return The first day of the longest wet run, or null if there are no wet days.
+     */
+    public LocalDate getLongestWetRunStart() {
+        return toLocalDate(longestWetRunStart);
+    } // end getLongestWetRunStart
+
+    /**
+     * @return The length in days of the dry run in progress at the last reading, 0 if the last day wasn't dry.
+     */
+    public int getCurrentDryRun() {
+        return currentDryRun;
+    } // end getCurrentDryRun
+
+    /**
+     * @return The first day of the dry run in progress at the last reading, or null if the last day wasn't dry.
+     */
+    public LocalDate getCurrentDryRunStart() {
+        return toLocalDate(currentDryRunStart);
+    } // end getCurrentDryRunStart
+
+    /**
+     * @return The length in days of the wet run in progress at the last reading, 0 if the last day wasn't wet.
+     */
+    public int getCurrentWetRun() {
+        return currentWetRun;
+    } // end getCurrentWetRun
+
+    /**
+     * @return The first day of the wet run in progress at the last reading, or null if the last day wasn't wet.
+     */
+    public LocalDate getCurrentWetRunStart() {
+        return toLocalDate(currentWetRunStart);
+    } // end getCurrentWetRunStart
+
+    /**
+     * @return The number of dry runs by length, element n counts runs of n days and the last element longer runs.
+     */
+    public long[] getDryRunHistogram() {
+        return dryRunHistogram.clone();
+    } // end getDryRunHistogram
+
+    /**
+     * @return The number of wet runs by length, element n counts runs of n days and the last element longer runs.
+     */
+    public long[] getWetRunHistogram() {
+        return wetRunHistogram.clone();
+    } // end getWetRunHistogram
+
+    /**
+     * @return The number of years with readings.
+     */
+    public int getNumberOfYears() {
+        return numberOfYears;
+    } // end getNumberOfYears
+
+    /**
+     * @param i The index of the year, years are in date order.
+     * @return The year at position i.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public int getYear(int i) {
+        checkIndex(i);
+        return years[i];
+    } // end getYear
+
+    /**
+     * @param i The index of the year.
+     * @return The length in days of the longest dry run reaching into the year at position i,
+     * including any days of the run in earlier years.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public int getYearLongestDryRun(int i) {
+        checkIndex(i);
+        return yearLongestDryRuns[i];
+    } // end getYearLongestDryRun
+
+    /**
+     * @param i The index of the year.
+     * @return The first day of the longest dry run reaching into the year at position i, or null if none.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public LocalDate getYearLongestDryRunStart(int i) {
+        checkIndex(i);
+        return toLocalDate(yearLongestDryRunStarts[i]);
+    } // end getYearLongestDryRunStart
+
+    /**
+     * @param i The index of the year.
+     * @return The length in days of the longest wet run reaching into the year at position i,
+     * including any days of the run in earlier years.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public int getYearLongestWetRun(int i) {
+        checkIndex(i);
+        return yearLongestWetRuns[i];
+    } // end getYearLongestWetRun
+
+    /**
+     * @param i The index of the year.
+     * @return The first day of the longest wet run reaching into the year at position i, or null if none.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public LocalDate getYearLongestWetRunStart(int i) {
+        checkIndex(i);
+        return toLocalDate(yearLongestWetRunStarts[i]);
+    } // end getYearLongestWetRunStart
+
+    /**
+     * Method to persist the RunLengths, replacing the runs file atomically.
+     *
+     * @param runsFile The runs file to write.
+     * @throws IOException If the runs file cannot be written.
+     */
+    public void write(File runsFile) throws IOException {
+        Path target = runsFile.toPath();
+        AtomicFiles.replace(target, out -> {
+            out.write("wetThreshold," + wetThreshold + "\n");
+            out.write("current," + currentDryRun + "," + currentDryRunStart + "," + currentWetRun + ","
+                    + currentWetRunStart + "\n");
+            out.write(YEARS_HEADER + "\n");
+            for (int i = 0; i < numberOfYears; i++) {
+                out.write(years[i] + "," + yearLongestDryRuns[i] + "," + yearLongestDryRunStarts[i] + ","
+                        + yearLongestWetRuns[i] + "," + yearLongestWetRunStarts[i] + "\n");
+            }
+            out.write("all," + longestDryRun + "," + longestDryRunStart + "," + longestWetRun + ","
+                    + longestWetRunStart + "\n");
+            out.write(HISTOGRAM_HEADER + "\n");
+            for (int length = 1; length < HISTOGRAM_SIZE; length++) {
+                out.write(length + "," + dryRunHistogram[length] + "," + wetRunHistogram[length] + "\n");
+            }
+        });
+    } // end write
+
+    /**
+     * Method to read a persisted RunLengths.
+     *
+     * @param runsFile The runs file written by write.
+     * @return RunLengths read, or null if the runs file doesn't exist or is invalid.
+     */
+    public static RunLengths read(File runsFile) {
+        if (!runsFile.exists()) return null;
+        try (BufferedReader in = new BufferedReader(new FileReader(runsFile, StandardCharsets.UTF_8))) {
+            RunLengths runLengths = new RunLengths(Double.parseDouble(readValues(in, "wetThreshold")[1]));
+            int[] current = parseInts(readValues(in, "current"));
+            runLengths.currentDryRun = current[0];
+            runLengths.currentDryRunStart = current[1];
+            runLengths.currentWetRun = current[2];
+            runLengths.currentWetRunStart = current[3];
+            if (!YEARS_HEADER.equals(in.readLine())) return null;
+
+            String line;
+            while ((line = in.readLine()) != null && !line.startsWith("all,")) {
+                int[] values = parseInts(("year," + line).split(","));
+                runLengths.startYear(values[0]);
+                int y = runLengths.numberOfYears - 1;
+                runLengths.yearLongestDryRuns[y] = values[1];
+                runLengths.yearLongestDryRunStarts[y] = values[2];
+                runLengths.yearLongestWetRuns[y] = values[3];
+                runLengths.yearLongestWetRunStarts[y] = values[4];
+            }
+            if (line == null) return null;
+            int[] longest = parseInts(line.split(","));
+            runLengths.longestDryRun = longest[0];
+            runLengths.longestDryRunStart = longest[1];
+            runLengths.longestWetRun = longest[2];
+            runLengths.longestWetRunStart = longest[3];
+
+            if (!HISTOGRAM_HEADER.equals(in.readLine())) return null;
+            for (int length = 1; length < HISTOGRAM_SIZE; length++) {
+                String[] values = in.readLine().split(",");
+                if (Integer.parseInt(values[0]) != length) return null;
+                runLengths.dryRunHistogram[length] = Long.parseLong(values[1]);
+                runLengths.wetRunHistogram[length] = Long.parseLong(values[2]);
+            }
+            runLengths.finished = true;
+            return runLengths;
+        } catch (IOException | RuntimeException error) { // unreadable or corrupt, analyse again
+            return null;
+        }
+    } // end read
+
+    /**
+     * @return A string representation of RunLengths.
+     */
+    public String toString() {
+        return String.format("RunLengths[wetThreshold=%s, longestDry=%d from %s, longestWet=%d from %s, years=%d]",
+                wetThreshold, longestDryRun, getLongestDryRunStart(), longestWetRun, getLongestWetRunStart(),
+                numberOfYears);
+    } // end toString
+
+    /**
+     * Helper method to add a year, growing the year columns if needed.
+     */
+    private void startYear(int year) {
+        if (numberOfYears == years.length) {
+            int capacity = years.length * 2;
+            years = Arrays.copyOf(years, capacity);
+            yearLongestDryRuns = Arrays.copyOf(yearLongestDryRuns, capacity);
+            yearLongestDryRunStarts = Arrays.copyOf(yearLongestDryRunStarts, capacity);
+            yearLongestWetRuns = Arrays.copyOf(yearLongestWetRuns, capacity);
+            yearLongestWetRunStarts = Arrays.copyOf(yearLongestWetRunStarts, capacity);
+        }
+        years[numberOfYears++] = year;
+    } // end startYear
+
+    private void endDryRun() {
+        if (currentDryRun == 0) return;
+        countRun(dryRunHistogram, currentDryRun);
+        if (currentDryRun > longestDryRun) {
+            longestDryRun = currentDryRun;
+            longestDryRunStart = currentDryRunStart;
+        }
+        currentDryRun = 0;
+        currentDryRunStart = 0;
+    } // end endDryRun
+
+    private void endWetRun() {
+        if (currentWetRun == 0) return;
+        countRun(wetRunHistogram, currentWetRun);
+        if (currentWetRun > longestWetRun) {
+            longestWetRun = currentWetRun;
+            longestWetRunStart = currentWetRunStart;
+        }
+        currentWetRun = 0;
+        currentWetRunStart = 0;
+    } // end endWetRun
+
+    private static void countRun(long[] histogram, int length) {
+        if (length > 0) histogram[Math.min(length, HISTOGRAM_SIZE - 1)]++;
+    } // end countRun
+
+    /**
+     * Helper method to find the day after a date, without creating date objects.
+     *
+     * @param date The date packed as yyyymmdd.
+     * @return The next date packed as yyyymmdd.
+     */
+    private static int nextDate(int date) {
+        int year = date / 10000;
+        int month = date / 100 % 100;
+        int day = date % 100;
+        if (day < Record.getDaysInMonth(year, month)) return date + 1;
+        if (month < 12) return year * 10000 + (month + 1) * 100 + 1;
+        return (year + 1) * 10000 + 101;
+    } // end nextDate
+
+    private static LocalDate toLocalDate(int date) {
+        return date == 0 ? null : LocalDate.of(date / 10000, date / 100 % 100, date % 100);
+    } // end toLocalDate
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= numberOfYears) throw new ArrayIndexOutOfBoundsException(i);
+    } // end checkIndex
+
+    /**
+     * Helper method to read a "name,values..." line of a persisted RunLengths.
+     */
+    private static String[] readValues(BufferedReader in, String name) throws IOException {
+        String line = in.readLine();
+        if (line == null || !line.startsWith(name + ",")) throw new IOException("invalid runs file");
+        return line.split(",");
+    } // end readValues
+
+    /**
+     * Helper method to parse the values after the name of a line.
+     */
+    private static int[] parseInts(String[] values) {
+        int[] ints = new int[values.length - 1];
+        for (int i = 1; i < values.length; i++) ints[i - 1] = Integer.parseInt(values[i]);
+        return ints;
+    } // end parseInts
+
+} // end class RunLengths
@@ -0,0 +1,312 @@
+package rainfall;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An object of class SessionSnapshot holds what a RainfallVisualiser session displayed, so the next launch can show
+ * it straight away: the directory and station names opened, the first station's Records in the OffHeapStation
+ * file format, the chart's pixels and the fingerprints of the rainfall files the display was loaded from.
+ * The snapshot is shown while {@link #isCurrent()} checks the rainfall files in the background.
+ * A session directory holds "session.csv" naming the files of the latest snapshot, which is replaced atomically
+ * after the station and chart files are written, so a partly written snapshot is never read.
+ */
+public class SessionSnapshot {
+
+    private static final String SESSION_FILE_NAME = "session.csv";
+    private static final String VERSION = "1";
+
+    private final String directoryName;
+    private final String stationNames; // As entered, comma separated when stations are overlaid
+    private final List<StationFingerprint> fingerprints;
+    private final Station station; // First station displayed
+    private final int chartWidth;
+    private final int chartHeight;
+    private final int[] chartPixels; // ARGB, row by row, null if the chart hasn't been captured
+
+    /**
+     * Constructor. Create a SessionSnapshot object and store values.
+     */
+    private SessionSnapshot(String directoryName, String stationNames, List<StationFingerprint> fingerprints,
+                            Station station, int chartWidth, int chartHeight, int[] chartPixels) {
+        this.directoryName = directoryName;
+        this.stationNames = stationNames;
+        this.fingerprints = fingerprints;
+        this.station = station;
+        this.chartWidth = chartWidth;
+        this.chartHeight = chartHeight;
+        this.chartPixels = chartPixels;
+    } // end SessionSnapshot constructor
+
+    /**
+     * Method to capture the stations displayed and the fingerprints of their rainfall files,
+     * which should be called when the stations are loaded so later changes to the files are detected.
+     *
+     * @param directoryName The path to the directory of the stations.
+     * @param stationNames  The names of the stations as entered, comma separated when overlaid.
+     * @param station       The first station displayed.
+     * @return SessionSnapshot without a chart.
+     */
+    public static SessionSnapshot capture(String directoryName, String stationNames, Station station) {
+        List<StationFingerprint> fingerprints = new ArrayList<>();
+        for (String stationName : stationNames.split(",")) {
+            if (stationName.isBlank()) continue;
+            fingerprints.add(StationFingerprint.of(directoryName, stationName.strip()));
+        }
+        return new SessionSnapshot(directoryName, stationNames, Collections.unmodifiableList(fingerprints), station,
+                0, 0, null);
+    } // end capture
+
+    /**
+     * @param width  The width of the chart in pixels.
+     * @param height The height of the chart in pixels.
+     * @param pixels The ARGB pixels of the chart, row by row.
+     * @return Copy of SessionSnapshot with the chart's pixels.
+     */
+    public SessionSnapshot withChart(int width, int height, int[] pixels) {
+        if (width <= 0 || height <= 0 || pixels.length != width * height) {
+            throw new IllegalArgumentException("pixels don't match chart size " + width + "x" + height);
+        }
+        return new SessionSnapshot(directoryName, stationNames, fingerprints, station, width, height, pixels);
+    } // end withChart
+
+    /**
+     * Method to check the rainfall files of every station are unchanged since the snapshot was captured,
+     * reading only their sizes and modified times.
+     *
+     * @return Whether the snapshot still shows the stations' rainfall data.
+     */
+    public boolean isCurrent() {
+        for (StationFingerprint fingerprint : fingerprints) {
+            if (!fingerprint.equals(StationFingerprint.of(directoryName, fingerprint.stationName))) return false;
+        }
+        return true;
+    } // end isCurrent
+
+    /**
+     * Method to persist the SessionSnapshot, replacing the session directory's previous snapshot.
+     *
+     * @param sessionDirectory The session directory, created if needed.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public void write(Path sessionDirectory) throws IOException {
+        if (chartPixels == null) throw new IOException("chart not captured");
+        Files.createDirectories(sessionDirectory);
+        String generation = Long.toHexString(System.nanoTime()) + Long.toHexString(System.currentTimeMillis());
+        String stationFileName = "station-" + generation + ".bin";
+        String chartFileName = "chart-" + generation + ".argb";
+
+        OffHeapStation.write(station, sessionDirectory.resolve(stationFileName));
+        ByteBuffer pixels = ByteBuffer.allocate(chartPixels.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        pixels.asIntBuffer().put(chartPixels);
+        try (FileChannel channel = FileChannel.open(sessionDirectory.resolve(chartFileName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (pixels.hasRemaining()) channel.write(pixels);
+        }
+
+        Path target = sessionDirectory.resolve(SESSION_FILE_NAME);
+        AtomicFiles.replace(target, out -> {
+            out.write("version," + VERSION + "\n");
+            out.write("directory," + directoryName + "\n");
+            out.write("stations," + stationNames + "\n");
+            out.write("stationFile," + stationFileName + "\n");
+            out.write("chartFile," + chartFileName + "\n");
+            out.write("chartSize," + chartWidth + "," + chartHeight + "\n");
+            for (StationFingerprint fingerprint : fingerprints) out.write(fingerprint + "\n");
+        });
+
+        // Remove earlier snapshots' files, now unreferenced
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(sessionDirectory, "{station-*.bin,chart-*.argb}")) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.equals(stationFileName) && !fileName.equals(chartFileName)) Files.deleteIfExists(file);
+            }
+        }
+    } // end write
+
+    /**
+     * Method to read the latest persisted SessionSnapshot of a session directory.
+     *
+     * @param sessionDirectory The session directory.
+     * @return SessionSnapshot read, or null if there is none or it is invalid.
+     */
+    public static SessionSnapshot read(Path sessionDirectory) {
+        Path sessionFile = sessionDirectory.resolve(SESSION_FILE_NAME);
+        if (!Files.exists(sessionFile)) return null;
+        try (BufferedReader in = Files.newBufferedReader(sessionFile, StandardCharsets.UTF_8)) {
+            if (!VERSION.equals(readValue(in, "version"))) return null;
+            String directoryName = readValue(in, "directory");
+            String stationNames = readValue(in, "stations");
+            Path stationFile = sessionDirectory.resolve(readValue(in, "stationFile"));
+            Path chartFile = sessionDirectory.resolve(readValue(in, "chartFile"));
+            String[] chartSize = readValue(in, "chartSize").split(",");
+            int chartWidth = Integer.parseInt(chartSize[0]);
+            int chartHeight = Integer.parseInt(chartSize[1]);
+            List<StationFingerprint> fingerprints = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) fingerprints.add(StationFingerprint.parse(line));
+
+            // Copy the station onto the heap so the mapped file can be replaced by the next snapshot
+            Station station;
+            try (OffHeapStation offHeapStation = OffHeapStation.map(stationFile)) {
+                StationBuilder stationBuilder = new StationBuilder();
+                for (int i = 0; i < offHeapStation.getNumberOfRecords(); i++) {
+                    stationBuilder.addRecord(offHeapStation.getYear(i), offHeapStation.getMonth(i),
+                            offHeapStation.getTotal(i), offHeapStation.getMin(i), offHeapStation.getMax(i),
+                            offHeapStation.getMissingDays(i));
+                }
+                station = stationBuilder.build();
+            }
+
+            int[] chartPixels = new int[Math.multiplyExact(chartWidth, chartHeight)];
+            try (FileChannel channel = FileChannel.open(chartFile, StandardOpenOption.READ)) {
+                if (channel.size() != (long) chartPixels.length * Integer.BYTES) return null;
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN)
+                        .asIntBuffer().get(chartPixels);
+            }
+            return new SessionSnapshot(directoryName, stationNames, Collections.unmodifiableList(fingerprints), station,
+                    chartWidth, chartHeight, chartPixels);
+        } catch (IOException | RuntimeException error) { // unreadable or corrupt, start blank
+            return null;
+        }
+    } // end read
+
+    /**
+     * @return The session directory used when none is configured, ".rainfall-session" in the user's home directory
+     * unless the system property rainfall.session.dir is set.
+     */
+    public static Path getDefaultDirectory() {
+        String configured = System.getProperty("rainfall.session.dir");
+        if (configured != null) return Paths.get(configured);
+        return Paths.get(System.getProperty("user.home"), ".rainfall-session");
+    } // end getDefaultDirectory
+
+    /**
+     * @return The value of directoryName.
+     */
+    public String getDirectoryName() {
+        return directoryName;
+    } // end getDirectoryName
+
+    /**
+     * @return The value of stationNames, comma separated when stations were overlaid.
+     */
+    public String getStationNames() {
+        return stationNames;
+    } // end getStationNames
+
+    /**
+     * @return The first station displayed.
+     */
+    public Station getStation() {
+        return station;
+    } // end getStation
+
+    /**
+     * @return The width of the chart in pixels.
+     */
+    public int getChartWidth() {
+        return chartWidth;
+    } // end getChartWidth
+
+    /**
+     * @return The height of the chart in pixels.
+     */
+    public int getChartHeight() {
+        return chartHeight;
+    } // end getChartHeight
+
+    /**
+     * @return The ARGB pixels of the chart, row by row, or null if the chart hasn't been captured.
+     * The array is the snapshot's own and must not be modified.
+     */
+    public int[] getChartPixels() {
+        return chartPixels;
+    } // end getChartPixels
+
+    /**
+     * @return A string representation of SessionSnapshot.
+     */
+    public String toString() {
+        return String.format("SessionSnapshot[directory=%s, stations=%s, chart=%dx%d]", directoryName, stationNames,
+                chartWidth, chartHeight);
+    } // end toString
+
+    /**
+     * Helper method to read a "name,value" line of a persisted snapshot.
+     */
+    private static String readValue(BufferedReader in, String name) throws IOException {
+        String line = in.readLine();
+        if (line == null || !line.startsWith(name + ",")) throw new IOException("invalid session file");
+        return line.substring(name.length() + 1);
+    } // end readValue
+
+    /**
+     * An object of class StationFingerprint identifies the versions of a station's analysed and raw rainfall files.
+     */
+    private static class StationFingerprint {
+        private final String stationName;
+        private final FileFingerprint analysedFingerprint; // null if the station has no analysed file
+        private final FileFingerprint rawFingerprint; // null if the station has no raw data file
+
+        private StationFingerprint(String stationName, FileFingerprint analysedFingerprint, FileFingerprint rawFingerprint) {
+            this.stationName = stationName;
+            this.analysedFingerprint = analysedFingerprint;
+            this.rawFingerprint = rawFingerprint;
+        } // end StationFingerprint constructor
+
+        private static StationFingerprint of(String directoryName, String stationName) {
+            File rawDataFile = Loader.findRawDataFile(directoryName, stationName);
+            FileFingerprint analysedFingerprint;
+            try {
+                analysedFingerprint = FileFingerprint.of(Loader.findAnalysedFile(directoryName, stationName, rawDataFile));
+            } catch (Loader.LoaderException error) { // unusable cache, so the station can't be loaded either
+                analysedFingerprint = null;
+            }
+            return new StationFingerprint(stationName, analysedFingerprint,
+                    rawDataFile == null ? null : FileFingerprint.of(rawDataFile));
+        } // end of
+
+        private static StationFingerprint parse(String line) {
+            String[] values = line.split(",", -1);
+            if (values.length != 4 || !values[0].equals("station")) throw new IllegalArgumentException("invalid station line");
+            return new StationFingerprint(values[1], FileFingerprint.parse(values[2]), FileFingerprint.parse(values[3]));
+        } // end parse
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof StationFingerprint)) return false;
+            StationFingerprint fingerprint = (StationFingerprint) other;
+            return stationName.equals(fingerprint.stationName)
+                    && Objects.equals(analysedFingerprint, fingerprint.analysedFingerprint)
+                    && Objects.equals(rawFingerprint, fingerprint.rawFingerprint);
+        } // end equals
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(stationName, analysedFingerprint, rawFingerprint);
+        } // end hashCode
+
+        @Override
+        public String toString() {
+            return "station," + stationName + "," + (analysedFingerprint == null ? "" : analysedFingerprint) + ","
+                    + (rawFingerprint == null ? "" : rawFingerprint);
+        } // end toString
+
+    } // end class StationFingerprint
+
+} // end class SessionSnapshot
@@ -1,32 +1,88 @@
 package rainfall;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An object of class Station represents monthly rainfall data of a station,
  * where each Record is a month's rainfall statistics.
+ * Records are stored as primitive columns, so Records returned are created on request.
+ * Station objects are immutable once built by a {@link StationBuilder}, so one Station can be read by any
+ * number of threads without locking. A Station with a month appended is derived with {@link #withRecord(Record)},
+ * which shares the columns of the Station it is derived from where it can.
+ * A Station loaded with only some columns, see {@link LoadOptions#withColumns}, has no storage for the others,
+ * and reading them, including creating Records, throws IllegalStateException.
  */
 public class Station {
 
-    private final List<Record> rainfallRecords; // List to store Records
+    // Columns of Record values, filled up to numberOfRecords and never changed below it, null if not loaded
+    private final int[] years;
+    private final int[] months;
+    private final double[] totals;
+    private final double[] mins;
+    private final double[] maxes;
+    private final int[] missingDays;
+    private final int numberOfRecords;
+    // Number of elements of the columns used by any Station sharing them, null if the columns aren't shared
+    private final AtomicInteger usedLength;
 
     /**
-     * Constructor. Create a Station object and initialise ArrayList.
+     * Constructor. Create an empty Station object, for subclasses storing their columns elsewhere.
      */
-    public Station() {
-        rainfallRecords = new ArrayList<>();
+    Station() {
+        this(new int[0], new int[0], new double[0], new double[0], new double[0], new int[0], 0, null);
     } // end Station constructor
 
     /**
-     * Method to add Record to Station object,
-     * all values must be checked valid by program calling the method.
+     * Constructor. Create a Station object over columns, which must not be changed below numberOfRecords after.
+     * Rainfall and missing days columns are null if not loaded.
      *
-     * @param record The Record object to be added to Station.
+     * @param numberOfRecords The number of Records filled in the columns.
+     * @param usedLength      The number of elements used by Stations sharing the columns,
+     *                        or null if they are not shared and are exactly numberOfRecords long.
      */
-    public void addRecord(Record record) {
-        rainfallRecords.add(record);
-    } // end addRecord
+    Station(int[] years, int[] months, double[] totals, double[] mins, double[] maxes, int[] missingDays,
+            int numberOfRecords, AtomicInteger usedLength) {
+        this.years = years;
+        this.months = months;
+        this.totals = totals;
+        this.mins = mins;
+        this.maxes = maxes;
+        this.missingDays = missingDays;
+        this.numberOfRecords = numberOfRecords;
+        this.usedLength = usedLength;
+    } // end Station constructor
+
+    /**
+     * Method to derive a Station with a Record appended, this Station is unchanged.
+     * The derived Station shares this Station's columns when it is the first derived by appending to them and they
+     * have room, otherwise the columns are copied with room to grow, so appending to the latest version of a
+     * Station repeatedly takes constant time on average. All values must be checked valid by the calling program.
+     *
+     * Only the columns loaded in this Station are appended to.
+     *
+     * @param record The Record to append.
+     * @return Station holding this Station's Records followed by record.
+     */
+    public Station withRecord(Record record) {
+        int n = getNumberOfRecords(); // subclasses may store their columns elsewhere
+        if (usedLength != null && n < years.length && usedLength.compareAndSet(n, n + 1)) {
+            // Claimed the element after this Station's Records, which no other Station reads
+            setRecord(years, months, totals, mins, maxes, missingDays, n, record);
+            return new Station(years, months, totals, mins, maxes, missingDays, n + 1, usedLength);
+        }
+        int capacity = Math.max(16, n * 2);
+        int[] newYears = Arrays.copyOf(getYearColumn(), capacity);
+        int[] newMonths = Arrays.copyOf(getMonthColumn(), capacity);
+        double[] newTotals = hasColumn(LoadOptions.Column.TOTAL) ? Arrays.copyOf(getTotalColumn(), capacity) : null;
+        double[] newMins = hasColumn(LoadOptions.Column.MIN) ? Arrays.copyOf(getMinColumn(), capacity) : null;
+        double[] newMaxes = hasColumn(LoadOptions.Column.MAX) ? Arrays.copyOf(getMaxColumn(), capacity) : null;
+        int[] newMissingDays = hasColumn(LoadOptions.Column.MISSING_DAYS)
+                ? Arrays.copyOf(getMissingDaysColumn(), capacity) : null;
+        setRecord(newYears, newMonths, newTotals, newMins, newMaxes, newMissingDays, n, record);
+        return new Station(newYears, newMonths, newTotals, newMins, newMaxes, newMissingDays, n + 1,
+                new AtomicInteger(n + 1));
+    } // end withRecord
 
     /**
      * Method to find and return specific Record Object.
@@ -37,9 +93,9 @@ public class Station {
      * otherwise returns null.
      */
     public Record getRecord(int year, int month) {
-        for (Record record : rainfallRecords) {
-            if (record.getYear() == year && record.getMonth() == month) {
-                return record;
+        for (int i = 0; i < numberOfRecords; i++) {
+            if (years[i] == year && months[i] == month) {
+                return getRecord(i);
             }
         }
         return null;
@@ -51,22 +107,129 @@ public class Station {
      * @param i The index of the requested Record object.
      * @return The Record object at position i in Station.
      * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     * @throws IllegalStateException if any column was not loaded.
      */
     public Record getRecord(int i) {
-        if (i >= rainfallRecords.size()) {
-            throw new ArrayIndexOutOfBoundsException("Index %i, is Invalid");
-        } else {
-            return rainfallRecords.get(i);
-        }
+        checkIndex(i);
+        return new Record(years[i], months[i], loaded(totals, "total")[i], loaded(mins, "min")[i],
+                loaded(maxes, "max")[i], loaded(missingDays, "missing days")[i]);
     } // end getRecord
 
+    /**
+     * @param i The index of the Record.
+     * @return The year of the Record at position i in Station.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public int getYear(int i) {
+        checkIndex(i);
+        return years[i];
+    } // end getYear
+
+    /**
+     * @param i The index of the Record.
+     * @return The month of the Record at position i in Station.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public int getMonth(int i) {
+        checkIndex(i);
+        return months[i];
+    } // end getMonth
+
+    /**
+     * @param i The index of the Record.
+     * @return The total rainfall of the Record at position i in Station.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public double getTotal(int i) {
+        checkIndex(i);
+        return loaded(totals, "total")[i];
+    } // end getTotal
+
+    /**
+     * @param i The index of the Record.
+     * @return The minimum rainfall of the Record at position i in Station.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public double getMin(int i) {
+        checkIndex(i);
+        return loaded(mins, "min")[i];
+    } // end getMin
+
+    /**
+     * @param i The index of the Record.
+     * @return The maximum rainfall of the Record at position i in Station.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public double getMax(int i) {
+        checkIndex(i);
+        return loaded(maxes, "max")[i];
+    } // end getMax
+
+    /**
+     * @param i The index of the Record.
+     * @return The total rainfall in whole tenths of a mm of the Record at position i in Station,
+     * exact for a {@link FixedPointStation}, otherwise rounded.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public int getTotalTenths(int i) {
+        return (int) Math.round(getTotal(i) * 10);
+    } // end getTotalTenths
+
+    /**
+     * @param i The index of the Record.
+     * @return The minimum rainfall in whole tenths of a mm of the Record at position i in Station,
+     * exact for a {@link FixedPointStation}, otherwise rounded.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public int getMinTenths(int i) {
+        return (int) Math.round(getMin(i) * 10);
+    } // end getMinTenths
+
+    /**
+     * @param i The index of the Record.
+     * @return The maximum rainfall in whole tenths of a mm of the Record at position i in Station,
+     * exact for a {@link FixedPointStation}, otherwise rounded.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public int getMaxTenths(int i) {
+        return (int) Math.round(getMax(i) * 10);
+    } // end getMaxTenths
+
+    /**
+     * @param i The index of the Record.
+     * @return Bitset of the days without a rainfall reading of the Record at position i in Station.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public int getMissingDays(int i) {
+        checkIndex(i);
+        return loaded(missingDays, "missing days")[i];
+    } // end getMissingDays
+
+    /**
+     * @param i The index of the Record.
+     * @return Whether every day of the Record at position i in Station has a rainfall reading.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public boolean isComplete(int i) {
+        return getMissingDays(i) == 0;
+    } // end isComplete
+
+    /**
+     * @param i The index of the Record.
+     * @return Whether no day of the Record at position i in Station has a rainfall reading.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    public boolean isMissing(int i) {
+        return getMissingDays(i) == Record.getMissingDays(getYear(i), getMonth(i), 0);
+    } // end isMissing
+
     /**
      * Method finds the number of Records in Station object.
      *
      * @return Number of Records in Station object.
      */
     public int getNumberOfRecords() {
-        return rainfallRecords.size();
+        return numberOfRecords;
     } // end numberOfRecords
 
     /**
@@ -75,11 +238,114 @@ public class Station {
      * @return The highest monthly rainfall value.
      */
     public double getMaxRainfallValue() {
-        double maxRainfall = Double.NEGATIVE_INFINITY;
-        for (Record record : rainfallRecords) {
-            if (record.getTotal() > maxRainfall) maxRainfall = record.getTotal();
-        }
-        return maxRainfall;
+        return RainfallKernels.max(loaded(totals, "total"), 0, numberOfRecords);
     } // end getMaxRainfallValue
 
+    /**
+     * @param column The column.
+     * @return Whether the column was loaded into Station.
+     */
+    public boolean hasColumn(LoadOptions.Column column) {
+        switch (column) {
+            case TOTAL:
+                return totals != null;
+            case MIN:
+                return mins != null;
+            case MAX:
+                return maxes != null;
+            default:
+                return missingDays != null;
+        }
+    } // end hasColumn
+
+    /**
+     * Method estimates the heap memory used by Station object, for weighing Station objects in a StationCache.
+     *
+     * @return Approximate number of bytes used by Station object and its columns.
+     */
+    long getApproximateBytes() {
+        // Object header and fields, plus the column arrays loaded
+        long bytesPerRecord = 2L * Integer.BYTES;
+        int arrays = 2;
+        for (Object column : new Object[]{totals, mins, maxes}) {
+            if (column != null) {
+                bytesPerRecord += Double.BYTES;
+                arrays++;
+            }
+        }
+        if (missingDays != null) {
+            bytesPerRecord += Integer.BYTES;
+            arrays++;
+        }
+        return 64 + arrays * 16 + bytesPerRecord * years.length;
+    } // end getApproximateBytes
+
+    /*
+     * Column accessors for loops within the package, such as StationQuery. Arrays are the Station's
+     * own storage, or a copy for subclasses storing columns elsewhere, valid up to getNumberOfRecords()
+     * and must not be modified, or null if the column was not loaded. Storage may be longer, and shared with Stations derived by withRecord.
+     */
+
+    int[] getYearColumn() {
+        return years;
+    } // end getYearColumn
+
+    int[] getMonthColumn() {
+        return months;
+    } // end getMonthColumn
+
+    double[] getTotalColumn() {
+        return totals;
+    } // end getTotalColumn
+
+    double[] getMinColumn() {
+        return mins;
+    } // end getMinColumn
+
+    double[] getMaxColumn() {
+        return maxes;
+    } // end getMaxColumn
+
+    int[] getMissingDaysColumn() {
+        return missingDays;
+    } // end getMissingDaysColumn
+
+    /**
+     * Helper method to set the values of a Record in columns.
+     */
+    private static void setRecord(int[] years, int[] months, double[] totals, double[] mins, double[] maxes,
+                                  int[] missingDays, int i, Record record) {
+        years[i] = record.getYear();
+        months[i] = record.getMonth();
+        if (totals != null) totals[i] = record.getTotal();
+        if (mins != null) mins[i] = record.getMin();
+        if (maxes != null) maxes[i] = record.getMax();
+        if (missingDays != null) missingDays[i] = record.getMissingDays();
+    } // end setRecord
+
+    /**
+     * Helper method to return a column or fail if it was not loaded.
+     *
+     * @param column The column.
+     * @param name   The name of the column, for the exception.
+     * @return The column.
+     * @throws IllegalStateException if the column was not loaded.
+     */
+    static <T> T loaded(T column, String name) {
+        if (column == null) throw new IllegalStateException(name + " column not loaded");
+        return column;
+    } // end loaded
+
+    /**
+     * Helper method to check an index is within the Records of Station.
+     *
+     * @param i The index to check.
+     * @throws ArrayIndexOutOfBoundsException for values of i, that are out of bounds.
+     */
+    private void checkIndex(int i) {
+        if (i < 0 || i >= numberOfRecords) {
+            throw new ArrayIndexOutOfBoundsException("Index " + i + ", is Invalid");
+        }
+    } // end checkIndex
+
 } // end class Station
@@ -0,0 +1,201 @@
+package rainfall;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * An object of class StationBuilder collects monthly Records, in the order they are added, into columns that grow
+ * as needed, then builds an immutable Station from them with columns trimmed to the number of Records.
+ * A StationBuilder is not thread safe, but the Stations it builds are, and it can keep adding after building
+ * without changing Stations already built.
+ * A fixed point StationBuilder holds rainfall as whole tenths of a mm and builds a {@link FixedPointStation}.
+ * A StationBuilder of only some columns ignores the values of the others, which aren't stored.
+ */
+public class StationBuilder {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Columns of Record values, filled up to numberOfRecords, rainfall and missing days null if not built
+    private int[] years;
+    private int[] months;
+    private double[] totals;
+    private double[] mins;
+    private double[] maxes;
+    private int[] missingDays;
+    private int numberOfRecords;
+    // Columns of rainfall in tenths of a mm used instead of totals, mins and maxes when fixed point
+    private final boolean fixedPoint;
+    private int[] totalTenths;
+    private int[] minTenths;
+    private int[] maxTenths;
+
+    /**
+     * Constructor. Create an empty StationBuilder object and initialise columns.
+     */
+    public StationBuilder() {
+        this(false);
+    } // end StationBuilder constructor
+
+    /**
+     * Constructor. Create an empty StationBuilder object holding rainfall as doubles or tenths, and initialise columns.
+     *
+     * @param fixedPoint Whether rainfall is held as whole tenths of a mm and built into a FixedPointStation.
+     */
+    public StationBuilder(boolean fixedPoint) {
+        this(fixedPoint, EnumSet.allOf(LoadOptions.Column.class));
+    } // end StationBuilder constructor
+
+    /**
+     * Constructor. Create an empty StationBuilder object of some columns, and initialise them.
+     *
+     * @param fixedPoint Whether rainfall is held as whole tenths of a mm and built into a FixedPointStation.
+     * @param columns    The columns built into the Station, with the year and month.
+     */
+    public StationBuilder(boolean fixedPoint, Set<LoadOptions.Column> columns) {
+        this.fixedPoint = fixedPoint;
+        years = new int[INITIAL_CAPACITY];
+        months = new int[INITIAL_CAPACITY];
+        if (columns.contains(LoadOptions.Column.MISSING_DAYS)) missingDays = new int[INITIAL_CAPACITY];
+        if (fixedPoint) {
+            if (columns.contains(LoadOptions.Column.TOTAL)) totalTenths = new int[INITIAL_CAPACITY];
+            if (columns.contains(LoadOptions.Column.MIN)) minTenths = new int[INITIAL_CAPACITY];
+            if (columns.contains(LoadOptions.Column.MAX)) maxTenths = new int[INITIAL_CAPACITY];
+        } else {
+            if (columns.contains(LoadOptions.Column.TOTAL)) totals = new double[INITIAL_CAPACITY];
+            if (columns.contains(LoadOptions.Column.MIN)) mins = new double[INITIAL_CAPACITY];
+            if (columns.contains(LoadOptions.Column.MAX)) maxes = new double[INITIAL_CAPACITY];
+        }
+    } // end StationBuilder constructor
+
+    /**
+     * Method to add a Record to be built into the Station,
+     * all values must be checked valid by program calling the method.
+     *
+     * @param record The Record object to be added.
+     * @return This StationBuilder.
+     */
+    public StationBuilder addRecord(Record record) {
+        return addRecord(record.getYear(), record.getMonth(), record.getTotal(), record.getMin(), record.getMax(),
+                record.getMissingDays());
+    } // end addRecord
+
+    /**
+     * Method to add a month's rainfall data to be built into the Station, without creating a Record,
+     * all values must be checked valid by program calling the method.
+     *
+     * @param year        The year the rainfall data was recorded.
+     * @param month       The month the rainfall data was recorded.
+     * @param total       The total rainfall in mm for the month.
+     * @param min         The minimum rainfall recorded for the month.
+     * @param max         The maximum rainfall recorded for the month.
+     * @param missingDays Bitset of the days without a rainfall reading, bit (day - 1) for each day.
+     * @return This StationBuilder.
+     */
+    public StationBuilder addRecord(int year, int month, double total, double min, double max, int missingDays) {
+        if (fixedPoint) {
+            return addRecordTenths(year, month, (int) Math.round(total * 10), (int) Math.round(min * 10),
+                    (int) Math.round(max * 10), missingDays);
+        }
+        ensureCapacity();
+        years[numberOfRecords] = year;
+        months[numberOfRecords] = month;
+        if (totals != null) totals[numberOfRecords] = total;
+        if (mins != null) mins[numberOfRecords] = min;
+        if (maxes != null) maxes[numberOfRecords] = max;
+        if (this.missingDays != null) this.missingDays[numberOfRecords] = missingDays;
+        numberOfRecords++;
+        return this;
+    } // end addRecord
+
+    /**
+     * Method to add a month's rainfall data in whole tenths of a mm to be built into the Station,
+     * all values must be checked valid by program calling the method.
+     *
+     * @param year        The year the rainfall data was recorded.
+     * @param month       The month the rainfall data was recorded.
+     * @param totalTenths The total rainfall in tenths of a mm for the month.
+     * @param minTenths   The minimum rainfall in tenths of a mm recorded for the month.
+     * @param maxTenths   The maximum rainfall in tenths of a mm recorded for the month.
+     * @param missingDays Bitset of the days without a rainfall reading, bit (day - 1) for each day.
+     * @return This StationBuilder.
+     */
+    public StationBuilder addRecordTenths(int year, int month, int totalTenths, int minTenths, int maxTenths,
+                                          int missingDays) {
+        if (!fixedPoint) return addRecord(year, month, totalTenths / 10.0, minTenths / 10.0, maxTenths / 10.0, missingDays);
+        ensureCapacity();
+        years[numberOfRecords] = year;
+        months[numberOfRecords] = month;
+        if (this.totalTenths != null) this.totalTenths[numberOfRecords] = totalTenths;
+        if (this.minTenths != null) this.minTenths[numberOfRecords] = minTenths;
+        if (this.maxTenths != null) this.maxTenths[numberOfRecords] = maxTenths;
+        if (this.missingDays != null) this.missingDays[numberOfRecords] = missingDays;
+        numberOfRecords++;
+        return this;
+    } // end addRecordTenths
+
+    /**
+     * Method to build an immutable Station holding the Records added so far, in its own trimmed columns.
+     *
+     * @return Station holding the Records added.
+     */
+    public Station build() {
+        int n = numberOfRecords;
+        if (fixedPoint) {
+            return new FixedPointStation(Arrays.copyOf(years, n), Arrays.copyOf(months, n), copyOf(totalTenths, n),
+                    copyOf(minTenths, n), copyOf(maxTenths, n), copyOf(missingDays, n));
+        }
+        return new Station(Arrays.copyOf(years, n), Arrays.copyOf(months, n), copyOf(totals, n), copyOf(mins, n),
+                copyOf(maxes, n), copyOf(missingDays, n), n, null);
+    } // end build
+
+    /**
+     * @return The number of Records added.
+     */
+    public int getNumberOfRecords() {
+        return numberOfRecords;
+    } // end getNumberOfRecords
+
+    /**
+     * @return Whether rainfall is held as whole tenths of a mm.
+     */
+    public boolean isFixedPoint() {
+        return fixedPoint;
+    } // end isFixedPoint
+
+    /**
+     * @return A string representation of StationBuilder.
+     */
+    public String toString() {
+        return String.format("StationBuilder[records=%d, fixedPoint=%b]", numberOfRecords, fixedPoint);
+    } // end toString
+
+    /**
+     * Helper method to grow the columns when full.
+     */
+    private void ensureCapacity() {
+        if (numberOfRecords < years.length) return;
+        int capacity = numberOfRecords * 2;
+        years = Arrays.copyOf(years, capacity);
+        months = Arrays.copyOf(months, capacity);
+        missingDays = copyOf(missingDays, capacity);
+        totalTenths = copyOf(totalTenths, capacity);
+        minTenths = copyOf(minTenths, capacity);
+        maxTenths = copyOf(maxTenths, capacity);
+        totals = copyOf(totals, capacity);
+        mins = copyOf(mins, capacity);
+        maxes = copyOf(maxes, capacity);
+    } // end ensureCapacity
+
+    /**
+     * Helper method to copy a column to a new length, or null if the column isn't built.
+     */
+    private static int[] copyOf(int[] column, int length) {
+        return column == null ? null : Arrays.copyOf(column, length);
+    } // end copyOf
+
+    private static double[] copyOf(double[] column, int length) {
+        return column == null ? null : Arrays.copyOf(column, length);
+    } // end copyOf
+
+} // end class StationBuilder
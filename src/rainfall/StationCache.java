@@ -0,0 +1,250 @@
+package rainfall;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * An object of class StationCache keeps recently loaded Station objects in memory in front of
+ * {@link Loader#load(String, String)}. Stations are keyed by canonical path and the fingerprint of their
+ * rainfall data files, so a changed file is loaded again, and the least recently used stations are evicted
+ * once their approximate size exceeds the cache's byte budget.
+ * Concurrent loads of the same station share a single call to Loader. A cache created with fixed point LoadOptions
+ * holds FixedPointStations, which weigh less so more stations fit in the budget.
+ */
+public class StationCache {
+
+    private final long maxBytes;
+    private final LoadOptions options;
+    private final LinkedHashMap<Key, Station> stations = new LinkedHashMap<>(16, 0.75f, true); // In LRU order
+    private final Map<String, Key> keysByPath = new HashMap<>(); // Current key of each cached station path
+    private final ConcurrentHashMap<Key, CompletableFuture<Station>> pendingLoads = new ConcurrentHashMap<>();
+    private long weightedBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Constructor. Create an empty StationCache.
+     *
+     * @param maxBytes The approximate number of bytes of Station objects to keep before evicting.
+     */
+    public StationCache(long maxBytes) {
+        this(maxBytes, LoadOptions.DEFAULT);
+    } // end StationCache constructor
+
+    /**
+     * Constructor. Create an empty StationCache loading stations with LoadOptions.
+     *
+     * @param maxBytes The approximate number of bytes of Station objects to keep before evicting.
+     * @param options  The LoadOptions stations are loaded with.
+     */
+    public StationCache(long maxBytes, LoadOptions options) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        this.maxBytes = maxBytes;
+        this.options = options;
+    } // end StationCache constructor
+
+    /**
+     * Method to return a cached Station object, or load and cache it if it is not cached
+     * or its rainfall data file has changed.
+     *
+     * @param directoryName The path to the directory that the rainfall csv file is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @return Station object containing all Record objects from analysed rainfall csv.
+     * @throws Loader.LoaderException If the station cannot be loaded.
+     */
+    public Station load(String directoryName, String stationName) throws Loader.LoaderException {
+        Key key = getKey(directoryName, stationName);
+        synchronized (this) {
+            Station station = stations.get(key);
+            if (station != null) {
+                hitCount++;
+                return station;
+            }
+            missCount++;
+        }
+
+        // Join a load already in progress, otherwise load
+        CompletableFuture<Station> pendingLoad = new CompletableFuture<>();
+        CompletableFuture<Station> existingLoad = pendingLoads.putIfAbsent(key, pendingLoad);
+        if (existingLoad != null) return join(existingLoad);
+        try {
+            Station station;
+            synchronized (this) { // check again in case a load finished since the miss
+                station = stations.get(key);
+            }
+            if (station == null) station = Loader.load(directoryName, stationName, options);
+            // Key again as loading raw data creates the analysed file
+            put(getKey(directoryName, stationName), station);
+            pendingLoad.complete(station);
+            return station;
+        } catch (Loader.LoaderException | RuntimeException error) {
+            pendingLoad.completeExceptionally(error);
+            throw error;
+        } finally {
+            pendingLoads.remove(key, pendingLoad);
+        }
+    } // end load
+
+    /**
+     * Method to remove all Station objects from the cache, statistics are kept.
+     */
+    public synchronized void invalidateAll() {
+        stations.clear();
+        keysByPath.clear();
+        weightedBytes = 0;
+    } // end invalidateAll
+
+    /**
+     * @return The approximate number of bytes of Station objects to keep before evicting.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    } // end getMaxBytes
+
+    /**
+     * @return The approximate number of bytes of Station objects in the cache.
+     */
+    public synchronized long getWeightedBytes() {
+        return weightedBytes;
+    } // end getWeightedBytes
+
+    /**
+     * @return The number of Station objects in the cache.
+     */
+    public synchronized int getSize() {
+        return stations.size();
+    } // end getSize
+
+    /**
+     * @return The number of loads answered from the cache.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    } // end getHitCount
+
+    /**
+     * @return The number of loads not answered from the cache, including those sharing another load.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    } // end getMissCount
+
+    /**
+     * @return The number of Station objects evicted to stay within the byte budget.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    } // end getEvictionCount
+
+    /**
+     * @return A string representation of the cache's statistics.
+     */
+    public synchronized String toString() {
+        return String.format("StationCache[stations=%d, bytes=%d/%d, hits=%d, misses=%d, evictions=%d]",
+                stations.size(), weightedBytes, maxBytes, hitCount, missCount, evictionCount);
+    } // end toString
+
+    /**
+     * Helper method to add a loaded Station to the cache, replacing any older version of the station
+     * and evicting least recently used stations while over the byte budget.
+     *
+     * @param key     The key of the station.
+     * @param station The loaded Station object.
+     */
+    private synchronized void put(Key key, Station station) {
+        Key oldKey = keysByPath.put(key.path, key);
+        if (oldKey != null) {
+            Station oldStation = stations.remove(oldKey);
+            if (oldStation != null) weightedBytes -= oldStation.getApproximateBytes();
+        }
+        stations.put(key, station);
+        weightedBytes += station.getApproximateBytes();
+
+        Iterator<Map.Entry<Key, Station>> eldest = stations.entrySet().iterator();
+        while (weightedBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<Key, Station> entry = eldest.next();
+            weightedBytes -= entry.getValue().getApproximateBytes();
+            keysByPath.remove(entry.getKey().path);
+            eldest.remove();
+            evictionCount++;
+        }
+    } // end put
+
+    /**
+     * Helper method to wait for a load in progress on another thread.
+     *
+     * @param pendingLoad The load in progress.
+     * @return The loaded Station object.
+     * @throws Loader.LoaderException If the load failed or the thread was interrupted.
+     */
+    private static Station join(CompletableFuture<Station> pendingLoad) throws Loader.LoaderException {
+        try {
+            return pendingLoad.get();
+        } catch (ExecutionException error) {
+            throw new Loader.LoaderException(error.getCause().getMessage());
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            throw new Loader.LoaderException("interrupted waiting for station load");
+        }
+    } // end join
+
+    /**
+     * Helper method to key a station by its canonical path and the fingerprints of its analysed rainfall csv file
+     * and raw rainfall data file, so a modified raw rainfall data file is loaded and analysed again.
+     *
+     * @param directoryName The path to the directory that the rainfall csv file is located.
+     * @param stationName   The name of the station that collected the associated rainfall data.
+     * @return Key of the station.
+     * @throws Loader.LoaderException If the path of the station cannot be resolved.
+     */
+    private static Key getKey(String directoryName, String stationName) throws Loader.LoaderException {
+        String path;
+        try {
+            path = new File(directoryName, stationName).getCanonicalPath();
+        } catch (IOException error) {
+            throw new Loader.LoaderException("unable to resolve station path: " + error.getMessage());
+        }
+        File rawDataFile = Loader.findRawDataFile(directoryName, stationName);
+        FileFingerprint fingerprint = FileFingerprint.of(Loader.findAnalysedFile(directoryName, stationName, rawDataFile));
+        return new Key(path, fingerprint, rawDataFile == null ? null : FileFingerprint.of(rawDataFile));
+    } // end getKey
+
+    /**
+     * An object of class Key identifies a version of a station's rainfall data.
+     */
+    private static class Key {
+        private final String path;
+        private final FileFingerprint fingerprint; // null if the station has no analysed file
+        private final FileFingerprint rawFingerprint; // null if the station has no raw data file
+
+        private Key(String path, FileFingerprint fingerprint, FileFingerprint rawFingerprint) {
+            this.path = path;
+            this.fingerprint = fingerprint;
+            this.rawFingerprint = rawFingerprint;
+        } // end Key constructor
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return path.equals(key.path) && Objects.equals(fingerprint, key.fingerprint)
+                    && Objects.equals(rawFingerprint, key.rawFingerprint);
+        } // end equals
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, fingerprint, rawFingerprint);
+        } // end hashCode
+
+    } // end class Key
+
+} // end class StationCache
@@ -0,0 +1,349 @@
+package rainfall;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An object of class StationCatalog represents the catalog manifest of a rainfall data directory,
+ * which summarises every analysed station so stations can be discovered without opening their files.
+ * The manifest is updated by {@link Loader} as each station is loaded.
+ */
+public class StationCatalog {
+
+    public static final String MANIFEST_FILE_NAME = "station_catalog.csv";
+    private static final String HEADER = "station,stationNumber,rawFingerprint,analysedFingerprint,"
+            + "firstYear,firstMonth,lastYear,lastMonth,records,totalRainfall,meanMonthlyTotal,"
+            + "maxMonthlyTotal,maxYear,maxMonth";
+    private static final String LOCK_FILE_EXTENSION = ".lock";
+    private static final Object UPDATE_LOCK = new Object(); // Serialises manifest updates within the JVM
+
+    private final Map<String, Entry> entries; // Entries by station name
+
+    /**
+     * Constructor. Create a StationCatalog from its entries.
+     *
+     * @param entries Entries by station name.
+     */
+    private StationCatalog(Map<String, Entry> entries) {
+        this.entries = entries;
+    } // end StationCatalog constructor
+
+    /**
+     * Method to read the catalog manifest of a rainfall data directory.
+     *
+     * @param directoryName The path to the rainfall data directory.
+     * @return The StationCatalog of the directory, empty if it has no manifest.
+     * @throws IOException If the manifest cannot be read or is invalid.
+     */
+    public static StationCatalog read(String directoryName) throws IOException {
+        Map<String, Entry> entries = new TreeMap<>();
+        Path manifest = getManifestPath(directoryName);
+        if (!Files.exists(manifest)) return new StationCatalog(entries);
+
+        try (BufferedReader in = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            in.readLine(); // skip header
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                if (line.isEmpty()) continue;
+                Entry entry = Entry.parse(line);
+                entries.put(entry.getStationName(), entry);
+            }
+        } catch (RuntimeException error) { // invalid number or missing column
+            throw new IOException("invalid station catalog: " + error.getMessage());
+        }
+        return new StationCatalog(entries);
+    } // end read
+
+    /**
+     * Method to add or replace a station's entry in the catalog manifest of a rainfall data directory,
+     * the manifest is replaced atomically so readers never see a partial manifest.
+     * Updates are serialised across processes sharing the directory by an exclusive FileChannel lock on
+     * "station_catalog.csv.lock", so no process overwrites an entry another has just added.
+     *
+     * @param directoryName The path to the rainfall data directory.
+     * @param entry         The entry to add or replace.
+     * @throws IOException If the manifest cannot be locked, read or written.
+     */
+    @SuppressWarnings("try") // the lock is held for the body of the try statement, not referenced in it
+    public static void update(String directoryName, Entry entry) throws IOException {
+        // Lock within the JVM first, a JVM can only hold one FileChannel lock on a file
+        synchronized (UPDATE_LOCK) {
+            Path lockFile = new File(directoryName, MANIFEST_FILE_NAME + LOCK_FILE_EXTENSION).toPath();
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                StationCatalog catalog = read(directoryName);
+                catalog.entries.put(entry.getStationName(), entry);
+                catalog.write(getManifestPath(directoryName));
+            }
+        }
+    } // end update
+
+    /**
+     * Method to find a station's entry in the catalog.
+     *
+     * @param stationName The name of the station.
+     * @return The Entry of the station, or null if the station is not in the catalog.
+     */
+    public Entry getEntry(String stationName) {
+        return entries.get(stationName);
+    } // end getEntry
+
+    /**
+     * @return Every Entry in the catalog in station name order.
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries.values()));
+    } // end getEntries
+
+    /**
+     * Method to find the stations with records covering every year in a range.
+     *
+     * @param fromYear The first year of the range.
+     * @param toYear   The last year of the range.
+     * @return Every Entry whose first and last records span the years, in station name order.
+     */
+    public List<Entry> getStationsCovering(int fromYear, int toYear) {
+        List<Entry> coveringEntries = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.getFirstYear() <= fromYear && entry.getLastYear() >= toYear) coveringEntries.add(entry);
+        }
+        return coveringEntries;
+    } // end getStationsCovering
+
+    /**
+     * Helper method to write the catalog to a temporary file and rename it over the manifest.
+     *
+     * @param manifest The path of the manifest.
+     * @throws IOException If the manifest cannot be written.
+     */
+    private void write(Path manifest) throws IOException {
+        AtomicFiles.replace(manifest, out -> {
+            out.write(HEADER);
+            out.write('\n');
+            for (Entry entry : entries.values()) {
+                out.write(entry.toString());
+                out.write('\n');
+            }
+        });
+    } // end write
+
+    /**
+     * Helper method to find the manifest of a rainfall data directory.
+     *
+     * @param directoryName The path to the rainfall data directory.
+     * @return The path of the manifest.
+     */
+    private static Path getManifestPath(String directoryName) {
+        return new File(directoryName, MANIFEST_FILE_NAME).toPath();
+    } // end getManifestPath
+
+    /**
+     * An object of class Entry summarises one station of a StationCatalog.
+     */
+    public static class Entry {
+        private final String stationName;
+        private final String stationNumber;
+        private final FileFingerprint rawFingerprint;
+        private final FileFingerprint analysedFingerprint;
+        private final int firstYear;
+        private final int firstMonth;
+        private final int lastYear;
+        private final int lastMonth;
+        private final int records;
+        private final double totalRainfall;
+        private final double meanMonthlyTotal;
+        private final double maxMonthlyTotal;
+        private final int maxYear;
+        private final int maxMonth;
+
+        /**
+         * Constructor. Create an Entry and store values.
+         */
+        private Entry(String stationName, String stationNumber, FileFingerprint rawFingerprint,
+                      FileFingerprint analysedFingerprint, int firstYear, int firstMonth, int lastYear, int lastMonth,
+                      int records, double totalRainfall, double meanMonthlyTotal, double maxMonthlyTotal, int maxYear,
+                      int maxMonth) {
+            this.stationName = stationName;
+            this.stationNumber = stationNumber;
+            this.rawFingerprint = rawFingerprint;
+            this.analysedFingerprint = analysedFingerprint;
+            this.firstYear = firstYear;
+            this.firstMonth = firstMonth;
+            this.lastYear = lastYear;
+            this.lastMonth = lastMonth;
+            this.records = records;
+            this.totalRainfall = totalRainfall;
+            this.meanMonthlyTotal = meanMonthlyTotal;
+            this.maxMonthlyTotal = maxMonthlyTotal;
+            this.maxYear = maxYear;
+            this.maxMonth = maxMonth;
+        } // end Entry constructor
+
+        /**
+         * Method to summarise a loaded Station as a catalog Entry.
+         *
+         * @param stationName         The name of the station.
+         * @param stationNumber       The BOM station number, or "" if unknown.
+         * @param rawFingerprint      The fingerprint of the raw rainfall data file, or null if there is none.
+         * @param analysedFingerprint The fingerprint of the analysed rainfall csv file.
+         * @param station             The Station loaded from the analysed rainfall csv file.
+         * @return Entry summarising the station.
+         */
+        public static Entry of(String stationName, String stationNumber, FileFingerprint rawFingerprint,
+                               FileFingerprint analysedFingerprint, Station station) {
+            Record firstRecord = station.getRecord(0);
+            Record lastRecord = station.getRecord(station.getNumberOfRecords() - 1);
+            double totalRainfall = 0.0;
+            int measuredRecords = 0;
+            Record maxRecord = firstRecord;
+            for (int i = 0; i < station.getNumberOfRecords(); i++) {
+                if (station.isMissing(i)) continue; // no readings, not a month of 0 mm
+                Record record = station.getRecord(i);
+                totalRainfall += record.getTotal();
+                measuredRecords++;
+                if (record.getTotal() > maxRecord.getTotal()) maxRecord = record;
+            }
+            double meanMonthlyTotal = measuredRecords == 0 ? Double.NaN : totalRainfall / measuredRecords;
+            return new Entry(stationName, stationNumber, rawFingerprint, analysedFingerprint,
+                    firstRecord.getYear(), firstRecord.getMonth(), lastRecord.getYear(), lastRecord.getMonth(),
+                    station.getNumberOfRecords(), totalRainfall, meanMonthlyTotal, maxRecord.getTotal(),
+                    maxRecord.getYear(), maxRecord.getMonth());
+        } // end of
+
+        /**
+         * Helper method to parse an Entry from a line of the manifest.
+         *
+         * @param line The line of the manifest.
+         * @return The parsed Entry.
+         */
+        private static Entry parse(String line) {
+            String[] values = line.split(",", -1);
+            return new Entry(values[0], values[1], FileFingerprint.parse(values[2]), FileFingerprint.parse(values[3]),
+                    Integer.parseInt(values[4]), Integer.parseInt(values[5]), Integer.parseInt(values[6]),
+                    Integer.parseInt(values[7]), Integer.parseInt(values[8]), Double.parseDouble(values[9]),
+                    Double.parseDouble(values[10]), Double.parseDouble(values[11]), Integer.parseInt(values[12]), Integer.parseInt(values[13]));
+        } // end parse
+
+        /**
+         * @return The name of the station.
+         */
+        public String getStationName() {
+            return stationName;
+        } // end getStationName
+
+        /**
+         * @return The Bureau of Meteorology station number, or "" if unknown.
+         */
+        public String getStationNumber() {
+            return stationNumber;
+        } // end getStationNumber
+
+        /**
+         * @return The fingerprint of the raw rainfall data file, or null if there was none.
+         */
+        public FileFingerprint getRawFingerprint() {
+            return rawFingerprint;
+        } // end getRawFingerprint
+
+        /**
+         * @return The fingerprint of the analysed rainfall csv file summarised.
+         */
+        public FileFingerprint getAnalysedFingerprint() {
+            return analysedFingerprint;
+        } // end getAnalysedFingerprint
+
+        /**
+         * @return The year of the first record.
+         */
+        public int getFirstYear() {
+            return firstYear;
+        } // end getFirstYear
+
+        /**
+         * @return The month of the first record.
+         */
+        public int getFirstMonth() {
+            return firstMonth;
+        } // end getFirstMonth
+
+        /**
+         * @return The year of the last record.
+         */
+        public int getLastYear() {
+            return lastYear;
+        } // end getLastYear
+
+        /**
+         * @return The month of the last record.
+         */
+        public int getLastMonth() {
+            return lastMonth;
+        } // end getLastMonth
+
+        /**
+         * @return The number of monthly records.
+         */
+        public int getNumberOfRecords() {
+            return records;
+        } // end getNumberOfRecords
+
+        /**
+         * @return The sum of all monthly rainfall totals.
+         */
+        public double getTotalRainfall() {
+            return totalRainfall;
+        } // end getTotalRainfall
+
+        /**
+         * @return The mean monthly rainfall total of the months with readings, or NaN if no month has any.
+         */
+        public double getMeanMonthlyTotal() {
+            return meanMonthlyTotal;
+        } // end getMeanMonthlyTotal
+
+        /**
+         * @return The highest monthly rainfall total.
+         */
+        public double getMaxMonthlyTotal() {
+            return maxMonthlyTotal;
+        } // end getMaxMonthlyTotal
+
+        /**
+         * @return The year of the highest monthly rainfall total.
+         */
+        public int getMaxYear() {
+            return maxYear;
+        } // end getMaxYear
+
+        /**
+         * @return The month of the highest monthly rainfall total.
+         */
+        public int getMaxMonth() {
+            return maxMonth;
+        } // end getMaxMonth
+
+        /**
+         * @return A string representation of Entry as a line of the manifest.
+         */
+        public String toString() {
+            return String.format(Locale.ROOT, "%s,%s,%s,%s,%d,%d,%d,%d,%d,%1.2f,%1.2f,%1.2f,%d,%d", stationName, stationNumber,
+                    rawFingerprint == null ? "" : rawFingerprint, analysedFingerprint == null ? "" : analysedFingerprint,
+                    firstYear, firstMonth, lastYear, lastMonth, records, totalRainfall, meanMonthlyTotal,
+                    maxMonthlyTotal, maxYear, maxMonth);
+        } // end toString
+
+    } // end class Entry
+
+} // end class StationCatalog
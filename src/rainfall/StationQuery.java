@@ -0,0 +1,450 @@
+package rainfall;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * An object of class StationQuery filters and aggregates the monthly Records of Station objects,
+ * optionally grouped by year, month, season or decade. Queries are built with the fluent methods or parsed
+ * from expressions such as "mean total where month = 1 group by decade", and are compiled for each Station
+ * into loops over its primitive columns. Months with no rainfall readings are left out of every aggregate,
+ * unless the Station was loaded without its missing days column.
+ */
+public class StationQuery {
+
+    /**
+     * A Record value a query can filter or aggregate.
+     */
+    public enum Field {YEAR, MONTH, TOTAL, MIN, MAX}
+
+    /**
+     * A comparison between a Field and a value.
+     */
+    public enum Comparison {
+        LESS("<"), LESS_OR_EQUAL("<="), EQUAL("="), NOT_EQUAL("!="), GREATER_OR_EQUAL(">="), GREATER(">");
+
+        private final String symbol;
+
+        Comparison(String symbol) {
+            this.symbol = symbol;
+        } // end Comparison constructor
+
+        /**
+         * @param value The value to compare.
+         * @param limit The value compared against.
+         * @return Whether the comparison holds.
+         */
+        boolean test(double value, double limit) {
+            switch (this) {
+                case LESS:
+                    return value < limit;
+                case LESS_OR_EQUAL:
+                    return value <= limit;
+                case EQUAL:
+                    return value == limit;
+                case NOT_EQUAL:
+                    return value != limit;
+                case GREATER_OR_EQUAL:
+                    return value >= limit;
+                default:
+                    return value > limit;
+            }
+        } // end test
+
+        /**
+         * @return The symbol of the comparison in query expressions.
+         */
+        public String getSymbol() {
+            return symbol;
+        } // end getSymbol
+    } // end enum Comparison
+
+    /**
+     * A function combining the values of a Field over the Records of a group.
+     */
+    public enum Aggregate {COUNT, SUM, MEAN, MIN, MAX}
+
+    /**
+     * A way of grouping Records, each group is identified by an integer key:
+     * the year, the month, the season from 1 summer (Dec-Feb) to 4 spring (Sep-Nov),
+     * the first year of the decade, or 0 for ALL.
+     */
+    public enum Grouping {
+        ALL, YEAR, MONTH, SEASON, DECADE
+    } // end enum Grouping
+
+    private final Aggregate aggregate;
+    private final Field aggregateField;
+    private final List<Condition> conditions;
+    private final Grouping grouping;
+    private final Comparison havingComparison; // null if groups aren't filtered
+    private final double havingValue;
+
+    /**
+     * Constructor. Create a StationQuery and store values.
+     */
+    private StationQuery(Aggregate aggregate, Field aggregateField, List<Condition> conditions, Grouping grouping,
+                         Comparison havingComparison, double havingValue) {
+        this.aggregate = aggregate;
+        this.aggregateField = aggregateField;
+        this.conditions = conditions;
+        this.grouping = grouping;
+        this.havingComparison = havingComparison;
+        this.havingValue = havingValue;
+    } // end StationQuery constructor
+
+    /**
+     * Method to start a query aggregating a Field of every Record as one group.
+     *
+     * @param aggregate The Aggregate to compute.
+     * @param field     The Field to aggregate, ignored for COUNT.
+     * @return StationQuery without conditions.
+     */
+    public static StationQuery select(Aggregate aggregate, Field field) {
+        return new StationQuery(aggregate, field, Collections.emptyList(), Grouping.ALL, null, 0);
+    } // end select
+
+    /**
+     * Method to add a condition that Records must meet to be aggregated.
+     *
+     * @param field      The Field to compare.
+     * @param comparison The Comparison to make.
+     * @param value      The value to compare against.
+     * @return New StationQuery with the condition added.
+     */
+    public StationQuery where(Field field, Comparison comparison, double value) {
+        List<Condition> newConditions = new ArrayList<>(conditions);
+        newConditions.add(new Condition(field, comparison, value));
+        return new StationQuery(aggregate, aggregateField, newConditions, grouping, havingComparison, havingValue);
+    } // end where
+
+    /**
+     * @param grouping The Grouping of Records to aggregate separately.
+     * @return New StationQuery with the grouping.
+     */
+    public StationQuery groupBy(Grouping grouping) {
+        return new StationQuery(aggregate, aggregateField, conditions, grouping, havingComparison, havingValue);
+    } // end groupBy
+
+    /**
+     * Method to keep only the groups whose aggregated value meets a condition.
+     *
+     * @param comparison The Comparison to make.
+     * @param value      The value to compare the aggregated value against.
+     * @return New StationQuery with the condition on groups.
+     */
+    public StationQuery having(Comparison comparison, double value) {
+        return new StationQuery(aggregate, aggregateField, conditions, grouping, comparison, value);
+    } // end having
+
+    /**
+     * Method to parse a query expression of the form
+     * "aggregate [field] [where field op value [and ...]] [group by grouping] [having op value]",
+     * for example "count where total > 500 and year >= 1950" or "max total group by year having <= 100".
+     *
+     * @param expression The query expression, case insensitive.
+     * @return The parsed StationQuery.
+     * @throws IllegalArgumentException If the expression is not valid.
+     */
+    public static StationQuery parse(String expression) {
+        String[] words = expression.strip().toUpperCase(Locale.ROOT).split("\\s+");
+        int position = 0;
+        Aggregate aggregate = parseEnum(Aggregate.class, words, position++);
+        Field field = Field.TOTAL;
+        if (position < words.length && isEnumConstant(Field.class, words[position])) {
+            field = parseEnum(Field.class, words, position++);
+        }
+        StationQuery query = select(aggregate, field);
+
+        if (position < words.length && words[position].equals("WHERE")) {
+            do {
+                position++;
+                Field conditionField = parseEnum(Field.class, words, position++);
+                Comparison comparison = parseComparison(words, position++);
+                query = query.where(conditionField, comparison, parseValue(words, position++));
+            } while (position < words.length && words[position].equals("AND"));
+        }
+        if (position + 1 < words.length && words[position].equals("GROUP") && words[position + 1].equals("BY")) {
+            query = query.groupBy(parseEnum(Grouping.class, words, position + 2));
+            position += 3;
+        }
+        if (position < words.length && words[position].equals("HAVING")) {
+            query = query.having(parseComparison(words, position + 1), parseValue(words, position + 2));
+            position += 3;
+        }
+        if (position < words.length) throw new IllegalArgumentException("unexpected '" + words[position] + "' in query");
+        return query;
+    } // end parse
+
+    /**
+     * Method to run the query over one Station.
+     *
+     * @param station The Station to query.
+     * @return QueryResult of the aggregated value of each group.
+     */
+    public QueryResult run(Station station) {
+        return accumulate(station).getResult(aggregate, havingComparison, havingValue);
+    } // end run
+
+    /**
+     * Method to run the query over many Station objects in parallel, aggregating their Records together.
+     * Each partition of the stations merges into its own Accumulator, as Accumulators are mutable.
+     *
+     * @param stations The Station objects to query.
+     * @return QueryResult of the aggregated value of each group.
+     */
+    public QueryResult run(Collection<? extends Station> stations) {
+        QueryResult.Accumulator accumulator = stations.parallelStream()
+                .collect(QueryResult.Accumulator::new, (partial, station) -> partial.merge(accumulate(station)),
+                        QueryResult.Accumulator::merge);
+        return accumulator.getResult(aggregate, havingComparison, havingValue);
+    } // end run
+
+    /**
+     * @return A string representation of StationQuery as a query expression.
+     */
+    public String toString() {
+        StringBuilder expression = new StringBuilder(aggregate.name().toLowerCase(Locale.ROOT));
+        if (aggregate != Aggregate.COUNT) expression.append(' ').append(aggregateField.name().toLowerCase(Locale.ROOT));
+        for (int i = 0; i < conditions.size(); i++) {
+            expression.append(i == 0 ? " where " : " and ").append(conditions.get(i));
+        }
+        if (grouping != Grouping.ALL) expression.append(" group by ").append(grouping.name().toLowerCase(Locale.ROOT));
+        if (havingComparison != null) {
+            expression.append(" having ").append(havingComparison.getSymbol()).append(' ').append(havingValue);
+        }
+        return expression.toString();
+    } // end toString
+
+    /**
+     * Helper method to compile the query for a Station and aggregate its Records into dense per-group arrays.
+     *
+     * @param station The Station to query.
+     * @return Accumulator holding the Station's partial aggregates.
+     */
+    private QueryResult.Accumulator accumulate(Station station) {
+        int numberOfRecords = station.getNumberOfRecords();
+        if (numberOfRecords == 0) return new QueryResult.Accumulator();
+        int[] years = station.getYearColumn();
+        int[] months = station.getMonthColumn();
+
+        // Compile conditions and grouping against this Station's columns
+        IntPredicate filter = null;
+        for (Condition condition : conditions) {
+            IntPredicate test = condition.compile(station);
+            filter = filter == null ? test : filter.and(test);
+        }
+        double[] values = aggregate == Aggregate.COUNT ? null : getDoubleColumn(station, aggregateField);
+        int[] intValues = aggregate != Aggregate.COUNT && values == null ? getIntColumn(station, aggregateField) : null;
+        IntUnaryOperator groupKey = getGroupKey(years, months);
+        // Months without readings are skipped rather than counted as 0 mm, where the missing days are loaded
+        int[] missingDays = station.hasColumn(LoadOptions.Column.MISSING_DAYS) ? station.getMissingDaysColumn() : null;
+
+        // Dense group slots between the lowest and highest keys
+        int minKey = Integer.MAX_VALUE;
+        int maxKey = Integer.MIN_VALUE;
+        for (int i = 0; i < numberOfRecords; i++) {
+            int key = groupKey.applyAsInt(i);
+            if (key < minKey) minKey = key;
+            if (key > maxKey) maxKey = key;
+        }
+        int numberOfSlots = maxKey - minKey + 1;
+        long[] counts = new long[numberOfSlots];
+        double[] sums = new double[numberOfSlots];
+        double[] mins = new double[numberOfSlots];
+        double[] maxes = new double[numberOfSlots];
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+
+        for (int i = 0; i < numberOfRecords; i++) {
+            if (filter != null && !filter.test(i)) continue;
+            if (missingDays != null && missingDays[i] != 0
+                    && missingDays[i] == Record.getMissingDays(years[i], months[i], 0)) continue;
+            int slot = groupKey.applyAsInt(i) - minKey;
+            counts[slot]++;
+            if (values == null && intValues == null) continue;
+            double value = values != null ? values[i] : intValues[i];
+            sums[slot] += value;
+            if (value < mins[slot]) mins[slot] = value;
+            if (value > maxes[slot]) maxes[slot] = value;
+        }
+
+        QueryResult.Accumulator accumulator = new QueryResult.Accumulator();
+        for (int slot = 0; slot < numberOfSlots; slot++) {
+            if (counts[slot] > 0) accumulator.add(slot + minKey, counts[slot], sums[slot], mins[slot], maxes[slot]);
+        }
+        return accumulator;
+    } // end accumulate
+
+    /**
+     * Helper method to compile the grouping into a function of a Record's index.
+     *
+     * @param years  The year column.
+     * @param months The month column.
+     * @return Function from Record index to group key.
+     */
+    private IntUnaryOperator getGroupKey(int[] years, int[] months) {
+        switch (grouping) {
+            case YEAR:
+                return i -> years[i];
+            case MONTH:
+                return i -> months[i];
+            case DECADE:
+                return i -> years[i] / 10 * 10;
+            case SEASON:
+                return i -> months[i] % 12 / 3 + 1;
+            default:
+                return i -> 0;
+        }
+    } // end getGroupKey
+
+    /**
+     * Helper method to return a double column of a Station.
+     *
+     * @return The column, or null if field is an int column.
+     */
+    private static double[] getDoubleColumn(Station station, Field field) {
+        switch (field) {
+            case TOTAL:
+                return Station.loaded(station.getTotalColumn(), "total");
+            case MIN:
+                return Station.loaded(station.getMinColumn(), "min");
+            case MAX:
+                return Station.loaded(station.getMaxColumn(), "max");
+            default:
+                return null;
+        }
+    } // end getDoubleColumn
+
+    /**
+     * Helper method to return an int column of a Station.
+     *
+     * @return The column, or null if field is a double column.
+     */
+    private static int[] getIntColumn(Station station, Field field) {
+        switch (field) {
+            case YEAR:
+                return station.getYearColumn();
+            case MONTH:
+                return station.getMonthColumn();
+            default:
+                return null;
+        }
+    } // end getIntColumn
+
+    /**
+     * Helper method to parse a constant of an enum from a query expression.
+     */
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String[] words, int position) {
+        if (position >= words.length) throw new IllegalArgumentException("query ended early");
+        if (!isEnumConstant(type, words[position])) {
+            throw new IllegalArgumentException("unknown " + type.getSimpleName().toLowerCase(Locale.ROOT)
+                    + " '" + words[position] + "' in query");
+        }
+        return Enum.valueOf(type, words[position]);
+    } // end parseEnum
+
+    /**
+     * Helper method to check if a word of a query expression is a constant of an enum.
+     */
+    private static <E extends Enum<E>> boolean isEnumConstant(Class<E> type, String word) {
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equals(word)) return true;
+        }
+        return false;
+    } // end isEnumConstant
+
+    /**
+     * Helper method to parse a Comparison symbol from a query expression.
+     */
+    private static Comparison parseComparison(String[] words, int position) {
+        if (position >= words.length) throw new IllegalArgumentException("query ended early");
+        for (Comparison comparison : Comparison.values()) {
+            if (comparison.getSymbol().equals(words[position])) return comparison;
+        }
+        throw new IllegalArgumentException("unknown comparison '" + words[position] + "' in query");
+    } // end parseComparison
+
+    /**
+     * Helper method to parse a number from a query expression.
+     */
+    private static double parseValue(String[] words, int position) {
+        if (position >= words.length) throw new IllegalArgumentException("query ended early");
+        try {
+            return Double.parseDouble(words[position]);
+        } catch (NumberFormatException error) {
+            throw new IllegalArgumentException("invalid number '" + words[position] + "' in query");
+        }
+    } // end parseValue
+
+    /**
+     * An object of class Condition is a comparison Records must meet to be aggregated.
+     */
+    private static class Condition {
+        private final Field field;
+        private final Comparison comparison;
+        private final double value;
+
+        private Condition(Field field, Comparison comparison, double value) {
+            this.field = field;
+            this.comparison = comparison;
+            this.value = value;
+        } // end Condition constructor
+
+        /**
+         * Method to compile the condition into a test of a Record's index against a Station's column,
+         * specialised for common comparisons so the loop has no switch.
+         *
+         * @param station The Station whose column is tested.
+         * @return Test of a Record index.
+         */
+        private IntPredicate compile(Station station) {
+            double value = this.value;
+            double[] doubles = getDoubleColumn(station, field);
+            if (doubles != null) {
+                switch (comparison) {
+                    case GREATER:
+                        return i -> doubles[i] > value;
+                    case GREATER_OR_EQUAL:
+                        return i -> doubles[i] >= value;
+                    case LESS:
+                        return i -> doubles[i] < value;
+                    case LESS_OR_EQUAL:
+                        return i -> doubles[i] <= value;
+                    default:
+                        return i -> comparison.test(doubles[i], value);
+                }
+            }
+            int[] ints = getIntColumn(station, field);
+            switch (comparison) {
+                case GREATER:
+                    return i -> ints[i] > value;
+                case GREATER_OR_EQUAL:
+                    return i -> ints[i] >= value;
+                case LESS:
+                    return i -> ints[i] < value;
+                case LESS_OR_EQUAL:
+                    return i -> ints[i] <= value;
+                case EQUAL:
+                    return i -> ints[i] == value;
+                default:
+                    return i -> comparison.test(ints[i], value);
+            }
+        } // end compile
+
+        /**
+         * @return A string representation of Condition as part of a query expression.
+         */
+        public String toString() {
+            return field.name().toLowerCase(Locale.ROOT) + " " + comparison.getSymbol() + " " + value;
+        } // end toString
+
+    } // end class Condition
+
+} // end class StationQuery
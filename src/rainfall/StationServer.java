@@ -0,0 +1,503 @@
+package rainfall;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * An object of class StationServer serves the stations of a directory over HTTP, for tools that read station data
+ * without the visualiser. Stations are loaded through a StationCache and responses are serialised once per version
+ * of a station's analysed rainfall csv file, then served from memory with an ETag so unchanged responses are
+ * answered with 304 Not Modified. Requests are handled on virtual threads where the JVM has them.
+ * <p>
+ * Requests, all GET:
+ * <ul>
+ * <li>/stations - station names, as JSON or with ?format=csv as csv.</li>
+ * <li>/stations/{name}/monthly - monthly records, as csv or with ?format=json as JSON. In both formats missingDays
+ * is the mask of days without a reading, bit n for day n + 1 as in the analysed file, and JSON records also hold
+ * numberOfMissingDays, the number of days without a reading.</li>
+ * <li>/stations/{name}/aggregate?from=year&amp;to=year - count, sum, mean, min and max of monthly totals
+ * from the start of year from to the end of year to, both optional, as JSON. Months without any reading are
+ * left out.</li>
+ * <li>/stations/{name}/query?q=expression - a StationQuery expression, as csv of group key and value.</li>
+ * </ul>
+ * Usage: java rainfall.StationServer directory [port, default 8080]
+ */
+public class StationServer {
+
+    private static final long MAX_CACHED_BYTES = 64L * 1024 * 1024; // Response bodies kept before evicting
+    private static final Pattern STATION_NAME = Pattern.compile("[A-Za-z0-9_\\-]+(\\.[A-Za-z0-9_\\-]+)*");
+    private static final String CSV = "text/csv; charset=utf-8";
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final String directoryName;
+    private final StationCache stationCache;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // Serialised responses by request, in LRU order, and the bytes of their bodies
+    private final LinkedHashMap<String, Response> responses = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    /**
+     * Constructor. Create a StationServer bound to a port, which serves once started.
+     *
+     * @param directoryName The path to the directory of rainfall csv files to serve.
+     * @param port          The port to listen on, or 0 for any free port.
+     * @param stationCache  The StationCache to load stations through.
+     * @throws IOException If the port cannot be bound.
+     */
+    public StationServer(String directoryName, int port, StationCache stationCache) throws IOException {
+        this.directoryName = directoryName;
+        this.stationCache = stationCache;
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/stations", this::handle);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+    } // end StationServer constructor
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java rainfall.StationServer directory [port]");
+            System.exit(2);
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        StationServer stationServer = new StationServer(args[0], port, new StationCache(256L * 1024 * 1024));
+        stationServer.start();
+        System.out.printf("Serving %s on http://localhost:%d/stations%n", args[0], stationServer.getPort());
+    } // end main
+
+    /**
+     * Method to start serving requests.
+     */
+    public void start() {
+        server.start();
+    } // end start
+
+    /**
+     * Method to stop serving, waiting up to delay seconds for requests in progress.
+     *
+     * @param delay The number of seconds to wait for requests in progress.
+     */
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdown();
+    } // end stop
+
+    /**
+     * @return The port the StationServer is listening on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    } // end getPort
+
+    /**
+     * Helper method to answer a request, mapping failures to error responses.
+     *
+     * @param exchange The request and its response.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendError(exchange, 405, "method not allowed");
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> parameters = getParameters(exchange.getRequestURI().getRawQuery());
+            String[] parts = path.substring(1).split("/");
+            try {
+                Response response;
+                if (!parts[0].equals("stations")) {
+                    response = null;
+                } else if (parts.length == 1) {
+                    response = getStationList(parameters);
+                } else if (parts.length == 3 && STATION_NAME.matcher(parts[1]).matches()) {
+                    response = getStationResponse(parts[1], parts[2], parameters);
+                } else {
+                    response = null;
+                }
+                if (response == null) {
+                    sendError(exchange, 404, "not found");
+                } else {
+                    send(exchange, response);
+                }
+            } catch (IllegalArgumentException error) { // invalid parameters or query
+                sendError(exchange, 400, error.getMessage());
+            } catch (Loader.LoaderException error) {
+                sendError(exchange, 500, error.getMessage());
+            }
+        } finally {
+            exchange.close();
+        }
+    } // end handle
+
+    /**
+     * Helper method to serialise the names of the stations in the directory, from their analysed or raw files.
+     *
+     * @param parameters The request's query parameters.
+     * @return Response listing the stations.
+     */
+    private Response getStationList(Map<String, String> parameters) {
+        boolean csv = getFormat(parameters, "json").equals("csv");
+        String[] fileNames = new File(directoryName).list();
+        TreeSet<String> stationNames = new TreeSet<>();
+        for (String fileName : fileNames == null ? new String[0] : fileNames) {
+            String stationName = getStationName(fileName);
+            if (stationName != null) stationNames.add(stationName);
+        }
+
+        StringBuilder text = new StringBuilder(csv ? "station\n" : "[");
+        for (String stationName : stationNames) {
+            if (csv) {
+                text.append(stationName).append('\n');
+            } else {
+                if (text.length() > 1) text.append(',');
+                text.append('"').append(stationName).append('"');
+            }
+        }
+        if (!csv) text.append(']');
+        byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+        // The listing is cheap to build, its ETag saves sending it again
+        return new Response('"' + Integer.toHexString(Arrays.hashCode(body)) + '"', csv ? CSV : JSON, body);
+    } // end getStationList
+
+    /**
+     * Helper method to return a station's response from the cache, serialising it if the station has changed.
+     *
+     * @param stationName The name of the station.
+     * @param resource    The resource requested, "monthly", "aggregate" or "query".
+     * @param parameters  The request's query parameters.
+     * @return Response for the station, or null if the station or resource doesn't exist.
+     * @throws Loader.LoaderException If the station cannot be loaded.
+     */
+    private Response getStationResponse(String stationName, String resource, Map<String, String> parameters)
+            throws Loader.LoaderException {
+        if (!resource.equals("monthly") && !resource.equals("aggregate") && !resource.equals("query")) return null;
+        File rawDataFile = Loader.findRawDataFile(directoryName, stationName);
+        File analysedFile = Loader.findAnalysedFile(directoryName, stationName, rawDataFile);
+        if (!analysedFile.exists() && rawDataFile == null) return null;
+
+        String requestKey = getRequestKey(stationName, resource, parameters);
+        // A cached response is only current while the analysed file is, a changed raw file is loaded and analysed again
+        FileFingerprint fingerprint = Loader.isAnalysisNeeded(analysedFile, rawDataFile) ? null
+                : FileFingerprint.of(analysedFile);
+        if (fingerprint != null) {
+            String eTag = getETag(fingerprint, requestKey);
+            synchronized (responses) {
+                Response response = responses.get(requestKey);
+                if (response != null && response.eTag.equals(eTag)) return response;
+            }
+        }
+
+        // Serialise the station's current version
+        Station station = stationCache.load(directoryName, stationName);
+        Response response;
+        switch (resource) {
+            case "monthly":
+                response = getMonthly(station, getFormat(parameters, "csv").equals("json"));
+                break;
+            case "aggregate":
+                response = getAggregate(station, parameters);
+                break;
+            default:
+                String expression = parameters.get("q");
+                if (expression == null) throw new IllegalArgumentException("missing q");
+                response = new Response(null, CSV,
+                        StationQuery.parse(expression).run(station).toString().getBytes(StandardCharsets.UTF_8));
+                break;
+        }
+
+        // Only version the response if the analysed file wasn't replaced while loading, otherwise the ETag could be stale
+        File loadedFile = Loader.findAnalysedFile(directoryName, stationName, rawDataFile);
+        FileFingerprint loadedFingerprint = FileFingerprint.of(loadedFile);
+        if (loadedFingerprint != null && !Loader.isAnalysisNeeded(loadedFile, rawDataFile)
+                && (fingerprint == null || loadedFingerprint.equals(fingerprint))) {
+            response = new Response(getETag(loadedFingerprint, requestKey), response.contentType, response.body);
+            cacheResponse(requestKey, response);
+        }
+        return response;
+    } // end getStationResponse
+
+    /**
+     * Helper method to key a station's response by the parameters its resource uses, so requests differing only
+     * in other parameters share a cached response.
+     *
+     * @param stationName The name of the station.
+     * @param resource    The resource requested, "monthly", "aggregate" or "query".
+     * @param parameters  The request's query parameters.
+     * @return The key of the response.
+     */
+    private static String getRequestKey(String stationName, String resource, Map<String, String> parameters) {
+        String requestKey = stationName + '/' + resource + '?';
+        switch (resource) {
+            case "monthly":
+                return requestKey + "format=" + getFormat(parameters, "csv");
+            case "aggregate":
+                return requestKey + "from=" + parameters.get("from") + "&to=" + parameters.get("to");
+            default:
+                return requestKey + "q=" + parameters.get("q");
+        }
+    } // end getRequestKey
+
+    /**
+     * Helper method to cache a versioned response, evicting least recently used responses while the bodies
+     * cached exceed the byte budget.
+     *
+     * @param requestKey The key of the response.
+     * @param response   The Response to cache.
+     */
+    private void cacheResponse(String requestKey, Response response) {
+        if (response.body.length > MAX_CACHED_BYTES) return;
+        synchronized (responses) {
+            Response oldResponse = responses.put(requestKey, response);
+            if (oldResponse != null) cachedBytes -= oldResponse.body.length;
+            cachedBytes += response.body.length;
+
+            Iterator<Map.Entry<String, Response>> eldest = responses.entrySet().iterator();
+            while (cachedBytes > MAX_CACHED_BYTES && eldest.hasNext()) {
+                cachedBytes -= eldest.next().getValue().body.length;
+                eldest.remove();
+            }
+        }
+    } // end cacheResponse
+
+    /**
+     * Helper method to serialise a station's monthly records.
+     *
+     * @param station The Station to serialise.
+     * @param json    Whether to serialise as JSON rather than csv.
+     * @return Response holding the records, without an ETag.
+     */
+    private static Response getMonthly(Station station, boolean json) {
+        int numberOfRecords = station.getNumberOfRecords();
+        StringBuilder text = new StringBuilder(numberOfRecords * (json ? 80 : 40));
+        text.append(json ? "[" : AnalysedFileWriter.HEADER_LINE + "\n");
+        for (int i = 0; i < numberOfRecords; i++) {
+            if (json) {
+                if (i > 0) text.append(',');
+                text.append("{\"year\":").append(station.getYear(i)).append(",\"month\":").append(station.getMonth(i))
+                        .append(",\"total\":").append(formatValue(station.getTotal(i)))
+                        .append(",\"min\":").append(formatValue(station.getMin(i)))
+                        .append(",\"max\":").append(formatValue(station.getMax(i)))
+                        .append(",\"missingDays\":").append(station.getMissingDays(i))
+                        .append(",\"numberOfMissingDays\":").append(Integer.bitCount(station.getMissingDays(i))).append('}');
+            } else {
+                text.append(station.getYear(i)).append(',').append(station.getMonth(i)).append(',')
+                        .append(formatValue(station.getTotal(i))).append(',')
+                        .append(formatValue(station.getMin(i))).append(',')
+                        .append(formatValue(station.getMax(i))).append(',')
+                        .append(station.getMissingDays(i)).append('\n');
+            }
+        }
+        if (json) text.append(']');
+        return new Response(null, json ? JSON : CSV, text.toString().getBytes(StandardCharsets.UTF_8));
+    } // end getMonthly
+
+    /**
+     * Helper method to aggregate a station's monthly totals over a range of years.
+     *
+     * @param station    The Station to aggregate, with Records in date order.
+     * @param parameters The request's query parameters, optional from and to years.
+     * @return Response holding the aggregates as JSON, without an ETag.
+     */
+    private static Response getAggregate(Station station, Map<String, String> parameters) {
+        int fromYear = getYear(parameters, "from", Integer.MIN_VALUE);
+        int toYear = getYear(parameters, "to", Integer.MAX_VALUE);
+
+        // Records are in date order, so the range is a run of indices
+        int numberOfRecords = station.getNumberOfRecords();
+        int from = 0;
+        while (from < numberOfRecords && station.getYear(from) < fromYear) from++;
+        int to = from;
+        while (to < numberOfRecords && station.getYear(to) <= toYear) to++;
+
+        // Months without readings are left out rather than counted as 0 mm
+        double[] totals = Station.loaded(station.getTotalColumn(), "total");
+        int count = 0;
+        double sum = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            if (station.isMissing(i)) continue;
+            count++;
+            sum += totals[i];
+            if (totals[i] < min) min = totals[i];
+            if (totals[i] > max) max = totals[i];
+        }
+        String text = String.format(Locale.ROOT,
+                "{\"count\":%d,\"sum\":%s,\"mean\":%s,\"min\":%s,\"max\":%s}", count, formatValue(sum),
+                count == 0 ? "null" : formatValue(sum / count),
+                count == 0 ? "null" : formatValue(min),
+                count == 0 ? "null" : formatValue(max));
+        return new Response(null, JSON, text.getBytes(StandardCharsets.UTF_8));
+    } // end getAggregate
+
+    /**
+     * Helper method to send a response, or 304 Not Modified if the client holds the current version.
+     *
+     * @param exchange The request and its response.
+     * @param response The Response to send.
+     */
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        if (response.eTag != null) {
+            headers.set("ETag", response.eTag);
+            headers.set("Cache-Control", "no-cache"); // revalidate with If-None-Match
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (ifNoneMatch != null && matchesETag(ifNoneMatch, response.eTag)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+        }
+        headers.set("Content-Type", response.contentType);
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(200, response.body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response.body);
+        }
+    } // end send
+
+    /**
+     * Helper method to send an error response with a plain text message.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    } // end sendError
+
+    /**
+     * Helper method to check an If-None-Match header against an ETag.
+     */
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.strip();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(eTag)) return true;
+        }
+        return false;
+    } // end matchesETag
+
+    /**
+     * Helper method to create an ETag for a request from the version of the station's analysed file.
+     */
+    private static String getETag(FileFingerprint fingerprint, String requestKey) {
+        return String.format("\"%s-%08x\"", fingerprint, requestKey.hashCode());
+    } // end getETag
+
+    /**
+     * Helper method to find the station name of a rainfall file in the directory.
+     *
+     * @param fileName The name of the file.
+     * @return The station name, or null if the file is not a station's rainfall file.
+     */
+    private static String getStationName(String fileName) {
+        String stationName = Loader.getStationName(fileName);
+        return stationName != null && STATION_NAME.matcher(stationName).matches() ? stationName : null;
+    } // end getStationName
+
+    /**
+     * Helper method to decode a request's query string.
+     *
+     * @param rawQuery The encoded query string, or null.
+     * @return Map of parameter name to value.
+     */
+    private static Map<String, String> getParameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return parameters;
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    } // end getParameters
+
+    /**
+     * Helper method to return the requested format, either "csv" or "json".
+     */
+    private static String getFormat(Map<String, String> parameters, String defaultFormat) {
+        String format = parameters.getOrDefault("format", defaultFormat).toLowerCase(Locale.ROOT);
+        if (!format.equals("csv") && !format.equals("json")) throw new IllegalArgumentException("unknown format: " + format);
+        return format;
+    } // end getFormat
+
+    /**
+     * Helper method to return a year parameter.
+     */
+    private static int getYear(Map<String, String> parameters, String name, int defaultYear) {
+        String value = parameters.get(name);
+        if (value == null) return defaultYear;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException error) {
+            throw new IllegalArgumentException("invalid " + name + ": " + value);
+        }
+    } // end getYear
+
+    /**
+     * Helper method to format a rainfall value with two decimal places.
+     */
+    private static String formatValue(double value) {
+        return String.format(Locale.ROOT, "%1.2f", value);
+    } // end formatValue
+
+    /**
+     * Helper method to create the executor requests are handled on, a virtual thread per request where
+     * the JVM supports virtual threads, otherwise a pool of platform threads.
+     *
+     * @return ExecutorService for requests.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            // Looked up by reflection so the server also runs on JVMs without virtual threads
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException error) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "station-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    } // end newRequestExecutor
+
+    /**
+     * An object of class Response holds a serialised response body with its content type and ETag.
+     */
+    private static class Response {
+        private final String eTag; // null if the response is not versioned
+        private final String contentType;
+        private final byte[] body;
+
+        private Response(String eTag, String contentType, byte[] body) {
+            this.eTag = eTag;
+            this.contentType = contentType;
+            this.body = body;
+        } // end Response constructor
+    } // end class Response
+
+} // end class StationServer
@@ -0,0 +1,194 @@
+package rainfall;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An object of class StationWatcher watches a directory of raw rainfall data files and re-analyses a station
+ * in the background when its raw data is created or modified, notifying a listener with the new Station.
+ * Bursts of changes, such as a file being copied in several writes, are debounced so each station is
+ * analysed once after its file has been quiet for the debounce delay. Changes to analysed and index files
+ * written by Loader are ignored.
+ */
+public class StationWatcher implements Closeable {
+
+    private final String directoryName;
+    private final StationCache stationCache;
+    private final long debounceMillis;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Thread watchThread;
+    // Single thread both debounces and analyses, so one station is analysed at a time
+    private final ScheduledExecutorService analyser;
+    private final Map<String, ScheduledFuture<?>> pendingAnalyses = new HashMap<>(); // Guarded by itself
+
+    /**
+     * Constructor. Create a StationWatcher object and start watching the directory.
+     *
+     * @param directoryName  The path to the directory of raw rainfall data files.
+     * @param stationCache   The StationCache stations are loaded through, so changed stations replace cached ones.
+     * @param debounceMillis The time a station's raw data must be unchanged for before it is analysed.
+     * @param listener       The Listener notified, on the analysing thread, of each station analysed.
+     * @throws IOException If the directory cannot be watched.
+     */
+    public StationWatcher(String directoryName, StationCache stationCache, long debounceMillis, Listener listener)
+            throws IOException {
+        if (debounceMillis < 0) throw new IllegalArgumentException("debounceMillis must not be negative: " + debounceMillis);
+        this.directoryName = directoryName;
+        this.stationCache = stationCache;
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+
+        Path directory = new File(directoryName).toPath();
+        watchService = FileSystems.getDefault().newWatchService();
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException error) {
+            watchService.close();
+            throw error;
+        }
+        analyser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "station-watcher-analyser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchThread = new Thread(this::watch, "station-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    } // end StationWatcher constructor
+
+    /**
+     * Method to stop watching the directory, analyses not yet started are cancelled.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close(); // wakes the watch thread, which then exits
+        analyser.shutdownNow();
+        synchronized (pendingAnalyses) {
+            pendingAnalyses.clear();
+        }
+    } // end close
+
+    /**
+     * @return The value of directoryName.
+     */
+    public String getDirectoryName() {
+        return directoryName;
+    } // end getDirectoryName
+
+    /**
+     * @return A string representation of StationWatcher.
+     */
+    public String toString() {
+        synchronized (pendingAnalyses) {
+            return String.format("StationWatcher[directory=%s, debounce=%dms, pending=%d]", directoryName,
+                    debounceMillis, pendingAnalyses.size());
+        }
+    } // end toString
+
+    /**
+     * Helper method run by the watch thread to take directory changes until the watcher is closed.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) { // changes were lost, check every station
+                        scheduleAll();
+                        continue;
+                    }
+                    String stationName = Loader.getRawDataStationName(event.context().toString());
+                    if (stationName != null) schedule(stationName);
+                }
+                if (!key.reset()) return; // directory no longer accessible
+            }
+        } catch (InterruptedException | ClosedWatchServiceException error) {
+            // closed
+        }
+    } // end watch
+
+    /**
+     * Helper method to schedule analysis of every station with raw rainfall data in the directory.
+     */
+    private void scheduleAll() {
+        String[] fileNames = new File(directoryName).list();
+        if (fileNames == null) return;
+        for (String fileName : fileNames) {
+            String stationName = Loader.getRawDataStationName(fileName);
+            if (stationName != null) schedule(stationName);
+        }
+    } // end scheduleAll
+
+    /**
+     * Helper method to schedule analysis of a station after the debounce delay,
+     * replacing any analysis of the station not yet started so a burst of changes is analysed once.
+     *
+     * @param stationName The name of the station whose raw rainfall data changed.
+     */
+    private void schedule(String stationName) {
+        synchronized (pendingAnalyses) {
+            if (analyser.isShutdown()) return;
+            ScheduledFuture<?> pendingAnalysis = pendingAnalyses.get(stationName);
+            if (pendingAnalysis != null) pendingAnalysis.cancel(false);
+            pendingAnalyses.put(stationName, analyser.schedule(() -> analyse(stationName), debounceMillis,
+                    TimeUnit.MILLISECONDS));
+        }
+    } // end schedule
+
+    /**
+     * Helper method run on the analysing thread to load a changed station, analysing its raw rainfall data,
+     * and notify the listener.
+     *
+     * @param stationName The name of the station whose raw rainfall data changed.
+     */
+    private void analyse(String stationName) {
+        synchronized (pendingAnalyses) {
+            pendingAnalyses.remove(stationName);
+        }
+        try {
+            listener.stationChanged(stationName, stationCache.load(directoryName, stationName));
+        } catch (Loader.LoaderException error) {
+            listener.stationFailed(stationName, error);
+        }
+    } // end analyse
+
+    /**
+     * An object implementing Listener is notified of stations re-analysed by a StationWatcher.
+     */
+    public interface Listener {
+
+        /**
+         * Method called once a station's changed raw rainfall data has been analysed.
+         *
+         * @param stationName The name of the station.
+         * @param station     The Station object loaded from the new analysed rainfall csv file.
+         */
+        void stationChanged(String stationName, Station station);
+
+        /**
+         * Method called when a station's changed raw rainfall data could not be analysed,
+         * such as a file still being written.
+         *
+         * @param stationName The name of the station.
+         * @param error       The exception thrown loading the station.
+         */
+        void stationFailed(String stationName, Loader.LoaderException error);
+
+    } // end interface Listener
+
+} // end class StationWatcher
@@ -0,0 +1,225 @@
+package rainfall;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * An object of class YearIndex is a sparse index of a station's analysed rainfall csv file, holding the byte offset
+ * of the first line of each year, so a range of years can be read without reading the lines of other years.
+ * The index is persisted as "[station]_index.csv" alongside the analysed file, with the fingerprints of the analysed
+ * file and of the raw rainfall data file it was analysed from, so a changed file is indexed again.
+ */
+public class YearIndex {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ANALYSED_YEAR_COLUMN = 0;
+    private static final String OFFSETS_HEADER = "year,analysedOffset";
+
+    private final FileFingerprint analysedFingerprint;
+    private final FileFingerprint rawFingerprint; // null if there is no raw rainfall data file
+    private final NavigableMap<Integer, Long> analysedOffsets; // Offset of first line by year
+    private final long analysedLength;
+
+    /**
+     * Constructor. Create a YearIndex object and store values.
+     */
+    private YearIndex(FileFingerprint analysedFingerprint, FileFingerprint rawFingerprint,
+                      NavigableMap<Integer, Long> analysedOffsets, long analysedLength) {
+        this.analysedFingerprint = analysedFingerprint;
+        this.rawFingerprint = rawFingerprint;
+        this.analysedOffsets = Collections.unmodifiableNavigableMap(analysedOffsets);
+        this.analysedLength = analysedLength;
+    } // end YearIndex constructor
+
+    /**
+     * Method to index a station's analysed rainfall csv file, fingerprinting its raw rainfall data file.
+     * The raw data isn't read, as ranges of years are only ever read from the analysed file.
+     *
+     * @param analysedCSVFile The analysed rainfall csv file.
+     * @param rawDataFile     The raw rainfall data file, or null if there is none.
+     * @return YearIndex of the files.
+     * @throws IOException If a file cannot be read.
+     */
+    public static YearIndex build(File analysedCSVFile, File rawDataFile) throws IOException {
+        FileFingerprint analysedFingerprint = FileFingerprint.of(analysedCSVFile);
+        if (analysedFingerprint == null) throw new IOException("analysed file not found");
+        NavigableMap<Integer, Long> analysedOffsets = scanYears(analysedCSVFile, ANALYSED_YEAR_COLUMN);
+        if (analysedOffsets == null) throw new IOException("analysed file not sorted by date");
+
+        FileFingerprint rawFingerprint = rawDataFile == null ? null : FileFingerprint.of(rawDataFile);
+        return new YearIndex(analysedFingerprint, rawFingerprint, analysedOffsets, analysedFingerprint.getSize());
+    } // end build
+
+    /**
+     * Method to read a persisted YearIndex.
+     *
+     * @param indexFile The index file written by write.
+     * @return YearIndex read, or null if the index file doesn't exist or is invalid.
+     */
+    public static YearIndex read(File indexFile) {
+        if (!indexFile.exists()) return null;
+        try (BufferedReader in = new BufferedReader(new FileReader(indexFile, StandardCharsets.UTF_8))) {
+            FileFingerprint analysedFingerprint = FileFingerprint.parse(readValue(in, "analysed"));
+            FileFingerprint rawFingerprint = FileFingerprint.parse(readValue(in, "raw"));
+            // Indexes that also held raw file offsets have another header, and are indexed again
+            if (analysedFingerprint == null || !OFFSETS_HEADER.equals(in.readLine())) return null;
+
+            NavigableMap<Integer, Long> analysedOffsets = new TreeMap<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] values = line.split(",", -1);
+                if (values.length != 2) return null;
+                analysedOffsets.put(Integer.parseInt(values[0]), Long.parseLong(values[1]));
+            }
+            return new YearIndex(analysedFingerprint, rawFingerprint, analysedOffsets, analysedFingerprint.getSize());
+        } catch (IOException | RuntimeException error) { // unreadable or corrupt, index again
+            return null;
+        }
+    } // end read
+
+    /**
+     * Method to persist the YearIndex, replacing the index file atomically.
+     *
+     * @param indexFile The index file to write.
+     * @throws IOException If the index file cannot be written.
+     */
+    public void write(File indexFile) throws IOException {
+        Path target = indexFile.toPath();
+        AtomicFiles.replace(target, out -> {
+            out.write("analysed," + analysedFingerprint + "\n");
+            out.write("raw," + (rawFingerprint == null ? "" : rawFingerprint.toString()) + "\n");
+            out.write(OFFSETS_HEADER + "\n");
+            for (Map.Entry<Integer, Long> entry : analysedOffsets.entrySet()) {
+                out.write(entry.getKey() + "," + entry.getValue() + "\n");
+            }
+        });
+    } // end write
+
+    /**
+     * Method to check the index still describes the files, which are unchanged since indexing.
+     *
+     * @param analysedCSVFile The analysed rainfall csv file.
+     * @param rawDataFile     The raw rainfall data file, or null if there is none.
+     * @return Whether the index is current.
+     */
+    public boolean isCurrent(File analysedCSVFile, File rawDataFile) {
+        FileFingerprint currentRawFingerprint = rawDataFile == null ? null : FileFingerprint.of(rawDataFile);
+        return analysedFingerprint.equals(FileFingerprint.of(analysedCSVFile))
+                && (rawFingerprint == null ? currentRawFingerprint == null : rawFingerprint.equals(currentRawFingerprint));
+    } // end isCurrent
+
+    /**
+     * @return The first year indexed, or 0 if the analysed file has no records.
+     */
+    public int getFirstYear() {
+        return analysedOffsets.isEmpty() ? 0 : analysedOffsets.firstKey();
+    } // end getFirstYear
+
+    /**
+     * @return The last year indexed, or 0 if the analysed file has no records.
+     */
+    public int getLastYear() {
+        return analysedOffsets.isEmpty() ? 0 : analysedOffsets.lastKey();
+    } // end getLastYear
+
+    /**
+     * Method to find the byte range of the analysed rainfall csv file holding a range of years.
+     *
+     * @param fromYear The first year, inclusive.
+     * @param toYear   The last year, inclusive.
+     * @return Array of the start offset, inclusive, and end offset, exclusive, of the lines of the years.
+     */
+    public long[] getAnalysedRange(int fromYear, int toYear) {
+        return getRange(analysedOffsets, analysedLength, fromYear, toYear);
+    } // end getAnalysedRange
+
+    /**
+     * @return A string representation of YearIndex.
+     */
+    public String toString() {
+        return String.format("YearIndex[years=%d-%d, analysed=%s, raw=%s]", getFirstYear(), getLastYear(),
+                analysedFingerprint, rawFingerprint);
+    } // end toString
+
+    /**
+     * Helper method to find a byte range from the offsets of each year.
+     */
+    private static long[] getRange(NavigableMap<Integer, Long> offsets, long length, int fromYear, int toYear) {
+        if (fromYear > toYear) return new long[]{length, length};
+        Map.Entry<Integer, Long> start = offsets.ceilingEntry(fromYear);
+        Map.Entry<Integer, Long> end = toYear == Integer.MAX_VALUE ? null : offsets.ceilingEntry(toYear + 1);
+        long startOffset = start == null ? length : start.getValue();
+        long endOffset = end == null ? length : end.getValue();
+        return new long[]{startOffset, Math.max(startOffset, endOffset)};
+    } // end getRange
+
+    /**
+     * Helper method to read a "name,value" line of a persisted index.
+     */
+    private static String readValue(BufferedReader in, String name) throws IOException {
+        String line = in.readLine();
+        if (line == null || !line.startsWith(name + ",")) throw new IOException("invalid index");
+        return line.substring(name.length() + 1);
+    } // end readValue
+
+    /**
+     * Helper method to scan a csv file with a header for the offset of the first line of each year,
+     * reading the year column's digits straight from the bytes.
+     *
+     * @param csvFile    The csv file to scan.
+     * @param yearColumn The index of the year column.
+     * @return Offset of the first line by year, or null if the years are not in order.
+     * @throws IOException If the file cannot be read.
+     */
+    private static NavigableMap<Integer, Long> scanYears(File csvFile, int yearColumn) throws IOException {
+        NavigableMap<Integer, Long> offsets = new TreeMap<>();
+        try (InputStream in = new FileInputStream(csvFile)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long offset = 0;
+            long lineStart = 0;
+            boolean header = true;
+            int column = 0;
+            int year = 0;
+            int lastYear = Integer.MIN_VALUE;
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                for (int i = 0; i < length; i++) {
+                    byte b = buffer[i];
+                    offset++;
+                    if (b == '\n') {
+                        if (!header && column >= yearColumn) {
+                            if (year < lastYear) return null;
+                            if (year != lastYear) offsets.put(year, lineStart);
+                            lastYear = year;
+                        }
+                        header = false;
+                        lineStart = offset;
+                        column = 0;
+                        year = 0;
+                    } else if (b == ',') {
+                        column++;
+                    } else if (column == yearColumn && b >= '0' && b <= '9') {
+                        year = year * 10 + (b - '0');
+                    }
+                }
+            }
+            // Last line without a line break
+            if (!header && offset > lineStart && column >= yearColumn) {
+                if (year < lastYear) return null;
+                if (year != lastYear) offsets.put(year, lineStart);
+            }
+        }
+        return offsets;
+    } // end scanYears
+
+} // end class YearIndex
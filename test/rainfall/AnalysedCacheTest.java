@@ -0,0 +1,128 @@
+package rainfall;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of AnalysedCache, sharding station entries under the cache root and evicting the least recently used.
+ */
+class AnalysedCacheTest {
+
+    private static final String HEADER = "Product code,Bureau of Meteorology station number,Year,Month,Day,"
+            + "Rainfall amount (millimetres),Period over which rainfall was measured (days),Quality\n";
+
+    /**
+     * Helper method to write an artefact of a number of bytes into a station's entry and record it in the cache.
+     */
+    private static File writeArtefact(AnalysedCache cache, String stationName, int bytes) throws IOException {
+        File entryDirectory = cache.getEntryDirectory("data", stationName);
+        Files.createDirectories(entryDirectory.toPath());
+        File artefactFile = new File(entryDirectory, stationName + "_analysed.csv");
+        Files.write(artefactFile.toPath(), new byte[bytes]);
+        cache.update(artefactFile);
+        return artefactFile;
+    } // end writeArtefact
+
+    @Test
+    void entriesAreShardedByHash(@TempDir Path root) throws IOException {
+        AnalysedCache cache = new AnalysedCache(root, AnalysedCache.DEFAULT_MAX_BYTES);
+        Set<String> shards = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            File entryDirectory = cache.getEntryDirectory("data", "station" + i);
+            String entryName = entryDirectory.getName();
+            String shard = entryDirectory.getParentFile().getName();
+            assertEquals(cache.getRoot(), entryDirectory.getParentFile().getParentFile().toPath());
+            assertTrue(entryName.startsWith("station" + i + "-"), entryName);
+            assertEquals(entryName.substring(entryName.length() - 16, entryName.length() - 14), shard);
+            shards.add(shard);
+        }
+        assertTrue(shards.size() > 200, "shards used: " + shards.size()); // of 256
+        assertEquals(0, cache.getEntryCount()); // lookups create nothing
+        try (Stream<Path> files = Files.list(root)) {
+            assertEquals(0, files.count());
+        }
+    } // end entriesAreShardedByHash
+
+    @Test
+    void entriesAreKeyedByDirectoryAndStation(@TempDir Path root) throws IOException {
+        AnalysedCache cache = new AnalysedCache(root, AnalysedCache.DEFAULT_MAX_BYTES);
+        assertEquals(cache.getEntryDirectory("data", "station"), cache.getEntryDirectory("data/../data", "station"));
+        assertFalse(cache.getEntryDirectory("data", "station").equals(cache.getEntryDirectory("other", "station")));
+        assertFalse(cache.getEntryDirectory("data", "station").equals(cache.getEntryDirectory("data", "station2")));
+    } // end entriesAreKeyedByDirectoryAndStation
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted(@TempDir Path root) throws IOException {
+        AnalysedCache cache = new AnalysedCache(root, 250);
+        File a = writeArtefact(cache, "a", 100);
+        File b = writeArtefact(cache, "b", 100);
+        cache.update(a); // a is now used more recently than b
+        File c = writeArtefact(cache, "c", 100);
+
+        assertFalse(b.exists());
+        assertTrue(a.exists());
+        assertTrue(c.exists());
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(200, cache.getTotalBytes());
+        assertEquals(1, cache.getEvictionCount());
+    } // end leastRecentlyUsedEntryIsEvicted
+
+    @Test
+    void entryJustWrittenIsKeptEvenOverBudget(@TempDir Path root) throws IOException {
+        AnalysedCache cache = new AnalysedCache(root, 250);
+        File a = writeArtefact(cache, "a", 100);
+        File big = writeArtefact(cache, "big", 300);
+        assertFalse(a.exists());
+        assertTrue(big.exists());
+        assertEquals(300, cache.getTotalBytes());
+    } // end entryJustWrittenIsKeptEvenOverBudget
+
+    @Test
+    void rescanRebuildsIndexAndEnforcesBudget(@TempDir Path root) throws IOException {
+        AnalysedCache cache = new AnalysedCache(root, 1000);
+        writeArtefact(cache, "a", 100);
+        writeArtefact(cache, "b", 100);
+
+        AnalysedCache rescanned = new AnalysedCache(root, 1000);
+        assertEquals(2, rescanned.getEntryCount());
+        assertEquals(200, rescanned.getTotalBytes());
+        AnalysedCache smaller = new AnalysedCache(root, 150);
+        assertEquals(1, smaller.getEntryCount());
+        assertEquals(100, smaller.getTotalBytes());
+    } // end rescanRebuildsIndexAndEnforcesBudget
+
+    @Test
+    void loaderKeepsArtefactsInDefaultCache(@TempDir Path temporaryDirectory) throws Exception {
+        Path directory = Files.createDirectory(temporaryDirectory.resolve("data"));
+        Path root = temporaryDirectory.resolve("cache");
+        Files.write(directory.resolve("station.csv"),
+                (HEADER + "t,1,2000,01,01,1,1,Y\nt,1,2000,01,02,2,1,Y\n").getBytes(StandardCharsets.UTF_8));
+        AnalysedCache cache = new AnalysedCache(root, AnalysedCache.DEFAULT_MAX_BYTES);
+        AnalysedCache.setDefault(cache);
+        try {
+            Station station = Loader.load(directory.toString(), "station");
+            assertEquals(3.0, station.getTotal(0), 1e-9);
+            assertFalse(Files.exists(directory.resolve("station_analysed.csv")));
+            File entryDirectory = cache.getEntryDirectory(directory.toString(), "station");
+            assertTrue(new File(entryDirectory, "station_analysed.csv").exists());
+            assertEquals(1, cache.getEntryCount());
+            assertTrue(cache.getTotalBytes() > 0);
+        } finally {
+            AnalysedCache.setDefault(null);
+        }
+    } // end loaderKeepsArtefactsInDefaultCache
+
+} // end class AnalysedCacheTest
@@ -0,0 +1,74 @@
+package rainfall;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Tests of AnalysedFileWriter, formatting records as "%1.2f" would and replacing the analysed file on commit.
+ */
+class AnalysedFileWriterTest {
+
+    /**
+     * Helper method to write values as the total, min and max of records and check each line against "%1.2f".
+     */
+    private static void assertFormattedAsFixed2(Path analysedFile, double[] values) throws IOException {
+        try (AnalysedFileWriter writer = new AnalysedFileWriter(analysedFile)) {
+            for (double value : values) writer.writeRecord(2000, 1, value, -value, value * 3, 0);
+            writer.commit();
+        }
+        List<String> lines = Files.readAllLines(analysedFile, StandardCharsets.US_ASCII);
+        assertEquals(AnalysedFileWriter.HEADER_LINE, lines.get(0));
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            assertEquals(String.format(Locale.ROOT, "2000,1,%1.2f,%1.2f,%1.2f,0", value, -value, value * 3),
+                    lines.get(i + 1), "value " + value);
+        }
+    } // end assertFormattedAsFixed2
+
+    @Test
+    void thousandthsAreRoundedAsFormatDoes(@TempDir Path directory) throws IOException {
+        double[] values = new double[100_000]; // includes the ties 0.145 and 1.005
+        for (int i = 0; i < values.length; i++) values[i] = i / 1000.0;
+        assertFormattedAsFixed2(directory.resolve("station_analysed.csv"), values);
+    } // end thousandthsAreRoundedAsFormatDoes
+
+    @Test
+    void arbitraryValuesAreRoundedAsFormatDoes(@TempDir Path directory) throws IOException {
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextDouble() * Math.pow(10, random.nextInt(8));
+        assertFormattedAsFixed2(directory.resolve("station_analysed.csv"), values);
+    } // end arbitraryValuesAreRoundedAsFormatDoes
+
+    @Test
+    void specialValuesAreFormatted(@TempDir Path directory) throws IOException {
+        assertFormattedAsFixed2(directory.resolve("station_analysed.csv"),
+                new double[]{0.0, -0.0, 0.004, 0.005, 0.1 + 0.2, 999999.995, 123456789012.345});
+    } // end specialValuesAreFormatted
+
+    @Test
+    void closeWithoutCommitLeavesAnalysedFileUntouched(@TempDir Path directory) throws IOException {
+        Path analysedFile = directory.resolve("station_analysed.csv");
+        Files.write(analysedFile, "old\n".getBytes(StandardCharsets.US_ASCII));
+        try (AnalysedFileWriter writer = new AnalysedFileWriter(analysedFile)) {
+            writer.writeRecord(2000, 1, 1.0, 1.0, 1.0, 0);
+        }
+        assertEquals("old\n", new String(Files.readAllBytes(analysedFile), StandardCharsets.US_ASCII));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertFalse(files.anyMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    } // end closeWithoutCommitLeavesAnalysedFileUntouched
+
+} // end class AnalysedFileWriterTest
@@ -0,0 +1,83 @@
+package rainfall;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of Climatology, merging partial climatologies against one accumulated serially.
+ */
+class ClimatologyTest {
+
+    private static final String RAW_DATA = "Product code,Bureau of Meteorology station number,Year,Month,Day,"
+            + "Rainfall amount (millimetres),Period over which rainfall was measured (days),Quality\n"
+            + "test,test,2000,01,01,1,1,y\ntest,test,2000,01,02,2,1,y\ntest,test,2000,02,01,3,1,y\n";
+
+    /**
+     * Helper method to build a Station of 100 years of months with varied totals.
+     */
+    private static Station buildStation() {
+        StationBuilder stationBuilder = new StationBuilder(false);
+        for (int year = 1900; year < 2000; year++) {
+            for (int month = 1; month <= 12; month++) {
+                double total = (year * 37 + month * 11) % 97 + month * 0.5;
+                stationBuilder.addRecord(year, month, total, 0, total, 0);
+            }
+        }
+        return stationBuilder.build();
+    } // end buildStation
+
+    /**
+     * Helper method to check two climatologies have the same statistics for every calendar month.
+     */
+    private static void assertSameClimatology(Climatology expected, Climatology actual) {
+        for (int month = 1; month <= 12; month++) {
+            assertEquals(expected.getCount(month), actual.getCount(month));
+            assertEquals(expected.getMean(month), actual.getMean(month), 1e-9);
+            assertEquals(expected.getVariance(month), actual.getVariance(month), 1e-9);
+        }
+    } // end assertSameClimatology
+
+    @Test
+    void mergedHalvesMatchWholeStation() {
+        Station station = buildStation();
+        int half = station.getNumberOfRecords() / 2 + 5;
+        Climatology merged = Climatology.of(station, 0, half).merge(Climatology.of(station, half, station.getNumberOfRecords()));
+        assertSameClimatology(Climatology.of(station), merged);
+    } // end mergedHalvesMatchWholeStation
+
+    @Test
+    void mergingEmptyClimatologyChangesNothing() {
+        Station station = buildStation();
+        assertSameClimatology(Climatology.of(station), Climatology.of(station).merge(new Climatology()));
+        assertSameClimatology(Climatology.of(station), new Climatology().merge(Climatology.of(station)));
+    } // end mergingEmptyClimatologyChangesNothing
+
+    @Test
+    void chunkedClimatologyMatchesSerialClimatology() {
+        Station station = buildStation();
+        for (int run = 0; run < 10; run++) assertSameClimatology(Climatology.of(station), Climatology.ofChunks(station));
+    } // end chunkedClimatologyMatchesSerialClimatology
+
+    @Test
+    void directoryClimatologyReportsStationsThatCannotBeLoaded(@TempDir Path directory) throws IOException {
+        Files.write(directory.resolve("wet.csv"), RAW_DATA.getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("broken.csv"), "not,a,rainfall,file\n1,2\n".getBytes(StandardCharsets.UTF_8));
+
+        Map<String, String> failures = new TreeMap<>();
+        Map<String, Climatology> climatologies = Climatology.ofDirectory(directory.toString(), failures);
+        assertTrue(climatologies.containsKey("wet"));
+        assertTrue(failures.containsKey("broken"));
+        assertEquals(1, failures.size());
+    } // end directoryClimatologyReportsStationsThatCannotBeLoaded
+
+} // end class ClimatologyTest
@@ -0,0 +1,132 @@
+package rainfall;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of Loader's parsing of raw rainfall data, and the quarantine of invalid records by a lenient analysis.
+ */
+class LoaderTest {
+
+    private static final String HEADER = "Product code,Bureau of Meteorology station number,Year,Month,Day,"
+            + "Rainfall amount (millimetres),Period over which rainfall was measured (days),Quality\n";
+
+    /**
+     * Helper method to write a raw rainfall csv file of rows after the header.
+     */
+    private static File writeRawData(Path directory, String fileName, String rows) throws IOException {
+        Path rawDataFile = directory.resolve(fileName);
+        Files.write(rawDataFile, (HEADER + rows).getBytes(StandardCharsets.UTF_8));
+        return rawDataFile.toFile();
+    } // end writeRawData
+
+    /**
+     * Helper method to count a reason's records in rejection counts, 0 if there are none.
+     */
+    private static long getCount(Map<String, Long> rejectedRows, String reason) {
+        Long count = rejectedRows.get(reason);
+        return count == null ? 0 : count;
+    } // end getCount
+
+    @Test
+    void parseTenthsReadsWholeTenths() {
+        assertEquals(0, Loader.parseTenths("0"));
+        assertEquals(124, Loader.parseTenths("12.4"));
+        assertEquals(124, Loader.parseTenths("12.40")); // as written in analysed files
+        assertEquals(120, Loader.parseTenths("12."));
+        assertEquals(5, Loader.parseTenths(".5"));
+        assertEquals(30, Loader.parseTenths("+3.0"));
+        assertEquals(-5, Loader.parseTenths("-0.5"));
+        assertEquals(Integer.MAX_VALUE, Loader.parseTenths("214748364.7"));
+    } // end parseTenthsReadsWholeTenths
+
+    @Test
+    void parseTenthsReadsValueWithinLine() {
+        String line = "2000,1,12.40,0.00,3.1,0";
+        assertEquals(124, Loader.parseTenths(line, 7, 12));
+        assertEquals(0, Loader.parseTenths(line, 13, 17));
+        assertEquals(31, Loader.parseTenths(line, 18, 21));
+    } // end parseTenthsReadsValueWithinLine
+
+    @Test
+    void parseTenthsRejectsValuesThatAreNotWholeTenths() {
+        String[] invalid = {"", "-", "+", ".", "0.05", "12.45", "1.2.3", "1e3", "12a", " 1", "214748364.8", "99999999999"};
+        for (String text : invalid) {
+            assertThrows(NumberFormatException.class, () -> Loader.parseTenths(text), "\"" + text + "\"");
+        }
+    } // end parseTenthsRejectsValuesThatAreNotWholeTenths
+
+    @Test
+    void lenientAnalysisQuarantinesInvalidRecordsWithLineNumbers(@TempDir Path directory) throws Exception {
+        writeRawData(directory, "station.csv", "t,1,2000,01,01,1,1,Y\n" // line 2
+                + "t,1,2000,01,32,1,1,Y\n" // line 3
+                + "t,1,2000,01,02,x,1,Y\n" // line 4
+                + "t,1,2000,01,03,3,1,Y\n" // line 5
+                + "t,1,2000,13,01,1,1,Y\n" // line 6
+                + "t,1\n" // line 7
+                + "t,1,2000,02,01,2,1,Y\n"); // line 8
+        String directoryName = directory.toString();
+
+        Station station = Loader.load(directoryName, "station", LoadOptions.DEFAULT.withLenient(true));
+        assertEquals(2, station.getNumberOfRecords());
+        assertEquals(4.0, station.getTotal(0), 1e-9);
+
+        List<String> lines = Files.readAllLines(directory.resolve("station_quarantine.csv"), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("source,line,reason,record",
+                "\"\",3,\"illegal day\",\"t,1,2000,01,32,1,1,Y\"",
+                "\"\",4,\"invalid number\",\"t,1,2000,01,02,x,1,Y\"",
+                "\"\",6,\"illegal month\",\"t,1,2000,13,01,1,1,Y\"",
+                "\"\",7,\"missing values\",\"t,1\""), lines);
+
+        Map<String, Long> rejectedRows = Loader.loadRejectedRows(directoryName, "station");
+        assertEquals(4, rejectedRows.size());
+        assertEquals(1, getCount(rejectedRows, "illegal day"));
+        assertEquals(1, getCount(rejectedRows, "invalid number"));
+        assertEquals(1, getCount(rejectedRows, "illegal month"));
+        assertEquals(1, getCount(rejectedRows, "missing values"));
+    } // end lenientAnalysisQuarantinesInvalidRecordsWithLineNumbers
+
+    @Test
+    void mergedAnalysisQuarantinesRecordsWithTheirFileAndLine(@TempDir Path directory) throws Exception {
+        File older = writeRawData(directory, "older.csv", "t,1,2000,01,01,1,1,Y\nt,1,2000,01,03,x,1,Y\n");
+        File newer = writeRawData(directory, "newer.csv", "t,1,2000,01,02,2,1,Y\nt,1,2000,01,04,4,1,Y\n"
+                + "t,1,2000,01,05,y,1,Y\n");
+        assertTrue(older.setLastModified(newer.lastModified() - 60_000));
+
+        Loader.load(directory.toString(), "merged", Arrays.asList(older, newer), LoadOptions.DEFAULT.withLenient(true));
+        List<String> lines = Files.readAllLines(directory.resolve("merged_quarantine.csv"), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("source,line,reason,record",
+                "\"older.csv\",3,\"invalid number\",\"t,1,2000,01,03,x,1,Y\"",
+                "\"newer.csv\",4,\"invalid number\",\"t,1,2000,01,05,y,1,Y\""), lines);
+        assertEquals(2, getCount(Loader.loadRejectedRows(directory.toString(), "merged"), "invalid number"));
+    } // end mergedAnalysisQuarantinesRecordsWithTheirFileAndLine
+
+    @Test
+    void strictAnalysisRemovesEarlierQuarantine(@TempDir Path directory) throws Exception {
+        File rawDataFile = writeRawData(directory, "station.csv", "t,1,2000,01,01,1,1,Y\nt,1,2000,01,02,x,1,Y\n");
+        String directoryName = directory.toString();
+        Loader.load(directoryName, "station", LoadOptions.DEFAULT.withLenient(true));
+        assertEquals(1, getCount(Loader.loadRejectedRows(directoryName, "station"), "invalid number"));
+
+        writeRawData(directory, "station.csv", "t,1,2000,01,01,1,1,Y\nt,1,2000,01,02,2,1,Y\n");
+        assertTrue(rawDataFile.setLastModified(rawDataFile.lastModified() + 60_000));
+        Loader.load(directoryName, "station");
+        assertFalse(Files.exists(directory.resolve("station_quarantine.csv")));
+        assertTrue(Loader.loadRejectedRows(directoryName, "station").isEmpty());
+    } // end strictAnalysisRemovesEarlierQuarantine
+
+} // end class LoaderTest
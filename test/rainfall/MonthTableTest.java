@@ -0,0 +1,109 @@
+package rainfall;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of MonthTable, aggregating daily readings added in any order into months written in date order.
+ */
+class MonthTableTest {
+
+    /**
+     * Helper method to write a MonthTable's months as lines of year, month, total, min, max and missing days.
+     */
+    private static List<String> write(MonthTable monthTable, AnalysisReport report, double unitsPerMm) throws IOException {
+        List<String> lines = new ArrayList<>();
+        monthTable.write((year, month, total, min, max, missingDays) ->
+                lines.add(year + "," + month + "," + total + "," + min + "," + max + "," + missingDays), report, unitsPerMm);
+        return lines;
+    } // end write
+
+    @Test
+    void monthsAreWrittenInDateOrderAsTableGrowsAtBothEnds() throws IOException {
+        MonthTable monthTable = new MonthTable();
+        monthTable.add(2000, 6, 2, 1.5);
+        monthTable.add(1850, 1, 1, 2.0); // before the first year, grows the table backwards
+        monthTable.add(2100, 12, 31, 3.0); // past the last year, grows the table forwards
+        monthTable.add(2000, 6, 1, 0.5);
+        AnalysisReport report = new AnalysisReport();
+
+        List<String> lines = write(monthTable, report, 1.0);
+        assertEquals(3, lines.size());
+        assertEquals("1850,1,2.0,2.0,2.0," + (((1 << 31) - 1) & ~1), lines.get(0));
+        assertEquals("2000,6,2.0,0.5,1.5," + (((1 << 30) - 1) & ~3), lines.get(1));
+        assertEquals("2100,12,3.0,3.0,3.0," + ((1 << 30) - 1), lines.get(2));
+        assertEquals(3, report.getMonths());
+        assertEquals(30 + 28 + 30, report.getMissingDays());
+    } // end monthsAreWrittenInDateOrderAsTableGrowsAtBothEnds
+
+    @Test
+    void duplicateDayKeepsFirstReading() throws IOException {
+        MonthTable monthTable = new MonthTable();
+        assertTrue(monthTable.add(2001, 2, 10, 4.0));
+        assertFalse(monthTable.add(2001, 2, 10, 9.0));
+        assertEquals("2001,2,4.0,4.0,4.0," + (((1 << 28) - 1) & ~(1 << 9)), write(monthTable, new AnalysisReport(), 1.0).get(0));
+    } // end duplicateDayKeepsFirstReading
+
+    @Test
+    void blankReadingsAreReadButMissing() throws IOException {
+        MonthTable monthTable = new MonthTable();
+        assertTrue(monthTable.isEmpty());
+        monthTable.add(2001, 4, 1, Double.NaN);
+        monthTable.add(2001, 4, 2, Double.NaN);
+        assertFalse(monthTable.isEmpty());
+        assertFalse(monthTable.add(2001, 4, 1, 5.0)); // the blank record is the day's first
+        AnalysisReport report = new AnalysisReport();
+        assertEquals("2001,4,0.0,0.0,0.0," + ((1 << 30) - 1), write(monthTable, report, 1.0).get(0));
+        assertEquals(30, report.getMissingDays());
+    } // end blankReadingsAreReadButMissing
+
+    @Test
+    void fixedPointTenthsAreScaledToMm() throws IOException {
+        MonthTable monthTable = new MonthTable();
+        monthTable.add(2001, 1, 1, 12);
+        monthTable.add(2001, 1, 2, 3);
+        assertEquals("2001,1,1.5,0.3,1.2," + (((1 << 31) - 1) & ~3), write(monthTable, new AnalysisReport(), 10.0).get(0));
+    } // end fixedPointTenthsAreScaledToMm
+
+    @Test
+    void shuffledReadingsMatchSortedAnalysis() throws Exception {
+        List<String[]> records = new ArrayList<>();
+        Random random = new Random(7);
+        for (int year = 1990; year <= 1995; year++) {
+            for (int month = 1; month <= 12; month++) {
+                for (int day = 1; day <= Record.getDaysInMonth(year, month); day++) {
+                    if (random.nextInt(10) == 0) continue; // a day without a record
+                    String reading = random.nextInt(5) == 0 ? "" : String.valueOf(random.nextInt(500) / 10.0);
+                    records.add(new String[]{"IDCJAC0009", "1", String.valueOf(year), String.valueOf(month),
+                            String.valueOf(day), reading, "1", "Y"});
+                }
+            }
+        }
+        List<String> sorted = analyse(records, LoadOptions.DEFAULT);
+        Collections.shuffle(records, random);
+        assertEquals(sorted, analyse(records, LoadOptions.DEFAULT.withUnsortedInput(true)));
+    } // end shuffledReadingsMatchSortedAnalysis
+
+    /**
+     * Helper method to analyse raw rainfall records into lines of year, month, total, min, max and missing days.
+     */
+    private static List<String> analyse(List<String[]> records, LoadOptions options) throws Exception {
+        Iterator<String[]> remaining = records.iterator();
+        List<String> lines = new ArrayList<>();
+        Loader.analyseDataset(() -> remaining.hasNext() ? remaining.next() : null,
+                (year, month, total, min, max, missingDays) -> lines.add(String.format("%d,%d,%1.2f,%1.2f,%1.2f,%d",
+                        year, month, total, min, max, missingDays)), options, new AnalysisReport(), null);
+        return lines;
+    } // end analyse
+
+} // end class MonthTableTest
@@ -0,0 +1,78 @@
+package rainfall;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of OffHeapStation, copying and writing the columns of a Station.
+ */
+class OffHeapStationTest {
+
+    private static final String RAW_DATA = "Product code,Bureau of Meteorology station number,Year,Month,Day,"
+            + "Rainfall amount (millimetres),Period over which rainfall was measured (days),Quality\n"
+            + "test,test,2000,01,01,1,1,y\ntest,test,2000,01,02,2,1,y\ntest,test,2000,02,01,3,1,y\n";
+
+    /**
+     * Helper method to build a Station of the months of 1999 and 2000.
+     */
+    private static Station buildStation() {
+        StationBuilder stationBuilder = new StationBuilder(false);
+        for (int year = 1999; year <= 2000; year++) {
+            for (int month = 1; month <= 12; month++) {
+                stationBuilder.addRecord(year, month, month * 10.5, month * 0.5, month * 2.5, month == 2 ? 3 : 0);
+            }
+        }
+        return stationBuilder.build();
+    } // end buildStation
+
+    /**
+     * Helper method to check two stations hold the same Records.
+     */
+    private static void assertSameRecords(Station expected, Station actual) {
+        assertEquals(expected.getNumberOfRecords(), actual.getNumberOfRecords());
+        for (int i = 0; i < expected.getNumberOfRecords(); i++) {
+            assertEquals(expected.getYear(i), actual.getYear(i));
+            assertEquals(expected.getMonth(i), actual.getMonth(i));
+            assertEquals(expected.getTotal(i), actual.getTotal(i), 0);
+            assertEquals(expected.getMin(i), actual.getMin(i), 0);
+            assertEquals(expected.getMax(i), actual.getMax(i), 0);
+            assertEquals(expected.getMissingDays(i), actual.getMissingDays(i));
+        }
+    } // end assertSameRecords
+
+    @Test
+    void copyHoldsSameRecords() {
+        Station station = buildStation();
+        try (OffHeapStation copy = OffHeapStation.copyOf(station)) {
+            assertSameRecords(station, copy);
+        }
+    } // end copyHoldsSameRecords
+
+    @Test
+    void writtenStationFileHoldsSameRecords(@TempDir Path directory) throws IOException {
+        Station station = buildStation();
+        Path stationFile = directory.resolve("station.bin");
+        OffHeapStation.write(station, stationFile);
+        try (OffHeapStation mapped = OffHeapStation.map(stationFile)) {
+            assertSameRecords(station, mapped);
+        }
+    } // end writtenStationFileHoldsSameRecords
+
+    @Test
+    void projectedStationIsRejected(@TempDir Path directory) throws IOException, Loader.LoaderException {
+        Files.write(directory.resolve("wet.csv"), RAW_DATA.getBytes(StandardCharsets.UTF_8));
+        Station projected = Loader.load(directory.toString(), "wet",
+                LoadOptions.DEFAULT.withColumns(LoadOptions.Column.TOTAL));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapStation.copyOf(projected));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapStation.write(projected, directory.resolve("wet.bin")));
+    } // end projectedStationIsRejected
+
+} // end class OffHeapStationTest
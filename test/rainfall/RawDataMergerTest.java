@@ -0,0 +1,83 @@
+package rainfall;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests of RawDataMerger, merging raw rainfall csv files by date and keeping the highest priority file's duplicate days.
+ */
+class RawDataMergerTest {
+
+    private static final String HEADER = "Product code,Bureau of Meteorology station number,Year,Month,Day,"
+            + "Rainfall amount (millimetres),Period over which rainfall was measured (days),Quality\n";
+
+    /**
+     * Helper method to build a merger of csv files given as their rows, in increasing priority.
+     */
+    private static RawDataMerger merge(String... files) throws IOException {
+        List<BufferedReader> readers = new ArrayList<>();
+        List<String> sourceNames = new ArrayList<>();
+        for (int i = 0; i < files.length; i++) {
+            readers.add(new BufferedReader(new StringReader(HEADER + files[i])));
+            sourceNames.add("file" + i + ".csv");
+        }
+        return new RawDataMerger(readers, sourceNames);
+    } // end merge
+
+    /**
+     * Helper method to read every merged record as its date and reading, with its source file and line number.
+     */
+    private static List<String> readAll(RawDataMerger merger) throws IOException {
+        List<String> records = new ArrayList<>();
+        for (String[] record = merger.readNextRecord(); record != null; record = merger.readNextRecord()) {
+            records.add(String.join("-", record[2], record[3], record[4]) + "=" + record[5] + " "
+                    + merger.getSourceName() + ":" + merger.getLineNumber(records.size() + 1));
+        }
+        return records;
+    } // end readAll
+
+    @Test
+    void recordsAreMergedInDateOrder() throws IOException {
+        try (RawDataMerger merger = merge(
+                "t,1,2000,01,01,1,1,Y\nt,1,2000,01,04,4,1,Y\nt,1,2000,02,01,7,1,Y\n",
+                "t,1,2000,01,02,2,1,Y\nt,1,2000,01,05,5,1,Y\n",
+                "t,1,2000,01,03,3,1,Y\nt,1,2000,01,06,6,1,Y\n")) {
+            assertEquals(Arrays.asList(
+                    "2000-01-01=1 file0.csv:2", "2000-01-02=2 file1.csv:2", "2000-01-03=3 file2.csv:2",
+                    "2000-01-04=4 file0.csv:3", "2000-01-05=5 file1.csv:3", "2000-01-06=6 file2.csv:3",
+                    "2000-02-01=7 file0.csv:4"), readAll(merger));
+            assertEquals(0, merger.getReplacedDays());
+        }
+    } // end recordsAreMergedInDateOrder
+
+    @Test
+    void duplicateDayKeepsHighestPriorityFile() throws IOException {
+        try (RawDataMerger merger = merge(
+                "t,1,2000,01,01,1,1,Y\nt,1,2000,01,02,2,1,Y\nt,1,2000,01,03,3,1,Y\n",
+                "t,1,2000,01,02,20,1,Y\nt,1,2000,01,03,30,1,Y\n",
+                "t,1,2000,01,03,300,1,Y\n")) {
+            assertEquals(Arrays.asList("2000-01-01=1 file0.csv:2", "2000-01-02=20 file1.csv:2", "2000-01-03=300 file2.csv:2"),
+                    readAll(merger));
+            assertEquals(3, merger.getReplacedDays()); // 2nd from file0, 3rd from file0 and file1
+        }
+    } // end duplicateDayKeepsHighestPriorityFile
+
+    @Test
+    void emptyFilesAreSkipped() throws IOException {
+        try (RawDataMerger merger = merge("", "t,1,2000,01,01,1,1,Y\n", "")) {
+            assertEquals(Collections.singletonList("2000-01-01=1 file1.csv:2"), readAll(merger));
+            assertNull(merger.readNextRecord());
+        }
+    } // end emptyFilesAreSkipped
+
+} // end class RawDataMergerTest
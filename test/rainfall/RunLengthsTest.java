@@ -0,0 +1,113 @@
+package rainfall;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of RunLengths, following runs of dry and wet days across month and year boundaries and gaps in the records.
+ */
+class RunLengthsTest {
+
+    private static final String HEADER = "Product code,Bureau of Meteorology station number,Year,Month,Day,"
+            + "Rainfall amount (millimetres),Period over which rainfall was measured (days),Quality\n";
+
+    @Test
+    void dryRunCarriesAcrossYearBoundary() {
+        RunLengths runLengths = new RunLengths(1.0);
+        runLengths.add(2000, 12, 29, 5.0);
+        runLengths.add(2000, 12, 30, 0);
+        runLengths.add(2000, 12, 31, 0);
+        runLengths.add(2001, 1, 1, 0);
+        runLengths.add(2001, 1, 2, 0);
+        runLengths.add(2001, 1, 3, 5.0);
+        runLengths.finish();
+
+        assertEquals(4, runLengths.getLongestDryRun());
+        assertEquals(LocalDate.of(2000, 12, 30), runLengths.getLongestDryRunStart());
+        assertEquals(2, runLengths.getNumberOfYears());
+        assertEquals(2000, runLengths.getYear(0));
+        assertEquals(2, runLengths.getYearLongestDryRun(0));
+        assertEquals(4, runLengths.getYearLongestDryRun(1)); // includes the days carried from 2000
+        assertEquals(LocalDate.of(2000, 12, 30), runLengths.getYearLongestDryRunStart(1));
+        assertEquals(1, runLengths.getDryRunHistogram()[4]);
+    } // end dryRunCarriesAcrossYearBoundary
+
+    @Test
+    void wetRunCarriesAcrossLeapDay() {
+        RunLengths runLengths = new RunLengths(1.0);
+        runLengths.add(2000, 2, 28, 2.0);
+        runLengths.add(2000, 2, 29, 2.0);
+        runLengths.add(2000, 3, 1, 2.0);
+        runLengths.finish();
+
+        assertEquals(3, runLengths.getLongestWetRun());
+        assertEquals(LocalDate.of(2000, 2, 28), runLengths.getLongestWetRunStart());
+        assertEquals(3, runLengths.getCurrentWetRun());
+    } // end wetRunCarriesAcrossLeapDay
+
+    @Test
+    void missingDayEndsRun() {
+        RunLengths runLengths = new RunLengths(1.0);
+        runLengths.add(2001, 2, 27, 0);
+        runLengths.add(2001, 2, 28, 0);
+        runLengths.add(2001, 3, 2, 0); // 1 March has no record
+        runLengths.add(2001, 3, 3, 0);
+        runLengths.add(2001, 3, 4, 0);
+        runLengths.finish();
+
+        assertEquals(3, runLengths.getLongestDryRun());
+        assertEquals(LocalDate.of(2001, 3, 2), runLengths.getLongestDryRunStart());
+        assertEquals(1, runLengths.getDryRunHistogram()[2]);
+        assertEquals(1, runLengths.getDryRunHistogram()[3]);
+    } // end missingDayEndsRun
+
+    @Test
+    void blankReadingEndsRun() {
+        RunLengths runLengths = new RunLengths(1.0);
+        runLengths.add(2001, 1, 1, 3.0);
+        runLengths.add(2001, 1, 2, 3.0);
+        runLengths.add(2001, 1, 3, Double.NaN);
+        runLengths.add(2001, 1, 4, 3.0);
+        runLengths.finish();
+
+        assertEquals(2, runLengths.getLongestWetRun());
+        assertEquals(1, runLengths.getCurrentWetRun());
+        assertEquals(LocalDate.of(2001, 1, 4), runLengths.getCurrentWetRunStart());
+    } // end blankReadingEndsRun
+
+    @Test
+    void dayPastEndOfMonthIsRejectedByAnalysis(@TempDir Path directory) throws IOException {
+        String rows = "test,test,2001,02,28,0,1,y\ntest,test,2001,02,30,0,1,y\ntest,test,2001,03,01,0,1,y\n";
+        Files.write(directory.resolve("feb.csv"), (HEADER + rows).getBytes(StandardCharsets.UTF_8));
+
+        LoadOptions options = LoadOptions.DEFAULT.withRunLengths(true);
+        Loader.LoaderException error = assertThrows(Loader.LoaderException.class,
+                () -> Loader.load(directory.toString(), "feb", options));
+        assertEquals("illegal day in rawDataCSVFile: 2001/2/30", error.getMessage());
+    } // end dayPastEndOfMonthIsRejectedByAnalysis
+
+    @Test
+    void dayPastEndOfMonthIsQuarantinedByLenientAnalysis(@TempDir Path directory) throws Exception {
+        String rows = "test,test,2001,02,28,0,1,y\ntest,test,2001,02,30,0,1,y\ntest,test,2001,03,01,0,1,y\n";
+        Files.write(directory.resolve("feb.csv"), (HEADER + rows).getBytes(StandardCharsets.UTF_8));
+
+        LoadOptions options = LoadOptions.DEFAULT.withRunLengths(true).withLenient(true);
+        Station station = Loader.load(directory.toString(), "feb", options);
+        assertEquals(2, station.getNumberOfRecords());
+        Map<String, Long> rejectedRows = Loader.loadRejectedRows(directory.toString(), "feb");
+        assertEquals(1, rejectedRows.get("illegal day").longValue());
+        RunLengths runLengths = Loader.loadRunLengths(directory.toString(), "feb", options);
+        assertEquals(2, runLengths.getLongestDryRun());
+    } // end dayPastEndOfMonthIsQuarantinedByLenientAnalysis
+
+} // end class RunLengthsTest
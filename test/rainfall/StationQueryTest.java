@@ -0,0 +1,78 @@
+package rainfall;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of StationQuery, running queries over many stations in parallel against the same Records in one Station.
+ */
+class StationQueryTest {
+
+    private static final int STATIONS = 64;
+
+    /**
+     * Helper method to build the stations queried, each with the 12 months of 2000 totalling 10 mm.
+     */
+    private static List<Station> buildStations() {
+        List<Station> stations = new ArrayList<>();
+        for (int station = 0; station < STATIONS; station++) {
+            StationBuilder stationBuilder = new StationBuilder(false);
+            for (int month = 1; month <= 12; month++) {
+                stationBuilder.addRecord(2000, month, 10.0, station, month + station, 0);
+            }
+            stations.add(stationBuilder.build());
+        }
+        return stations;
+    } // end buildStations
+
+    /**
+     * Helper method to build one Station holding the Records of every station, queried serially.
+     */
+    private static Station combine(List<Station> stations) {
+        StationBuilder stationBuilder = new StationBuilder(false);
+        for (Station station : stations) {
+            for (int i = 0; i < station.getNumberOfRecords(); i++) stationBuilder.addRecord(station.getRecord(i));
+        }
+        return stationBuilder.build();
+    } // end combine
+
+    @Test
+    void parallelQueryOverStationsMatchesSerialQuery() {
+        List<Station> stations = buildStations();
+        Station combined = combine(stations);
+        String[] expressions = {"count", "sum total", "mean max group by month", "min min group by season",
+                "max max group by year", "count where max > 40 group by month having >= 20"};
+        for (String expression : expressions) {
+            StationQuery query = StationQuery.parse(expression);
+            QueryResult serial = query.run(combined);
+            for (int run = 0; run < 20; run++) { // a shared accumulator gave different results from run to run
+                assertEquals(serial.getValues(), query.run(stations).getValues(), expression);
+            }
+        }
+    } // end parallelQueryOverStationsMatchesSerialQuery
+
+    @Test
+    void parallelCountAndSumCoverEveryMonthOnce() {
+        List<Station> stations = buildStations();
+        assertEquals(STATIONS * 12.0, StationQuery.parse("count").run(stations).getValue(0), 1e-9);
+        assertEquals(STATIONS * 12 * 10.0, StationQuery.parse("sum total").run(stations).getValue(0), 1e-9);
+    } // end parallelCountAndSumCoverEveryMonthOnce
+
+    @Test
+    void monthsWithoutReadingsAreSkipped() {
+        StationBuilder stationBuilder = new StationBuilder(false);
+        stationBuilder.addRecord(2000, 2, 4.0, 0, 4.0, (1 << 28) - 1); // 29 February 2000 has a reading
+        stationBuilder.addRecord(2001, 1, 0, 0, 0, (1 << 31) - 1);
+        stationBuilder.addRecord(2001, 2, 0, 0, 0, (1 << 28) - 1);
+        stationBuilder.addRecord(2001, 3, 6.0, 0, 2.0, 0);
+        Station station = stationBuilder.build();
+        assertEquals(2.0, StationQuery.parse("count").run(station).getValue(0), 0);
+        assertEquals(10.0, StationQuery.parse("sum total").run(station).getValue(0), 0);
+        assertEquals(2.0, StationQuery.parse("min max").run(station).getValue(0), 0);
+    } // end monthsWithoutReadingsAreSkipped
+
+} // end class StationQueryTest
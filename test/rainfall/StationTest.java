@@ -0,0 +1,128 @@
+package rainfall;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of Station.withRecord, which shares a Station's columns with the first Station derived from it
+ * and copies them for any other, so appends to the same parent must never see each other's months.
+ */
+class StationTest {
+
+    /**
+     * Helper method to build a Station of the months of a year from January, each totalling its month in mm.
+     */
+    private static Station buildStation(int months, boolean fixedPoint) {
+        StationBuilder stationBuilder = new StationBuilder(fixedPoint);
+        for (int month = 1; month <= months; month++) {
+            stationBuilder.addRecord(2000, month, month, 0.0, month, 0);
+        }
+        return stationBuilder.build();
+    } // end buildStation
+
+    /**
+     * Helper method to check the Records of a Station derived from a parent of buildStation months,
+     * followed by the appended months totalling the values given.
+     */
+    private static void assertAppended(Station station, int parentMonths, double... appendedTotals) {
+        assertEquals(parentMonths + appendedTotals.length, station.getNumberOfRecords());
+        for (int i = 0; i < parentMonths; i++) {
+            assertEquals(i + 1, station.getMonth(i));
+            assertEquals(i + 1, station.getTotal(i), 1e-9);
+        }
+        for (int i = 0; i < appendedTotals.length; i++) {
+            assertEquals(2001, station.getYear(parentMonths + i));
+            assertEquals(appendedTotals[i], station.getTotal(parentMonths + i), 1e-9);
+        }
+    } // end assertAppended
+
+    @Test
+    void twoAppendsToSameParentKeepTheirOwnMonths() {
+        Station parent = buildStation(3, false).withRecord(new Record(2001, 1, 10.0, 0.0, 10.0, 0));
+
+        Station first = parent.withRecord(new Record(2001, 2, 20.0, 0.0, 20.0, 0)); // shares parent's columns
+        Station second = parent.withRecord(new Record(2001, 2, 30.0, 0.0, 30.0, 0)); // copies them
+
+        assertAppended(parent, 3, 10.0);
+        assertAppended(first, 3, 10.0, 20.0);
+        assertAppended(second, 3, 10.0, 30.0);
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> parent.getTotal(4));
+    } // end twoAppendsToSameParentKeepTheirOwnMonths
+
+    @Test
+    void appendAfterCopyDoesNotChangeOtherBranches() {
+        Station parent = buildStation(3, false).withRecord(new Record(2001, 1, 10.0, 0.0, 10.0, 0));
+        Station first = parent.withRecord(new Record(2001, 2, 20.0, 0.0, 20.0, 0));
+        Station copy = parent.withRecord(new Record(2001, 2, 30.0, 0.0, 30.0, 0));
+
+        // Each branch now owns the element after its months, so appends carry on sharing without meeting
+        Station firstNext = first.withRecord(new Record(2001, 3, 21.0, 0.0, 21.0, 0));
+        Station copyNext = copy.withRecord(new Record(2001, 3, 31.0, 0.0, 31.0, 0));
+        Station copyOther = copy.withRecord(new Record(2001, 3, 32.0, 0.0, 32.0, 0));
+
+        assertAppended(firstNext, 3, 10.0, 20.0, 21.0);
+        assertAppended(copyNext, 3, 10.0, 30.0, 31.0);
+        assertAppended(copyOther, 3, 10.0, 30.0, 32.0);
+        assertAppended(first, 3, 10.0, 20.0);
+        assertAppended(copy, 3, 10.0, 30.0);
+    } // end appendAfterCopyDoesNotChangeOtherBranches
+
+    @Test
+    void concurrentAppendsToSameParentKeepTheirOwnMonths() throws Exception {
+        Station parent = buildStation(12, false).withRecord(new Record(2001, 1, 10.0, 0.0, 10.0, 0));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Station>> appends = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                double total = 100.0 + i;
+                appends.add(executor.submit(() -> parent.withRecord(new Record(2001, 2, total, 0.0, total, 0))));
+            }
+            for (int i = 0; i < appends.size(); i++) {
+                assertAppended(appends.get(i).get(), 12, 10.0, 100.0 + i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertAppended(parent, 12, 10.0);
+    } // end concurrentAppendsToSameParentKeepTheirOwnMonths
+
+    @Test
+    void appendsToFixedPointStationKeepTenths() {
+        Station parent = buildStation(3, true).withRecord(new Record(2001, 1, 10.04, 0.0, 10.04, 0));
+
+        Station first = parent.withRecord(new Record(2001, 2, 20.06, 0.0, 20.06, 0));
+        Station second = parent.withRecord(new Record(2001, 2, 30.0, 0.0, 30.0, 0));
+
+        assertTrue(first instanceof FixedPointStation);
+        assertTrue(second instanceof FixedPointStation);
+        assertAppended(parent, 3, 10.0);
+        assertAppended(first, 3, 10.0, 20.1);
+        assertAppended(second, 3, 10.0, 30.0);
+        assertEquals(201, first.getTotalTenths(4));
+    } // end appendsToFixedPointStationKeepTenths
+
+    @Test
+    void appendsToOffHeapStationOutliveIt() {
+        Station first;
+        Station second;
+        try (OffHeapStation parent = OffHeapStation.copyOf(buildStation(3, false))) {
+            first = parent.withRecord(new Record(2001, 1, 20.0, 0.0, 20.0, 0));
+            second = parent.withRecord(new Record(2001, 1, 30.0, 0.0, 30.0, 0));
+            assertEquals(3, parent.getNumberOfRecords());
+        }
+        // Derived Stations hold their own columns, so closing the parent doesn't affect them
+        assertAppended(first, 3, 20.0);
+        assertAppended(second, 3, 30.0);
+        assertAppended(first.withRecord(new Record(2001, 2, 21.0, 0.0, 21.0, 0)), 3, 20.0, 21.0);
+    } // end appendsToOffHeapStationOutliveIt
+
+} // end class StationTest